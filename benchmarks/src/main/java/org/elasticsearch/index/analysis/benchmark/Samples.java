@@ -0,0 +1,43 @@
+package org.elasticsearch.index.analysis.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The words of the stemming samples, which every benchmark runs over.
+ *
+ * The samples are read from the path of the {@code samples} system property,
+ * which defaults to the golden file of the tests as seen from the benchmarks
+ * directory.
+ */
+final class Samples {
+
+  static final String DEFAULT_PATH = "../src/test/resources/stemming_samples.txt";
+
+  private Samples() {
+  }
+
+  /**
+   * Reads the words of the samples, in the order of the file.
+   *
+   * @return the words
+   * @throws IOException if the samples cannot be read
+   */
+  static String[] words() throws IOException {
+    List<String> words = new ArrayList<String>();
+
+    for(String line : Files.readAllLines(Paths.get(System.getProperty("samples", DEFAULT_PATH)),
+                                         StandardCharsets.UTF_8)) {
+      int comma = line.indexOf(',', 1);
+
+      if(comma > 0)
+        words.add(line.substring(0, comma));
+    }
+
+    return words.toArray(new String[words.size()]);
+  }
+}
@@ -0,0 +1,96 @@
+package org.elasticsearch.index.analysis.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.DerivationalSuffix;
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.NominalVerbSuffix;
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.NounSuffix;
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.Suffix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of matching and removing single suffixes. Every operation checks
+ * the next word against all the suffixes, or removes the next suffix that is
+ * known to match its word.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SuffixBenchmark {
+
+  private Suffix[] suffixes;
+  private String[] words;
+  private int nextWord;
+  /**
+   * The pairs of the words and the suffixes they end with.
+   */
+  private String[] matchedWords;
+  private Suffix[] matchedSuffixes;
+  private int nextMatch;
+
+  @Setup
+  public void setUp() throws IOException {
+    List<Suffix> suffixes = new ArrayList<Suffix>();
+    List<String> matchedWords = new ArrayList<String>();
+    List<Suffix> matchedSuffixes = new ArrayList<Suffix>();
+
+    suffixes.addAll(Arrays.asList(NominalVerbSuffix.values()));
+    suffixes.addAll(Arrays.asList(NounSuffix.values()));
+    suffixes.addAll(Arrays.asList(DerivationalSuffix.values()));
+
+    this.suffixes = suffixes.toArray(new Suffix[suffixes.size()]);
+    this.words = Samples.words();
+
+    for(String word : words) {
+      for(Suffix suffix : this.suffixes) {
+        if(suffix.match(word)) {
+          matchedWords.add(word);
+          matchedSuffixes.add(suffix);
+        }
+      }
+    }
+
+    this.matchedWords = matchedWords.toArray(new String[matchedWords.size()]);
+    this.matchedSuffixes = matchedSuffixes.toArray(new Suffix[matchedSuffixes.size()]);
+  }
+
+  @Benchmark
+  public int match() {
+    String word = words[nextWord];
+    int matches = 0;
+
+    nextWord = nextWord + 1 == words.length ? 0 : nextWord + 1;
+
+    for(Suffix suffix : suffixes) {
+      if(suffix.match(word))
+        matches++;
+    }
+
+    return matches;
+  }
+
+  @Benchmark
+  public String removeSuffix() {
+    int match = nextMatch;
+
+    nextMatch = match + 1 == matchedWords.length ? 0 : match + 1;
+
+    return matchedSuffixes[match].removeSuffix(matchedWords[match]);
+  }
+}
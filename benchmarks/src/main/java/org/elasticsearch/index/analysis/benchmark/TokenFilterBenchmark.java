@@ -0,0 +1,91 @@
+package org.elasticsearch.index.analysis.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.elasticsearch.index.analysis.TurkishStemmer;
+import org.elasticsearch.index.analysis.TurkishStemmerTokenFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the token filter behind a whitespace tokenizer, the way an
+ * analyzer reuses them. The words of the samples are split into documents of
+ * a fixed number of words and every operation is a word, so the scores are
+ * comparable with the ones of {@link TurkishStemmerBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TokenFilterBenchmark {
+
+  private static final int WORDS_PER_DOCUMENT = 100;
+
+  @Param({"0", "1024"})
+  public int cacheSize;
+
+  private String[] documents;
+  private int next;
+  private Tokenizer tokenizer;
+  private TokenStream filter;
+  private CharTermAttribute termAtt;
+
+  @Setup
+  public void setUp() throws IOException {
+    String[] words = Samples.words();
+    int count = words.length / WORDS_PER_DOCUMENT;
+
+    documents = new String[count];
+
+    for(int i = 0; i < count; i++) {
+      StringBuilder document = new StringBuilder();
+
+      for(int j = 0; j < WORDS_PER_DOCUMENT; j++) {
+        document.append(words[i * WORDS_PER_DOCUMENT + j]).append(' ');
+      }
+
+      documents[i] = document.toString();
+    }
+
+    tokenizer = new WhitespaceTokenizer();
+    filter = new TurkishStemmerTokenFilter(tokenizer, new TurkishStemmer(),
+                                           cacheSize, null, null);
+    termAtt = filter.getAttribute(CharTermAttribute.class);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(WORDS_PER_DOCUMENT)
+  public int analyze() throws IOException {
+    int length = 0;
+
+    tokenizer.setReader(new StringReader(documents[next]));
+    next = next + 1 == documents.length ? 0 : next + 1;
+
+    filter.reset();
+    while(filter.incrementToken()) {
+      length += termAtt.length();
+    }
+    filter.end();
+    filter.close();
+
+    return length;
+  }
+}
@@ -0,0 +1,100 @@
+package org.elasticsearch.index.analysis.benchmark;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.index.analysis.TurkishStemmer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the stemmer over the words of the stemming samples. Every
+ * operation stems the next word, so the scores are words per second and the
+ * normalized allocation rate of {@code -prof gc} is bytes per word.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TurkishStemmerBenchmark {
+
+  private final TurkishStemmer stemmer = new TurkishStemmer();
+  private final TurkishStemmer.Context context = new TurkishStemmer.Context();
+  private final Set<String> stems = new LinkedHashSet<String>();
+  private String[] words;
+  private char[][] buffers;
+  private char[] buffer;
+  private int next;
+
+  @Setup
+  public void setUp() throws IOException {
+    words = Samples.words();
+    buffers = new char[words.length][];
+    int maxLength = 0;
+
+    for(int i = 0; i < words.length; i++) {
+      buffers[i] = words[i].toCharArray();
+      maxLength = Math.max(maxLength, buffers[i].length);
+    }
+
+    buffer = new char[maxLength];
+  }
+
+  private int next() {
+    int word = next;
+
+    next = word + 1 == words.length ? 0 : word + 1;
+
+    return word;
+  }
+
+  @Benchmark
+  public int stemInPlace() {
+    char[] word = buffers[next()];
+
+    System.arraycopy(word, 0, buffer, 0, word.length);
+
+    return stemmer.stem(context, buffer, word.length);
+  }
+
+  @Benchmark
+  public String stem() {
+    char[] word = buffers[next()];
+
+    return stemmer.stem(word, word.length, 0);
+  }
+
+  @Benchmark
+  public void nominalVerbSuffixStripper(Blackhole blackhole) {
+    stems.clear();
+    stemmer.nominalVerbSuffixStripper(words[next()], stems);
+    blackhole.consume(stems);
+  }
+
+  @Benchmark
+  public void nounSuffixStripper(Blackhole blackhole) {
+    stems.clear();
+    stemmer.nounSuffixStripper(words[next()], stems);
+    blackhole.consume(stems);
+  }
+
+  @Benchmark
+  public void derivationalSuffixStripper(Blackhole blackhole) {
+    stems.clear();
+    stemmer.derivationalSuffixStripper(words[next()], stems);
+    blackhole.consume(stems);
+  }
+}
@@ -4,39 +4,33 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.EnumSet;
-import java.util.HashSet;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Set;
 
-import org.apache.commons.lang3.StringUtils; // Apache StringUtils
 import org.apache.lucene.analysis.CharArraySet;
 import org.apache.lucene.analysis.util.WordlistLoader;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.IOUtils;
-import org.apache.logging.log4j.Logger;
-import org.elasticsearch.common.logging.Loggers;
-import org.elasticsearch.index.analysis.stemmer.turkish.states.DerivationalState;
-import org.elasticsearch.index.analysis.stemmer.turkish.states.NominalVerbState;
-import org.elasticsearch.index.analysis.stemmer.turkish.states.NounState;
-import org.elasticsearch.index.analysis.stemmer.turkish.states.State;
-import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.DerivationalSuffix;
-import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.NominalVerbSuffix;
-import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.NounSuffix;
+import org.elasticsearch.index.analysis.stemmer.turkish.CharClasses;
+import org.elasticsearch.index.analysis.stemmer.turkish.WordProfile;
+import org.elasticsearch.index.analysis.stemmer.turkish.deasciification.Deasciifier;
+import org.elasticsearch.index.analysis.stemmer.turkish.states.StateMachine;
 import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.Suffix;
-import org.elasticsearch.index.analysis.stemmer.turkish.transitions.Transition;
-
-import com.google.common.base.CharMatcher;   // Guava
-
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.SkipReason;
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.StemExplanation;
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.StemTraceListener;
+import org.elasticsearch.index.analysis.stemmer.turkish.transitions.TransitionQueue;
+
+/**
+ * A stemmer for turkish words, based on suffix stripping state machines.
+ *
+ * A stemmer is immutable once built, so a single instance can be shared by
+ * every thread and token stream of the same configuration. The scratch space
+ * of stemming a word lives in a {@link Context}, which each token stream keeps
+ * for itself.
+ */
 public class TurkishStemmer {
 
-  /**
-   * Logger.
-   */
-  protected final Logger logger = Loggers.getLogger("turkish-stemmer");
-
   /**
    * The turkish characters. They are used for skipping not turkish words.
    */
@@ -92,129 +86,723 @@ public class TurkishStemmer {
   public static final String DEFAULT_AVERAGE_STEM_SIZE_EXCEPTION_FILE = "average_stem_size_exceptions.txt";
 
   /**
-   * The set of nominal verb states that a word may pass during the stemming
-   * phase.
+   * The average size of turkish stems based on which the selection of the final
+   * stem is performed.
+   *
+   * The idea behind the selection process is based on the paper
+   * F.Can, S.Kocberber, E.Balcik, C.Kaynak, H.Cagdas, O.Calan, O.Vursavas
+   * "Information Retrieval on Turkish Texts"
+   */
+  private static final int AVERAGE_STEMMED_SIZE = 4;
+
+  /**
+   * The default maximum length of the words that are stemmed, which is the
+   * default maximum token length of Lucene.
    */
-  private static final EnumSet<NominalVerbState> nominalVerbStates = EnumSet.allOf(NominalVerbState.class);
+  public static final int DEFAULT_MAX_TOKEN_LENGTH = 255;
   /**
-   * The set of noun states that a word may pass during the stemming
-   * phase.
+   * The default maximum number of transitions tried for a word. The words of
+   * the stemming samples need at most 14.
    */
-  private static final EnumSet<NounState> nounStates = EnumSet.allOf(NounState.class);
+  public static final int DEFAULT_MAX_TRANSITIONS = 256;
+
+  private final CharArraySet protectedWords;
+  private final CharArraySet vowelHarmonyExceptions;
+  private final CharArraySet lastConsonantExceptions;
+  private final CharArraySet averageStemSizeExceptions;
   /**
-   * The set of derivational states that a word may pass during the stemming
-   * phase.
+   * The listener of the path of every word, or null.
    */
-  private static final EnumSet<DerivationalState> derivationalStates = EnumSet.allOf(DerivationalState.class);
+  private final StemTraceListener listener;
   /**
-   * The set of nominal verb suffixes that the stemmer recognizes.
+   * The limits of the work on a word, or 0 for no limit.
    */
-  private static final EnumSet<NominalVerbSuffix>  nominalVerbSuffixes = EnumSet.allOf(NominalVerbSuffix.class);
+  private final int maxTokenLength;
+  private final int maxTransitions;
   /**
-   * The set of noun suffixes that the stemmer recognizes.
+   * Whether a word that no rule matches is retried with its last letter
+   * swapped between u and ü or i and ı.
    */
-  private static final EnumSet<NounSuffix> nounSuffixes = EnumSet.allOf(NounSuffix.class);
+  private final boolean correctMistypes;
   /**
-   * The set of derivational suffixes that the stemmer recognizes.
+   * The deasciifier of the words typed without Turkish letters, or null.
    */
-  private static final EnumSet<DerivationalSuffix> derivationalSuffixes = EnumSet.allOf(DerivationalSuffix.class);
+  private final Deasciifier deasciifier;
 
   /**
-   * The average size of turkish stems based on which the selection of the final
-   * stem is performed.
+   * The contexts of the stemming methods that are not given one.
+   */
+  private static final ThreadLocal<Context> CONTEXTS =
+      ThreadLocal.withInitial(Context::new);
+
+  /**
+   * The reusable structures of the in-place stemming path.
    *
-   * The idea behind the selection process is based on the paper
-   * F.Can, S.Kocberber, E.Balcik, C.Kaynak, H.Cagdas, O.Calan, O.Vursavas
-   * "Information Retrieval on Turkish Texts"
+   * A stemmer only holds its immutable configuration, so it can be shared
+   * between threads, while everything that changes as a word is stemmed lives
+   * in a context. A context holds no configuration, so it can be used with any
+   * stemmer, but only by one thread at a time. Every candidate stem is a
+   * prefix of the word that is being stemmed, so the candidates are kept as
+   * flags indexed by their length.
    */
-  private static final int AVERAGE_STEMMED_SIZE = 4;
+  public static final class Context {
+    private final TransitionQueue transitions = new TransitionQueue();
+    private boolean[] stemLengths = new boolean[32];
+    /**
+     * The word with its last letter corrected, which is stemmed instead of
+     * writing the correction over the buffer of the caller.
+     */
+    private char[] corrected = new char[32];
+    /**
+     * The word as it was typed, the prefixes of it that are the ASCII
+     * spelling of a known stem, and the variant of the word that is being
+     * stemmed.
+     */
+    private char[] ascii = new char[32];
+    private int[] prefixLengths = new int[32];
+    private char[] variant = new char[32];
+    private boolean[] wordLengthsToStem = new boolean[32];
+    /**
+     * The lengths of the candidate stems in the order they were found.
+     */
+    private int[] stemOrder = new int[32];
+    private int stemCount;
+    /**
+     * The length of the best candidate stem found so far, or -1, and whether
+     * it is an exception to the average stem size.
+     */
+    private int bestStem;
+    private boolean bestStemIsException;
+    /**
+     * Whether each final candidate stem, indexed by its length, is an
+     * exception to the average stem size.
+     */
+    private boolean[] stemExceptions = new boolean[32];
+    /**
+     * Whether variants of the latest word with Turkish letters were stemmed,
+     * in which case the candidate stems are the ones of a variant.
+     */
+    private boolean deasciified;
+    /**
+     * The vowels of the word that is being stemmed.
+     */
+    private final WordProfile profile = new WordProfile();
+    /**
+     * Why the latest word was left unstemmed, or null.
+     */
+    private SkipReason skipReason;
+    /**
+     * The number of transitions the latest word may still try, and whether
+     * it ran out of them.
+     */
+    private int transitionsLeft;
+    private boolean truncated;
+
+    /**
+     * Gets the reason why the latest word stemmed with this context was not
+     * processed by the state machines.
+     *
+     * @return the reason, or null if the word was processed
+     */
+    public SkipReason skipReason() {
+      return skipReason;
+    }
 
-  private final CharArraySet protectedWords;
-  private final CharArraySet vowelHarmonyExceptions;
-  private final CharArraySet lastConsonantExceptions;
-  private final CharArraySet averageStemSizeExceptions;
+    /**
+     * Checks whether the latest word stemmed with this context tried more
+     * transitions than allowed, in which case it got the best stem found
+     * before the limit.
+     *
+     * @return whether the word was truncated
+     */
+    public boolean truncated() {
+      return truncated;
+    }
+  }
 
   public TurkishStemmer() {
     this.protectedWords            = TurkishStemmer.getDefaultProtectedWordSet();
     this.vowelHarmonyExceptions    = TurkishStemmer.getDefaultVowelHarmonySet();
     this.lastConsonantExceptions   = TurkishStemmer.getDefaultLastConsonantSet();
     this.averageStemSizeExceptions = TurkishStemmer.getDefaultAverageStemSizeSet();
+    this.listener                  = null;
+    this.maxTokenLength            = DEFAULT_MAX_TOKEN_LENGTH;
+    this.maxTransitions            = DEFAULT_MAX_TRANSITIONS;
+    this.correctMistypes           = true;
+    this.deasciifier               = null;
   }
 
   public TurkishStemmer(final CharArraySet protectedWords,
                         final CharArraySet vowelHarmonyExceptions,
                         final CharArraySet lastConsonantExceptions,
                         final CharArraySet averageStemSizeExceptions) {
+    this(protectedWords, vowelHarmonyExceptions, lastConsonantExceptions,
+         averageStemSizeExceptions, null, DEFAULT_MAX_TOKEN_LENGTH,
+         DEFAULT_MAX_TRANSITIONS, true, null);
+  }
+
+  private TurkishStemmer(final CharArraySet protectedWords,
+                         final CharArraySet vowelHarmonyExceptions,
+                         final CharArraySet lastConsonantExceptions,
+                         final CharArraySet averageStemSizeExceptions,
+                         final StemTraceListener listener,
+                         final int maxTokenLength,
+                         final int maxTransitions,
+                         final boolean correctMistypes,
+                         final Deasciifier deasciifier) {
     this.protectedWords          = protectedWords;
     this.vowelHarmonyExceptions  = vowelHarmonyExceptions;
     this.lastConsonantExceptions = lastConsonantExceptions;
     this.averageStemSizeExceptions = averageStemSizeExceptions;
+    this.listener                = listener;
+    this.maxTokenLength          = maxTokenLength;
+    this.maxTransitions          = maxTransitions;
+    this.correctMistypes         = correctMistypes;
+    this.deasciifier             = deasciifier;
+  }
+
+  /**
+   * Creates a builder of a stemmer, which starts from the default word lists
+   * and settings.
+   *
+   * @return a new builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Builds a stemmer with any of its optional settings.
+   */
+  public static final class Builder {
+    private CharArraySet protectedWords = getDefaultProtectedWordSet();
+    private CharArraySet vowelHarmonyExceptions = getDefaultVowelHarmonySet();
+    private CharArraySet lastConsonantExceptions = getDefaultLastConsonantSet();
+    private CharArraySet averageStemSizeExceptions = getDefaultAverageStemSizeSet();
+    private StemTraceListener listener;
+    private int maxTokenLength = DEFAULT_MAX_TOKEN_LENGTH;
+    private int maxTransitions = DEFAULT_MAX_TRANSITIONS;
+    private boolean correctMistypes = true;
+    private Deasciifier deasciifier;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the words that are never stemmed.
+     */
+    public Builder protectedWords(final CharArraySet protectedWords) {
+      this.protectedWords = protectedWords;
+      return this;
+    }
+
+    /**
+     * Sets the words that are stemmed despite breaking vowel harmony.
+     */
+    public Builder vowelHarmonyExceptions(final CharArraySet vowelHarmonyExceptions) {
+      this.vowelHarmonyExceptions = vowelHarmonyExceptions;
+      return this;
+    }
+
+    /**
+     * Sets the stems whose last consonant is kept as it is.
+     */
+    public Builder lastConsonantExceptions(final CharArraySet lastConsonantExceptions) {
+      this.lastConsonantExceptions = lastConsonantExceptions;
+      return this;
+    }
+
+    /**
+     * Sets the stems that are preferred over the ones closer to the average
+     * size.
+     */
+    public Builder averageStemSizeExceptions(final CharArraySet averageStemSizeExceptions) {
+      this.averageStemSizeExceptions = averageStemSizeExceptions;
+      return this;
+    }
+
+    /**
+     * Sets the listener of the path of every word, or null.
+     */
+    public Builder listener(final StemTraceListener listener) {
+      this.listener = listener;
+      return this;
+    }
+
+    /**
+     * Sets the maximum length of a stemmed word, or 0 for no limit. A longer
+     * word is left as it is.
+     */
+    public Builder maxTokenLength(final int maxTokenLength) {
+      this.maxTokenLength = maxTokenLength;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of transitions tried for a word, or 0 for no
+     * limit. A word that runs out of transitions gets the best stem found
+     * until then.
+     */
+    public Builder maxTransitions(final int maxTransitions) {
+      this.maxTransitions = maxTransitions;
+      return this;
+    }
+
+    /**
+     * Sets whether a word that no rule matches is retried with its last
+     * letter swapped between u and ü or i and ı.
+     */
+    public Builder correctMistypes(final boolean correctMistypes) {
+      this.correctMistypes = correctMistypes;
+      return this;
+    }
+
+    /**
+     * Sets the deasciifier of the words that were typed without Turkish
+     * letters, or null to stem words as they are. Such a word is stemmed as
+     * it is first, and if its stem is not known, variants of it with the
+     * Turkish letters of the known stems it starts with are stemmed, until
+     * one of them gets a known stem.
+     */
+    public Builder deasciifier(final Deasciifier deasciifier) {
+      this.deasciifier = deasciifier;
+      return this;
+    }
+
+    public TurkishStemmer build() {
+      return new TurkishStemmer(protectedWords, vowelHarmonyExceptions,
+                                lastConsonantExceptions, averageStemSizeExceptions,
+                                listener, maxTokenLength, maxTransitions,
+                                correctMistypes, deasciifier);
+    }
+  }
+
+  /**
+   * Computes a fingerprint of everything that affects the stems of this
+   * stemmer: its word lists, its limits, whether it corrects mistypes and its
+   * deasciifier.
+   *
+   * @return the fingerprint
+   */
+  public long fingerprint() {
+    long fingerprint = 17;
+
+    fingerprint = 31 * fingerprint + maxTokenLength;
+    fingerprint = 31 * fingerprint + maxTransitions;
+    fingerprint = 31 * fingerprint + (correctMistypes ? 1 : 0);
+    fingerprint = 31 * fingerprint + (deasciifier == null ? 0 :
+        31 * fingerprint(deasciifier.stems()) + deasciifier.maxVariants());
+    fingerprint = 31 * fingerprint + fingerprint(protectedWords);
+    fingerprint = 31 * fingerprint + fingerprint(vowelHarmonyExceptions);
+    fingerprint = 31 * fingerprint + fingerprint(lastConsonantExceptions);
+    fingerprint = 31 * fingerprint + fingerprint(averageStemSizeExceptions);
+
+    return fingerprint;
+  }
+
+  /**
+   * Computes a fingerprint of a word set that does not depend on the order
+   * of its words.
+   *
+   * @param words the word set
+   * @return the fingerprint
+   */
+  public static long fingerprint(final CharArraySet words) {
+    long fingerprint = words.size();
+
+    for(Object word : words) {
+      long hash = 0;
+
+      for(char c : (char[]) word) {
+        hash = 31 * hash + c;
+      }
+
+      // The finalizer of MurmurHash3, so that sums of hashes do not collide
+      hash ^= hash >>> 33;
+      hash *= 0xff51afd7ed558ccdL;
+      hash ^= hash >>> 33;
+      hash *= 0xc4ceb9fe1a85ec53L;
+      hash ^= hash >>> 33;
+
+      fingerprint += hash;
+    }
+
+    return fingerprint;
   }
 
   /**
    * Finds the stem of a given word.
    * In case it remained unstemmed it attempts to correct some mistypes such
-   * as 'u' instead of 'ü' and 'i' instead of 'ı'.
+   * as 'u' instead of 'ü' and 'i' instead of 'ı', unless the stemmer does not
+   * correct mistypes.
    *
    * @param s an array with the characters of the word
    * @param len the length of the word
-   * @param d the call stack depth
+   * @param d the call stack depth, mistypes are corrected only when it is 0
    * @return the stemmed word
    */
   public String stem(char s[], int len, int d) {
+    char[] word = Arrays.copyOf(s, len);
+    Context context = CONTEXTS.get();
+
+    startWord(context);
+    int stemLength = stem(context, word, len, correctMistypes && d < 1);
+
+    if(listener != null)
+      listener.stemmed(word, stemLength);
+
+    return new String(word, 0, stemLength);
+  }
 
-    String originalWord = new String(s, 0, len);
+  /**
+   * Finds the stem of a given word and writes it over the word.
+   * In case it remained unstemmed it attempts to correct some mistypes such
+   * as 'u' instead of 'ü' and 'i' instead of 'ı', unless the stemmer does not
+   * correct mistypes. A corrected word that remains unstemmed is written
+   * over the word.
+   *
+   * The stem is a prefix of the word, apart from its last letter, so it
+   * always fits in the given buffer. It uses a context of the calling thread.
+   *
+   * @param buffer an array with the characters of the word
+   * @param len the length of the word
+   * @return the length of the stem
+   */
+  public int stem(final char[] buffer, final int len) {
+    return stem(CONTEXTS.get(), buffer, len);
+  }
 
-    if(!proceedToStem(originalWord)) {
-      return originalWord;
+  /**
+   * Finds the stem of a given word and writes it over the word, using the
+   * given context for its scratch space.
+   *
+   * Nothing is allocated once the buffers of the context have grown to fit
+   * the longest word seen.
+   *
+   * @param context the context, which is not used by another thread
+   * @param buffer an array with the characters of the word
+   * @param len the length of the word
+   * @return the length of the stem
+   */
+  public int stem(final Context context, final char[] buffer, final int len) {
+    startWord(context);
+    int stemLength = stem(context, buffer, len, correctMistypes);
+
+    if(listener != null)
+      listener.stemmed(buffer, stemLength);
+
+    return stemLength;
+  }
+
+  /**
+   * Stems a word and explains what the stemmer did with it: the transitions
+   * that each state machine tried and pruned, the candidate stems, whether
+   * the mistype correction ran and the time it took.
+   *
+   * The word is stemmed twice, once for the time and once with the
+   * explanation as the listener, so it is meant for analysis only.
+   *
+   * @param word the word
+   * @return the explanation
+   */
+  public StemExplanation explain(final String word) {
+    Context context = CONTEXTS.get();
+    char[] buffer = word.toCharArray();
+    long start = System.nanoTime();
+
+    startWord(context);
+    stem(context, buffer, buffer.length, correctMistypes);
+
+    StemExplanation explanation = new StemExplanation(word, System.nanoTime() - start);
+    TurkishStemmer explaining = new TurkishStemmer(protectedWords,
+        vowelHarmonyExceptions, lastConsonantExceptions,
+        averageStemSizeExceptions, explanation, maxTokenLength, maxTransitions,
+        correctMistypes, deasciifier);
+
+    buffer = word.toCharArray();
+    explaining.stem(context, buffer, buffer.length);
+
+    return explanation;
+  }
+
+  /**
+   * Gives the context the transitions of a new word.
+   *
+   * @param context the context of the word
+   */
+  private void startWord(final Context context) {
+    context.transitionsLeft = maxTransitions > 0 ? maxTransitions : Integer.MAX_VALUE;
+    context.truncated = false;
+  }
+
+  private int stem(final Context context, final char[] buffer, final int len,
+                   final boolean correctMistypes) {
+    int prefixes = deasciifier == null ? 0 : asciiPrefixes(context, buffer, len);
+
+    context.deasciified = false;
+
+    if(prefixes == 0)
+      return stripSuffixes(context, buffer, len, correctMistypes);
+
+    // Keep the word as it was typed, since its stem is written over it
+    System.arraycopy(buffer, 0, context.ascii, 0, len);
+
+    int stemLength = stripSuffixes(context, buffer, len, correctMistypes);
+
+    if(context.skipReason != null || deasciifier.known(buffer, stemLength))
+      return stemLength;
+
+    return deasciify(context, buffer, len, stemLength, prefixes, correctMistypes);
+  }
+
+  /**
+   * Finds the prefixes of a word that are the ASCII spelling of a known stem.
+   *
+   * @param context the context of the word
+   * @param word an array with the characters of the word
+   * @param len the length of the word
+   * @return the number of prefixes, which is 0 for most words
+   */
+  private int asciiPrefixes(final Context context, final char[] word,
+                            final int len) {
+    if(context.prefixLengths.length < len) {
+      context.prefixLengths = new int[ArrayUtil.oversize(len, Integer.BYTES)];
+      context.ascii = new char[context.prefixLengths.length];
+      context.variant = new char[context.prefixLengths.length];
     }
 
-    Set<String> stems;
-    Set<String> wordsToStem;
-    stems = new HashSet<String>();
+    return deasciifier.prefixes(word, len, context.prefixLengths);
+  }
 
-    // Process the word with the nominal verb suffix state machine.
-    nominalVerbSuffixStripper(originalWord, stems);
+  /**
+   * Stems the variants of a word typed in ASCII with the Turkish letters of
+   * the known stems it starts with, the longest stems first, and writes the
+   * first stem of a variant that is known over the word.
+   *
+   * @param context the context of the word, which holds the word as typed
+   * and its prefixes
+   * @param buffer the array the stem of the word was written to
+   * @param len the length of the word
+   * @param stemLength the length of the stem of the word as typed
+   * @param prefixes the number of prefixes
+   * @param correctMistypes whether to correct the mistypes of the variants
+   * @return the length of the stem
+   */
+  private int deasciify(final Context context, final char[] buffer,
+                        final int len, final int stemLength,
+                        final int prefixes, final boolean correctMistypes) {
+    int variants = 0;
+
+    for(int i = prefixes - 1; i >= 0; i--) {
+      for(char[] spelling : deasciifier.spellings(context.ascii, context.prefixLengths[i])) {
+        if(variants++ == deasciifier.maxVariants() || context.truncated) {
+          context.skipReason = null;
+          return stemLength;
+        }
 
-    wordsToStem = new HashSet<String>(stems);
-    wordsToStem.add(originalWord);
+        Deasciifier.variant(context.ascii, len, spelling, context.variant);
+        context.deasciified = true;
 
-    for(String word : wordsToStem) {
-      // Process each possible stem with the noun suffix state machine.
-      nounSuffixStripper(word, stems);
-    }
-
-    wordsToStem = new HashSet<String>(stems);
-    wordsToStem.add(originalWord);
-
-    if (wordsToStem.contains(new String(s, 0, len)) && wordsToStem.size() < 2
-            && d < 1) {
-      // If none of the stemming rules matches
-        char lastLetter = s[len - 1];
-        if (lastLetter == 'u' || lastLetter == 'ü' || lastLetter == 'i' ||
-                lastLetter == 'ı') {
-          // if it's a u replace it with ü and vice versa
-          if (lastLetter == 'u') {
-            s[len - 1] = 'ü';
-          } else if (lastLetter == 'ü') {
-            s[len - 1] = 'u';
-            // if it's a i replace it with ı and vice versa
-          } else if (lastLetter == 'i') {
-            s[len - 1] = 'ı';
-          } else if (lastLetter == 'ı') {
-            s[len - 1] = 'i';
-          }
-          // and try stemming again - hopefully it will find a match this time
-          return stem(s, len, ++d);
+        if(listener != null)
+          listener.deasciified(context.variant, len);
+
+        int variantStemLength = stripSuffixes(context, context.variant, len,
+            correctMistypes);
+
+        if(context.skipReason == null &&
+            deasciifier.known(context.variant, variantStemLength)) {
+          System.arraycopy(context.variant, 0, buffer, 0, variantStemLength);
+          return variantStemLength;
         }
+      }
     }
 
-    for(String word : wordsToStem) {
+    context.skipReason = null;
+    return stemLength;
+  }
+
+  private int stripSuffixes(final Context context, final char[] buffer,
+                            final int len, final boolean correctMistypes) {
+
+    if(listener != null)
+      listener.started(buffer, len);
+
+    context.skipReason = skipReason(buffer, len);
+
+    if(context.skipReason != null) {
+      if(listener != null)
+        listener.skipped(buffer, len, context.skipReason);
+
+      return len;
+    }
+
+    context.profile.reset(buffer, len);
+    clearStems(context, len);
+
+    char[] word = buffer;
+    stripNominalSuffixes(context, word, len);
+
+    if(correctMistypes && context.stemCount == 0 && !context.truncated) {
+      // If none of the stemming rules matches, try the suffixes again on the
+      // word with its last letter corrected. Only the suffixes that end at the
+      // last letter can match differently, as the prefixes are the same and
+      // the vowels of the word stay in place.
+      word = correctMistype(context, buffer, len);
+
+      if(word != buffer) {
+        if(listener != null)
+          listener.mistypeCorrected(word, len);
+
+        stripNominalSuffixes(context, word, len);
+      }
+    }
+
+    prepareWordsToStem(context, len);
+
+    for(int wordLength = 0; wordLength <= len; wordLength++) {
       // Process each possible stem with the derivational suffix state machine.
-      derivationalSuffixStripper(word, stems);
+      if(context.wordLengthsToStem[wordLength])
+        genericSuffixStripper(context, StateMachine.DERIVATIONAL, word, wordLength);
+    }
+
+    // The stems are shorter than the word, so they do not hold its last letter
+    int stemLength = postProcess(context, buffer, len);
+
+    if(word != buffer && context.bestStem == -1)
+      buffer[len - 1] = word[len - 1];
+
+    return stemLength;
+  }
+
+  /**
+   * Processes a word with the nominal verb suffix state machine, and the
+   * word and its stems with the noun suffix state machine.
+   *
+   * @param context the context of the word
+   * @param word an array with the characters of the word
+   * @param len the length of the word
+   */
+  private void stripNominalSuffixes(final Context context, final char[] word,
+                                    final int len) {
+    // Process the word with the nominal verb suffix state machine.
+    genericSuffixStripper(context, StateMachine.NOMINAL_VERB, word, len);
+
+    prepareWordsToStem(context, len);
+
+    for(int wordLength = 0; wordLength <= len; wordLength++) {
+      // Process each possible stem with the noun suffix state machine.
+      if(context.wordLengthsToStem[wordLength])
+        genericSuffixStripper(context, StateMachine.NOUN, word, wordLength);
+    }
+  }
+
+  /**
+   * Copies a word to the context with its last letter swapped between u and
+   * ü or i and ı, which are often typed for one another. The profile of the
+   * word is kept, since the swapped letters are vowels.
+   *
+   * @param context the context of the word
+   * @param word an array with the characters of the word
+   * @param len the length of the word
+   * @return the corrected copy, or the word itself if its last letter has no
+   * counterpart
+   */
+  private static char[] correctMistype(final Context context, final char[] word,
+                                       final int len) {
+    char lastLetter;
+
+    switch(word[len - 1]) {
+      case 'u':
+        lastLetter = 'ü';
+        break;
+      case 'ü':
+        lastLetter = 'u';
+        break;
+      case 'i':
+        lastLetter = 'ı';
+        break;
+      case 'ı':
+        lastLetter = 'i';
+        break;
+      default:
+        return word;
+    }
+
+    if(context.corrected.length < len)
+      context.corrected = new char[ArrayUtil.oversize(len, Character.BYTES)];
+
+    System.arraycopy(word, 0, context.corrected, 0, len - 1);
+    context.corrected[len - 1] = lastLetter;
+    context.profile.rebase(context.corrected);
+
+    return context.corrected;
+  }
+
+  /**
+   * Copies the candidate stems found so far, along with the word itself, to
+   * the set of words that the next state machine will process.
+   *
+   * @param context the context of the word
+   * @param len the length of the word
+   */
+  private static void prepareWordsToStem(final Context context, final int len) {
+    System.arraycopy(context.stemLengths, 0, context.wordLengthsToStem, 0, len + 1);
+    context.wordLengthsToStem[len] = true;
+  }
+
+  /**
+   * Clears the candidate stems, making room for the stems of a word.
+   *
+   * @param context the context of the word
+   * @param len the length of the word
+   */
+  private static void clearStems(final Context context, final int len) {
+    if(context.stemLengths.length <= len) {
+      context.stemLengths = new boolean[ArrayUtil.oversize(len + 1, 1)];
+      context.wordLengthsToStem = new boolean[context.stemLengths.length];
+      context.stemOrder = new int[context.stemLengths.length];
+      context.stemExceptions = new boolean[context.stemLengths.length];
+    } else {
+      Arrays.fill(context.stemLengths, 0, len + 1, false);
     }
 
-    return postProcess(stems, originalWord);
+    context.stemCount = 0;
+    context.bestStem = -1;
+    context.bestStemIsException = false;
+  }
+
+  /**
+   * Flags a candidate stem and keeps it if it is better than the best one so
+   * far. Candidates are ranked as by {@link #postProcess(Set, String)}.
+   *
+   * @param context the context of the word
+   * @param word an array with the characters of the word
+   * @param stemLength the length of the candidate stem
+   */
+  private void addStem(final Context context, final char[] word,
+                       final int stemLength) {
+    if(context.stemLengths[stemLength])
+      return;
+
+    context.stemLengths[stemLength] = true;
+    context.stemOrder[context.stemCount++] = stemLength;
+
+    // The word itself and the stems without vowels are not final stems
+    if(stemLength >= context.profile.length() ||
+        context.profile.syllables(stemLength) == 0)
+      return;
+
+    char lastLetter = word[stemLength - 1];
+    lastConsonant(word, stemLength);
+    boolean exception = averageStemSizeExceptions.contains(word, 0, stemLength);
+    word[stemLength - 1] = lastLetter;
+    context.stemExceptions[stemLength] = exception;
+
+    if(context.bestStem == -1 ||
+        better(stemLength, exception, context.bestStem, context.bestStemIsException)) {
+      context.bestStem = stemLength;
+      context.bestStemIsException = exception;
+    }
   }
 
   /**
@@ -228,14 +816,7 @@ public class TurkishStemmer {
    */
   public final void nominalVerbSuffixStripper(final String word,
                                               final Set<String> stems) {
-    NominalVerbState initialState;
-
-    if(nominalVerbStates.isEmpty() || nominalVerbSuffixes.isEmpty()) {
-      return;
-    }
-
-    initialState = NominalVerbState.getInitialState();
-    genericSuffixStripper(initialState, word, stems, "NominalVerb");
+    genericSuffixStripper(StateMachine.NOMINAL_VERB, word, stems);
   }
 
   /**
@@ -248,14 +829,7 @@ public class TurkishStemmer {
    */
   public final void nounSuffixStripper(final String word,
                                        final Set<String> stems) {
-    NounState initialState;
-
-    if(nounStates.isEmpty() || nounSuffixes.isEmpty()) {
-      return;
-    }
-
-    initialState = NounState.getInitialState();
-    genericSuffixStripper(initialState, word, stems, "Noun");
+    genericSuffixStripper(StateMachine.NOUN, word, stems);
   }
 
   /**
@@ -269,76 +843,109 @@ public class TurkishStemmer {
    */
   public final void derivationalSuffixStripper(final String word,
                                                final Set<String> stems) {
-    DerivationalState initialState;
-
-    if(derivationalStates.isEmpty() || derivationalSuffixes.isEmpty()) {
-      return;
-    }
-
-    initialState = DerivationalState.getInitialState();
-    genericSuffixStripper(initialState, word, stems, "Derivational");
+    genericSuffixStripper(StateMachine.DERIVATIONAL, word, stems);
   }
 
   /**
-   * Given the initial state of a state machine, it adds possible stems to a
-   * set of stems.
+   * Given a state machine, it adds possible stems to a set of stems.
    *
-   * @param initialState an initial state
+   * @param machine the state machine
    * @param word the word to stem
    * @param stems the set to populate
-   * @param machine a string representing the name of the state machine. It is
-   * used for debugging reasons only.
    */
-  private final void genericSuffixStripper(final State initialState,
+  private final void genericSuffixStripper(final StateMachine machine,
                                            final String word,
-                                           final Set<String> stems,
-                                           final String machine) {
-    String stem, wordToStem;
-    Transition transition;
-    List<Transition> transitions;
+                                           final Set<String> stems) {
+    char[] buffer = word.toCharArray();
+    Context context = CONTEXTS.get();
 
-    wordToStem = word;
-    transitions = new ArrayList<Transition>();
+    startWord(context);
+    context.profile.reset(buffer, buffer.length);
+    clearStems(context, buffer.length);
+    genericSuffixStripper(context, machine, buffer, buffer.length);
 
-    initialState.addTransitions(wordToStem, transitions, false);
-    logger.debug("[{}SuffixStripper] Initial Transitions: [{}]", machine, transitions);
+    for(int i = 0; i < context.stemCount; i++) {
+      stems.add(word.substring(0, context.stemOrder[i]));
+    }
+  }
 
+  /**
+   * Given a state machine, it flags the lengths of the possible stems of a
+   * word. It does nothing once the word has run out of transitions.
+   *
+   * @param context the context of the word
+   * @param machine the state machine
+   * @param word an array with the characters of the word
+   * @param len the length of the word
+   */
+  private final void genericSuffixStripper(final Context context,
+                                           final StateMachine machine,
+                                           final char[] word,
+                                           final int len) {
+    final TransitionQueue transitions = context.transitions;
+    int transition, wordLength, stemLength;
+    int tried = 0;
+    byte edge, nextState;
+    Suffix suffix;
+
+    if(context.truncated)
+      return;
+
+    transitions.clear(machine.edgeCount());
+    machine.addTransitions(machine.initialState(), word, len, transitions);
+
+    if(listener != null) {
+      for(int i = 0; i < transitions.added(); i++) {
+        listener.initialTransition(machine, word, len,
+            machine.state(machine.startState(transitions.edge(i))),
+            machine.suffix(transitions.suffix(i)),
+            machine.state(machine.nextState(transitions.edge(i))));
+      }
+    }
 
     while(!transitions.isEmpty()) {
-      transition = transitions.remove(0);
-      logger.debug("[{}SuffixStripper] Processing transition: [{}]", machine, transition);
+      if(context.transitionsLeft-- == 0) {
+        context.truncated = true;
 
-      wordToStem = transition.word;
+        if(listener != null)
+          listener.truncated(word, len);
 
-      stem = stemWord(wordToStem, transition.suffix);
+        break;
+      }
 
-      if(!stem.equals(wordToStem)) {
-        logger.debug("[{}SuffixStripper] Word stemmed: [{}] -> [{}]", machine, wordToStem, stem);
-        if(transition.nextState.finalState()) {
-          for(Transition transitionToRemove : transitions.toArray(new Transition[transitions.size()])) {
-            if((transitionToRemove.startState == transition.startState &&
-                transitionToRemove.nextState == transition.nextState) ||
-                transitionToRemove.marked) {
-              transitions.remove(transitionToRemove);
-            }
-          }
+      transition = transitions.poll();
+      tried++;
+      wordLength = transitions.length(transition);
+      edge = transitions.edge(transition);
+      suffix = machine.suffix(transitions.suffix(transition));
 
-          logger.debug("[{}SuffixStripper] Adding stem: [{}]", machine, stem);
+      stemLength = stemMatchedWord(context.profile, word, wordLength, suffix);
 
-          stems.add(stem);
-          transition.nextState.addTransitions(stem, transitions, false);
-        } else {
-          logger.debug("[{}SuffixStripper] Marking non-final transitions", machine);
+      if(stemLength != wordLength) {
+        nextState = machine.nextState(edge);
+
+        if(listener != null) {
+          listener.transition(machine, word, wordLength, stemLength,
+              machine.state(machine.startState(edge)), suffix,
+              machine.state(nextState));
+        }
 
-          for(Transition similarTransition : transition
-              .similarTransitions(transitions)) {
-            similarTransition.marked = true;
-          }
+        if(machine.finalState(nextState)) {
+          transitions.removeSimilarOrMarked(transition);
+          addStem(context, word, stemLength);
 
-          transition.nextState.addTransitions(stem, transitions, true);
+          if(listener != null)
+            listener.candidate(machine, word, stemLength);
+        } else {
+          transitions.markSimilar(transition);
         }
+
+        machine.addTransitions(nextState, word, stemLength, transitions);
       }
     }
+
+    if(listener != null)
+      listener.finished(machine, word, len, transitions.added(), tried);
   }
 
   /**
@@ -369,6 +976,64 @@ public class TurkishStemmer {
     return stemmedWord;
   }
 
+  /**
+   * Removes a certain suffix from the first characters of a buffer.
+   *
+   * @param word an array with the characters of the word
+   * @param len the length of the word
+   * @param suffix the suffix to be removed from the word
+   * @return the length of the stemmed word
+   */
+  public final int stemWord(final char[] word, final int len,
+                            final Suffix suffix) {
+
+    if(suffix.match(word, len)) {
+      WordProfile profile = CONTEXTS.get().profile;
+
+      profile.reset(word, len);
+      return stemMatchedWord(profile, word, len, suffix);
+    }
+
+    return len;
+  }
+
+  /**
+   * Removes a certain suffix, which is known to match, from the first
+   * characters of a buffer whose profile is computed.
+   *
+   * @param profile the profile of the buffer
+   * @param word an array with the characters of the word
+   * @param len the length of the word
+   * @param suffix the suffix to be removed from the word
+   * @return the length of the stemmed word
+   */
+  private int stemMatchedWord(final WordProfile profile, final char[] word,
+                              final int len, final Suffix suffix) {
+
+    if(!this.protectedWords.contains(word, 0, len) &&
+        (suffix.checkHarmony() &&
+            (profile.vowelHarmony(len) ||
+             this.vowelHarmonyExceptions.contains(word, 0, len))) ||
+         !suffix.checkHarmony()) {
+      int stemLength = len - suffix.length();
+
+      char optionalLetter = suffix.optionalLetter(word, stemLength);
+
+      if(optionalLetter != '\0') {
+        if(validOptionalLetter(word, stemLength, optionalLetter)) {
+          // Remove the optional letter
+          return stemLength - 1;
+        } else {
+          return len;
+        }
+      }
+
+      return stemLength;
+    }
+
+    return len;
+  }
+
   /**
    * It performs a post stemming process and returns the final stem.
    *
@@ -377,44 +1042,142 @@ public class TurkishStemmer {
    * @return the final stem
    */
   public String postProcess(final Set<String> stems, final String originalWord) {
-    Set<String> finalStems;
-    finalStems = new HashSet<String>();
+    String finalStem = null;
+    boolean finalStemIsException = false;
 
     stems.remove(originalWord);
 
     for(String word : stems) {
-      if (countSyllables(word) > 0)
-        finalStems.add(lastConsonant(word));
+      if(countSyllables(word) == 0)
+        continue;
+
+      String stem = lastConsonant(word);
+      boolean exception = averageStemSizeExceptions.contains(stem);
+
+      if(finalStem == null || (exception && !finalStemIsException) ||
+          (exception == finalStemIsException &&
+           closerToAverage(stem.length(), finalStem.length()))) {
+        finalStem = stem;
+        finalStemIsException = exception;
+      }
     }
 
-    List<String> sortedStems;
-    sortedStems = new ArrayList<String>(finalStems);
+    return finalStem == null ? originalWord : finalStem;
+  }
 
-    Collections.sort(sortedStems, new Comparator<String>() {
-      @Override
-      public int compare(String s1, String s2) {
+  /**
+   * It performs a post stemming process over the best candidate stem, which
+   * is picked as the candidates are found, and writes it over the word.
+   *
+   * @param context the context of the word
+   * @param word an array with the characters of the word
+   * @param len the length of the word
+   * @return the length of the final stem
+   */
+  private int postProcess(final Context context, final char[] word,
+                          final int len) {
+    if(context.bestStem == -1) {
+      return len;
+    }
 
-        if(averageStemSizeExceptions.contains(s1)) {
-          return -1;
-        } else if(averageStemSizeExceptions.contains(s2)) {
-          return 1;
-        }
+    lastConsonant(word, context.bestStem);
 
-        int average_distance = Math.abs(s1.length() - AVERAGE_STEMMED_SIZE) - Math.abs(s2.length() - AVERAGE_STEMMED_SIZE);
-        if(average_distance == 0) {
-          return s1.length() - s2.length();
-        } else {
-          return average_distance;
-        }
+    return context.bestStem;
+  }
+
+  /**
+   * Checks whether a final candidate stem ranks before another one: the
+   * exceptions to the average stem size come first, then the stems closer to
+   * the average size.
+   */
+  private static boolean better(final int length, final boolean exception,
+                                final int other, final boolean otherException) {
+    return (exception && !otherException) ||
+        (exception == otherException && closerToAverage(length, other));
+  }
+
+  /**
+   * Scores a final candidate stem, from 1 for the stems that are exceptions
+   * to the average stem size or have that size down to 0 for the ones far
+   * from it.
+   *
+   * @param length the length of the stem
+   * @param exception whether the stem is an exception to the average stem
+   * size
+   * @return the score of the stem
+   */
+  public static float candidateScore(final int length, final boolean exception) {
+    return exception ? 1f : 1f / (1 + Math.abs(length - AVERAGE_STEMMED_SIZE));
+  }
+
+  /**
+   * Gets the lengths of the best final candidate stems of the latest word
+   * stemmed with a context, ranked as the final stem is picked, so the first
+   * one is the stem of the word. The candidates are prefixes of the word
+   * with the last consonant rule applied, and were all found by the same run
+   * of the state machines.
+   *
+   * A word whose variants with Turkish letters were stemmed has no
+   * candidates, since the ones found are prefixes of a variant rather than
+   * of the word.
+   *
+   * @param context the context the word was stemmed with
+   * @param lengths the array to write the lengths to, whose length is the
+   * maximum number of candidates
+   * @param minScore the minimum {@link #candidateScore(int, boolean) score}
+   * of the candidates other than the stem of the word
+   * @return the number of candidates, which is 0 if the word got no stem
+   * or its variants were stemmed
+   */
+  public int candidates(final Context context, final int[] lengths,
+                        final float minScore) {
+    if(context.skipReason != null || context.bestStem == -1 ||
+        context.deasciified || lengths.length == 0)
+      return 0;
+
+    int count = 0;
+
+    for(int i = 0; i < context.stemCount; i++) {
+      int length = context.stemOrder[i];
+
+      if(length >= context.profile.length() || context.profile.syllables(length) == 0)
+        continue;
+
+      boolean exception = context.stemExceptions[length];
+
+      if(length != context.bestStem && candidateScore(length, exception) < minScore)
+        continue;
+
+      int j = count;
+
+      if(count < lengths.length) {
+        count++;
+      } else if(better(length, exception, lengths[count - 1],
+                       context.stemExceptions[lengths[count - 1]])) {
+        j = count - 1;
+      } else {
+        continue;
       }
-    });
 
-    logger.debug("Sorted candidate stems: " + sortedStems);
+      while(j > 0 && better(length, exception, lengths[j - 1],
+                            context.stemExceptions[lengths[j - 1]])) {
+        lengths[j] = lengths[j - 1];
+        j--;
+      }
 
-    if(sortedStems.isEmpty()) {
-      return originalWord;
+      lengths[j] = length;
+    }
+
+    return count;
+  }
+
+  private static boolean closerToAverage(final int length, final int other) {
+    int averageDistance = Math.abs(length - AVERAGE_STEMMED_SIZE) - Math.abs(other - AVERAGE_STEMMED_SIZE);
+
+    if(averageDistance == 0) {
+      return length < other;
     } else {
-      return sortedStems.get(0);
+      return averageDistance < 0;
     }
   }
 
@@ -425,9 +1188,14 @@ public class TurkishStemmer {
    * @return        the vowels
    */
   public String vowels(String word) {
-    CharMatcher char_matcher = CharMatcher.anyOf(CONSONANTS);
+    StringBuilder vowels = new StringBuilder(word.length());
 
-    return char_matcher.removeFrom(word);
+    for(int i = 0; i < word.length(); i++) {
+      if(!CharClasses.is(word.charAt(i), CharClasses.CONSONANT))
+        vowels.append(word.charAt(i));
+    }
+
+    return vowels.toString();
   }
 
   /**
@@ -437,7 +1205,32 @@ public class TurkishStemmer {
    * @return        the number of syllables
    */
   public int countSyllables(String word) {
-    return vowels(word).length();
+    int syllables = 0;
+
+    for(int i = 0; i < word.length(); i++) {
+      if(!CharClasses.is(word.charAt(i), CharClasses.CONSONANT))
+        syllables++;
+    }
+
+    return syllables;
+  }
+
+  /**
+   * Gets the number of syllables of the first characters of a buffer.
+   *
+   * @param   word  an array with the characters of the word
+   * @param   len   the length of the word
+   * @return        the number of syllables
+   */
+  public int countSyllables(final char[] word, final int len) {
+    int syllables = 0;
+
+    for(int i = 0; i < len; i++) {
+      if(!CharClasses.is(word[i], CharClasses.CONSONANT))
+        syllables++;
+    }
+
+    return syllables;
   }
 
   /**
@@ -448,13 +1241,10 @@ public class TurkishStemmer {
    * @return            whether the two characters have frontness harmony or not.
    */
   public boolean hasFrontness(char vowel, char candidate) {
-    if ((StringUtils.containsAny(FRONT_VOWELS, vowel) &&
-         StringUtils.containsAny(FRONT_VOWELS, candidate)) ||
-        (StringUtils.containsAny(BACK_VOWELS, vowel) &&
-         StringUtils.containsAny(BACK_VOWELS, candidate)))
-      return true;
-
-    return false;
+    return (CharClasses.is(vowel, CharClasses.FRONT) &&
+            CharClasses.is(candidate, CharClasses.FRONT)) ||
+           (CharClasses.is(vowel, CharClasses.BACK) &&
+            CharClasses.is(candidate, CharClasses.BACK));
   }
 
   /**
@@ -465,13 +1255,10 @@ public class TurkishStemmer {
    * @return            whether the two characters have roundness harmony or not.
    */
   public boolean hasRoundness(char vowel, char candidate) {
-    if ((StringUtils.containsAny(UNROUNDED_VOWELS, vowel) &&
-        StringUtils.containsAny(UNROUNDED_VOWELS, candidate)) ||
-       (StringUtils.containsAny(ROUNDED_VOWELS, vowel) &&
-        StringUtils.containsAny(FOLLOWING_ROUNDED_VOWELS, candidate)))
-      return true;
-
-    return false;
+    return (CharClasses.is(vowel, CharClasses.UNROUNDED) &&
+            CharClasses.is(candidate, CharClasses.UNROUNDED)) ||
+           (CharClasses.is(vowel, CharClasses.ROUNDED) &&
+            CharClasses.is(candidate, CharClasses.FOLLOWING_ROUNDED));
   }
 
   /**
@@ -482,7 +1269,7 @@ public class TurkishStemmer {
    * @return            whether the two characters have vowel harmony or not.
    */
   public boolean vowelHarmony(char vowel, char candidate) {
-    return hasRoundness(vowel, candidate) && hasFrontness(vowel, candidate);
+    return CharClasses.harmony(vowel, candidate);
   }
 
   /**
@@ -492,24 +1279,52 @@ public class TurkishStemmer {
    * @return        whether the word has vowel harmony or not.
    */
   public boolean hasVowelHarmony(String word) {
-    String vowelsOfWord = vowels(word);
-    int wordLength  = vowelsOfWord.length();
+    int i = word.length() - 1;
+    char candidate;
 
-    char vowel, candidate;
+    while(i >= 0 && CharClasses.is(word.charAt(i), CharClasses.CONSONANT))
+      i--;
 
-    try {
-      vowel = vowelsOfWord.charAt(wordLength - 2);
-    } catch(StringIndexOutOfBoundsException e) {
+    if(i < 0)
       return true;
-    }
 
-    try {
-      candidate = vowelsOfWord.charAt(wordLength - 1);
-    } catch(StringIndexOutOfBoundsException e) {
+    candidate = word.charAt(i--);
+
+    while(i >= 0 && CharClasses.is(word.charAt(i), CharClasses.CONSONANT))
+      i--;
+
+    if(i < 0)
+      return true;
+
+    return vowelHarmony(word.charAt(i), candidate);
+  }
+
+  /**
+   * Checks the vowel harmony of the first characters of a buffer.
+   *
+   * @param   word  an array with the characters of the word
+   * @param   len   the length of the word
+   * @return        whether the word has vowel harmony or not.
+   */
+  public boolean hasVowelHarmony(final char[] word, final int len) {
+    int i = len - 1;
+    char candidate;
+
+    while(i >= 0 && CharClasses.is(word[i], CharClasses.CONSONANT))
+      i--;
+
+    if(i < 0)
       return true;
-    }
 
-    return vowelHarmony(vowel, candidate);
+    candidate = word[i--];
+
+    while(i >= 0 && CharClasses.is(word[i], CharClasses.CONSONANT))
+      i--;
+
+    if(i < 0)
+      return true;
+
+    return vowelHarmony(word[i], candidate);
   }
 
   /**
@@ -540,7 +1355,33 @@ public class TurkishStemmer {
         break;
     }
 
-    return StringUtils.chop(word) + lastChar;
+    return word.substring(0, wordLength - 1) + lastChar;
+  }
+
+  /**
+   * Applies the last consonant rule to the first characters of a buffer.
+   *
+   * @param   word  an array with the characters of the word
+   * @param   len   the length of the word
+   */
+  public void lastConsonant(final char[] word, final int len) {
+    if(lastConsonantExceptions.contains(word, 0, len))
+      return;
+
+    switch(word[len - 1]) {
+      case 'b':
+        word[len - 1] = 'p';
+        break;
+      case 'c':
+        word[len - 1] = 'ç';
+        break;
+      case 'd':
+        word[len - 1] = 't';
+        break;
+      case 'ğ':
+        word[len - 1] = 'k';
+        break;
+    }
   }
 
   /**
@@ -552,19 +1393,38 @@ public class TurkishStemmer {
    * @return            whether is valid or not
    */
   public boolean validOptionalLetter(String word, char candidate) {
-    int wordLength = word.length();
-    char previousChar;
-
-    try {
-      previousChar = word.charAt(wordLength - 2);
-    } catch(StringIndexOutOfBoundsException e) {
+    if(word.length() < 2)
       return false;
+
+    char previousChar = word.charAt(word.length() - 2);
+
+    if(CharClasses.is(candidate, CharClasses.VOWEL)) {
+      return CharClasses.is(previousChar, CharClasses.CONSONANT);
+    } else {
+      return CharClasses.is(previousChar, CharClasses.VOWEL);
     }
+  }
 
-    if(StringUtils.containsAny(VOWELS, candidate)) {
-      return StringUtils.containsAny(CONSONANTS, previousChar);
+  /**
+   * Checks whether an optional letter of the first characters of a buffer is
+   * valid or not.
+   *
+   * @param   word      an array with the characters of the word
+   * @param   len       the length of the word
+   * @param   candidate the last character candidate
+   * @return            whether is valid or not
+   */
+  public boolean validOptionalLetter(final char[] word, final int len,
+                                     final char candidate) {
+    if(len < 2)
+      return false;
+
+    char previousChar = word[len - 2];
+
+    if(CharClasses.is(candidate, CharClasses.VOWEL)) {
+      return CharClasses.is(previousChar, CharClasses.CONSONANT);
     } else {
-      return StringUtils.containsAny(VOWELS, previousChar);
+      return CharClasses.is(previousChar, CharClasses.VOWEL);
     }
   }
 
@@ -575,7 +1435,29 @@ public class TurkishStemmer {
    * @return       whether contains only Turkish letters or not.
    */
   public boolean turkish(String word) {
-    return StringUtils.containsOnly(word, ALPHABET);
+    for(int i = 0; i < word.length(); i++) {
+      if(!CharClasses.is(word.charAt(i), CharClasses.ALPHABET))
+        return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Checks whether the first characters of a buffer are written in Turkish
+   * alphabet or not.
+   *
+   * @param  word  an array with the characters of the word
+   * @param  len   the length of the word
+   * @return       whether contains only Turkish letters or not.
+   */
+  public boolean turkish(final char[] word, final int len) {
+    for(int i = 0; i < len; i++) {
+      if(!CharClasses.is(word[i], CharClasses.ALPHABET))
+        return false;
+    }
+
+    return true;
   }
 
   /**
@@ -585,27 +1467,62 @@ public class TurkishStemmer {
    * @return     whether to proceed or not
    */
   public boolean proceedToStem(String word) {
+    SkipReason reason = null;
+
     if(word.isEmpty()) {
-      logger.debug("Skipping empty word");
-      return false;
+      reason = SkipReason.EMPTY;
+    } else if(!turkish(word)) {
+      reason = SkipReason.NON_TURKISH;
+    } else if(this.protectedWords.contains(word)) {
+      reason = SkipReason.PROTECTED;
+    } else if(countSyllables(word) < 2) {
+      reason = SkipReason.SMALL;
     }
 
-    if(!turkish(word)) {
-      logger.debug("Skipping non-turkish word: [{}]", word);
-      return false;
-    }
+    if(reason != null && listener != null)
+      listener.skipped(word.toCharArray(), word.length(), reason);
 
-    if(this.protectedWords.contains(word)) {
-      logger.debug("Skipping protected word: [{}]", word);
-      return false;
-    }
+    return reason == null;
+  }
 
-    if(countSyllables(word) < 2) {
-      logger.debug("Skipping small word: [{}]", word);
-      return false;
+  /**
+   * Checks whether a stem process should proceed or not for the first
+   * characters of a buffer.
+   *
+   * @param word an array with the characters of the word
+   * @param len  the length of the word
+   * @return     whether to proceed or not
+   */
+  public boolean proceedToStem(final char[] word, final int len) {
+    SkipReason reason = skipReason(word, len);
+
+    if(reason != null && listener != null)
+      listener.skipped(word, len, reason);
+
+    return reason == null;
+  }
+
+  /**
+   * Finds why the first characters of a buffer should not be stemmed.
+   *
+   * @param word an array with the characters of the word
+   * @param len  the length of the word
+   * @return     the reason, or null if the word should be stemmed
+   */
+  public SkipReason skipReason(final char[] word, final int len) {
+    if(len == 0) {
+      return SkipReason.EMPTY;
+    } else if(maxTokenLength > 0 && len > maxTokenLength) {
+      return SkipReason.TOO_LONG;
+    } else if(!turkish(word, len)) {
+      return SkipReason.NON_TURKISH;
+    } else if(this.protectedWords.contains(word, 0, len)) {
+      return SkipReason.PROTECTED;
+    } else if(countSyllables(word, len) < 2) {
+      return SkipReason.SMALL;
     }
 
-    return true;
+    return null;
   }
 
   /**
@@ -627,6 +1544,27 @@ public class TurkishStemmer {
     return false;
   }
 
+  /**
+   * Checks if the first characters of a buffer should be stemmed or not.
+   *
+   * @param word an array with the characters of the word
+   * @param len the length of the word
+   * @param suffix the suffix that will be removed from the word
+   * @return whether the word should be stemmed or not
+   */
+  public boolean shouldBeMarked(final char[] word, final int len,
+                                final Suffix suffix) {
+    if(!this.protectedWords.contains(word, 0, len) &&
+        (suffix.checkHarmony() &&
+            (hasVowelHarmony(word, len) ||
+             this.vowelHarmonyExceptions.contains(word, 0, len))) ||
+         !suffix.checkHarmony()) {
+      return true;
+    }
+
+    return false;
+  }
+
   /**
    * Gets the default set of protected words.
    *
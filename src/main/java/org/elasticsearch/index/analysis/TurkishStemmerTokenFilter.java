@@ -1,39 +1,320 @@
 package org.elasticsearch.index.analysis;
 
 import java.io.IOException;
+import java.util.function.Supplier;
 
 import org.apache.lucene.analysis.TokenFilter;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.KeywordAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
 import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.index.analysis.stemmer.turkish.cache.NodeStemCache;
+import org.elasticsearch.index.analysis.stemmer.turkish.cache.StemCache;
+import org.elasticsearch.index.analysis.stemmer.turkish.lexicon.StemLexicon;
+import org.elasticsearch.index.analysis.stemmer.turkish.normalization.TurkishNormalizer;
+import org.elasticsearch.index.analysis.stemmer.turkish.stats.StemmerStats;
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.SkipReason;
 
 public class TurkishStemmerTokenFilter extends TokenFilter {
-  private final TurkishStemmer stemmer;
+
+  /**
+   * The type of the original terms that are emitted along with their stems.
+   */
+  public static final String ORIGINAL_TYPE = "<TURKISH_ORIGINAL>";
+
+  /**
+   * Everything a filter stems with that can be replaced while it runs, which
+   * is published as a whole.
+   */
+  public static final class Generation {
+    private final TurkishStemmer stemmer;
+    private final long fingerprint;
+    private final StemLexicon lexicon;
+
+    /**
+     * Creates a generation.
+     *
+     * @param stemmer the stemmer
+     * @param fingerprint the fingerprint of the configuration of the stemmer
+     * and the lexicon, which keys the stems in the node cache
+     * @param lexicon the lexicon to look up stems in first, or null
+     */
+    public Generation(TurkishStemmer stemmer, long fingerprint, StemLexicon lexicon) {
+      this.stemmer = stemmer;
+      this.fingerprint = fingerprint;
+      this.lexicon = lexicon;
+    }
+
+    public TurkishStemmer stemmer() {
+      return stemmer;
+    }
+
+    public long fingerprint() {
+      return fingerprint;
+    }
+
+    public StemLexicon lexicon() {
+      return lexicon;
+    }
+  }
+
+  private TurkishStemmer stemmer;
+  /**
+   * The scratch space of the stemmer, which belongs to this stream alone.
+   */
+  private final TurkishStemmer.Context context = new TurkishStemmer.Context();
   private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
   private final KeywordAttribute keywordAttr = addAttribute(KeywordAttribute.class);
-
+  private final PositionIncrementAttribute posIncAttr =
+      addAttribute(PositionIncrementAttribute.class);
+  private final TypeAttribute typeAttr = addAttribute(TypeAttribute.class);
+  /**
+   * The stems of the latest terms, or null if caching is disabled. It is kept
+   * across resets, since the filter gets reused for many documents.
+   */
+  private final StemCache cache;
+  /**
+   * The access to the stem cache of the node, or null if there is none.
+   */
+  private NodeStemCache.View nodeCache;
+  /**
+   * The lookup of the precomputed stems, or null if there is no lexicon.
+   */
+  private StemLexicon.Lookup lexicon;
+  private final char[] term;
+  /**
+   * The source of the latest generation and the stem cache of the node, or
+   * null if the filter always stems with the same generation.
+   */
+  private final Supplier<Generation> generations;
+  private final NodeStemCache sharedCache;
+  private Generation generation;
+  /**
+   * The counts of the tokens of the stream, which are added to the stats of
+   * the filter when the stream ends.
+   */
+  private final StemmerStats.Recorder recorder;
+  /**
+   * The lengths of the candidate stems of the latest term, or null if only
+   * its stem is emitted, along with the minimum score of the other
+   * candidates.
+   */
+  private final int[] candidates;
+  private final float minCandidateScore;
+  /**
+   * Whether the original terms are emitted after their stems when they
+   * differ.
+   */
+  private final boolean preserveOriginal;
+  /**
+   * Whether terms are lowercased and stripped of their apostrophe before
+   * stemming.
+   */
+  private final boolean normalize;
+  /**
+   * The latest term as it was before stemming, or null if it is not needed,
+   * the number of its candidates and the next one to emit, whether the term
+   * itself is still to be emitted, and the state of its token.
+   */
+  private char[] original;
+  private int originalLength;
+  private int candidateCount;
+  private int nextCandidate;
+  private boolean originalPending;
+  private State stemState;
 
   public TurkishStemmerTokenFilter(TokenStream input,
                                    CharArraySet protectedWords,
                                    CharArraySet vowelHarmonyExceptions,
                                    CharArraySet lastConsonantExceptions,
                                    CharArraySet averageStemSizeExceptions) {
+    this(input, protectedWords, vowelHarmonyExceptions,
+         lastConsonantExceptions, averageStemSizeExceptions, 0);
+  }
+
+  public TurkishStemmerTokenFilter(TokenStream input,
+                                   CharArraySet protectedWords,
+                                   CharArraySet vowelHarmonyExceptions,
+                                   CharArraySet lastConsonantExceptions,
+                                   CharArraySet averageStemSizeExceptions,
+                                   int cacheSize) {
+    this(input, new TurkishStemmer(protectedWords,
+                                   vowelHarmonyExceptions,
+                                   lastConsonantExceptions,
+                                   averageStemSizeExceptions),
+         cacheSize, null, null);
+  }
+
+  /**
+   * Creates a filter.
+   *
+   * @param input the stream to filter
+   * @param stemmer the stemmer, which may be shared with other filters
+   * @param cacheSize the number of stems to cache, or 0
+   * @param nodeCache the view of the stem cache of the node, or null
+   * @param lexicon the lexicon to look up stems in first, or null
+   */
+  public TurkishStemmerTokenFilter(TokenStream input,
+                                   TurkishStemmer stemmer,
+                                   int cacheSize,
+                                   NodeStemCache.View nodeCache,
+                                   StemLexicon lexicon) {
     super(input);
-    this.stemmer = new TurkishStemmer(protectedWords,
-                                      vowelHarmonyExceptions,
-                                      lastConsonantExceptions,
-                                      averageStemSizeExceptions);
+    this.stemmer = stemmer;
+    this.cache = cacheSize > 0 ? new StemCache(cacheSize) : null;
+    this.nodeCache = nodeCache;
+    this.lexicon = lexicon == null ? null : lexicon.lookup();
+    this.term = cache != null || nodeCache != null ?
+        new char[StemCache.MAX_TERM_LENGTH] : null;
+    this.generations = null;
+    this.sharedCache = null;
+    this.recorder = new StemmerStats().recorder();
+    this.candidates = null;
+    this.minCandidateScore = 0;
+    this.preserveOriginal = false;
+    this.normalize = false;
+  }
+
+  /**
+   * Creates a filter that switches to the latest generation whenever it is
+   * reset, clearing the stems it cached with the previous one.
+   *
+   * @param input the stream to filter
+   * @param generations the source of the latest generation
+   * @param cacheSize the number of stems to cache, or 0
+   * @param nodeCache the stem cache of the node, or null
+   */
+  public TurkishStemmerTokenFilter(TokenStream input,
+                                   Supplier<Generation> generations,
+                                   int cacheSize,
+                                   NodeStemCache nodeCache) {
+    this(input, generations, cacheSize, nodeCache, new StemmerStats());
+  }
+
+  /**
+   * Creates a filter that switches to the latest generation whenever it is
+   * reset and counts its tokens.
+   *
+   * @param input the stream to filter
+   * @param generations the source of the latest generation
+   * @param cacheSize the number of stems to cache, or 0
+   * @param nodeCache the stem cache of the node, or null
+   * @param stats the stats the counts of the stream are added to when it ends
+   */
+  public TurkishStemmerTokenFilter(TokenStream input,
+                                   Supplier<Generation> generations,
+                                   int cacheSize,
+                                   NodeStemCache nodeCache,
+                                   StemmerStats stats) {
+    this(input, generations, cacheSize, nodeCache, stats, 1, 0, false, false);
+  }
+
+  /**
+   * Creates a filter that switches to the latest generation whenever it is
+   * reset, counts its tokens and may emit several candidate stems of a term
+   * as well as the term itself.
+   *
+   * The other candidates follow the stem of the term at the same position.
+   * They are only found by the stemmer, so terms are not looked up in the
+   * caches and the lexicon when there is more than one candidate. The
+   * original term comes last, at the same position, only if it differs from
+   * its stem; it is marked as a keyword and has the {@link #ORIGINAL_TYPE}.
+   *
+   * A normalizing filter lowercases every term, keywords included, and cuts
+   * it at its apostrophe before anything else, as a Turkish lowercase filter
+   * and an apostrophe filter before it would.
+   *
+   * @param input the stream to filter
+   * @param generations the source of the latest generation
+   * @param cacheSize the number of stems to cache, or 0
+   * @param nodeCache the stem cache of the node, or null
+   * @param stats the stats the counts of the stream are added to when it ends
+   * @param maxCandidates the maximum number of candidate stems of a term
+   * @param minCandidateScore the minimum score of the candidates other than
+   * the stem, as given by {@link TurkishStemmer#candidateScore(int, boolean)}
+   * @param preserveOriginal whether to emit the original terms too
+   * @param normalize whether to normalize the terms by
+   * {@link TurkishNormalizer#normalize(char[], int)}
+   */
+  public TurkishStemmerTokenFilter(TokenStream input,
+                                   Supplier<Generation> generations,
+                                   int cacheSize,
+                                   NodeStemCache nodeCache,
+                                   StemmerStats stats,
+                                   int maxCandidates,
+                                   float minCandidateScore,
+                                   boolean preserveOriginal,
+                                   boolean normalize) {
+    super(input);
+    this.recorder = stats.recorder();
+    this.candidates = maxCandidates > 1 ? new int[maxCandidates] : null;
+    this.original = maxCandidates > 1 || preserveOriginal ?
+        new char[StemCache.MAX_TERM_LENGTH] : null;
+    this.minCandidateScore = minCandidateScore;
+    this.preserveOriginal = preserveOriginal;
+    this.normalize = normalize;
+    this.cache = cacheSize > 0 ? new StemCache(cacheSize) : null;
+    this.term = cache != null || nodeCache != null ?
+        new char[StemCache.MAX_TERM_LENGTH] : null;
+    this.generations = generations;
+    this.sharedCache = nodeCache;
+    use(generations.get());
+  }
+
+  @Override
+  public void reset() throws IOException {
+    super.reset();
+    candidateCount = nextCandidate = 0;
+    originalPending = false;
+    stemState = null;
+
+    Generation latest = generations == null ? null : generations.get();
+
+    if (latest != generation) {
+      if (cache != null) {
+        cache.clear();
+      }
+      use(latest);
+    }
+  }
+
+  private void use(Generation generation) {
+    this.generation = generation;
+    this.stemmer = generation.stemmer;
+    this.nodeCache = sharedCache == null ? null :
+        sharedCache.view(generation.fingerprint);
+    this.lexicon = generation.lexicon == null ? null :
+        generation.lexicon.lookup();
   }
 
   @Override
   public final boolean incrementToken() throws IOException {
-    String stem;
+    if (nextCandidate < candidateCount) {
+      emitCandidate(candidates[nextCandidate++]);
+      return true;
+    }
+
+    if (originalPending) {
+      emitOriginal();
+      return true;
+    }
 
     if (input.incrementToken()) {
+      recorder.token();
+      if (normalize) {
+        termAtt.setLength(TurkishNormalizer.normalize(termAtt.buffer(), termAtt.length()));
+      }
       if (!keywordAttr.isKeyword()) {
-        stem = stemmer.stem(termAtt.buffer(), termAtt.length(), 0);
-        termAtt.copyBuffer(stem.toCharArray(), 0, stem.length());
+        if (original == null) {
+          termAtt.setLength(stem(termAtt.buffer(), termAtt.length()));
+        } else {
+          stemStacked(termAtt.buffer(), termAtt.length());
+        }
+      } else {
+        recorder.keyword();
       }
       return true;
     } else {
@@ -41,4 +322,202 @@ public class TurkishStemmerTokenFilter extends TokenFilter {
     }
   }
 
+  /**
+   * Stems a term, trying the cache of the stream, the lexicon and the cache
+   * of the node before running the stemmer.
+   */
+  private int stem(char[] buffer, int length) throws IOException {
+    if (term == null || length > term.length) {
+      int stemLength = lookUpLexicon(buffer, length);
+
+      return stemLength >= 0 ? stemLength : runStemmer(buffer, length);
+    }
+
+    int stemLength = cache == null ? -1 : cache.get(buffer, length);
+
+    if (stemLength >= 0) {
+      recorder.cacheHit();
+      return stemLength;
+    }
+
+    System.arraycopy(buffer, 0, term, 0, length);
+    stemLength = lookUpLexicon(buffer, length);
+
+    if (stemLength >= 0) {
+      // The lexicon is only looked up after the cache of the stream
+      if (cache != null) {
+        recorder.cacheMiss();
+      }
+    } else {
+      if (nodeCache != null) {
+        stemLength = nodeCache.get(buffer, length);
+      }
+
+      if (stemLength >= 0) {
+        recorder.cacheHit();
+      } else {
+        recorder.cacheMiss();
+        stemLength = runStemmer(buffer, length);
+
+        if (nodeCache != null) {
+          nodeCache.put(term, length, buffer, stemLength);
+        }
+      }
+    }
+
+    if (cache != null) {
+      cache.put(term, length, buffer, stemLength);
+    }
+
+    return stemLength;
+  }
+
+  /**
+   * Looks up the stem of a term in the lexicon, if there is one.
+   *
+   * @return the length of the stem, or -1 if it is not found
+   */
+  private int lookUpLexicon(char[] buffer, int length) throws IOException {
+    if (lexicon == null) {
+      return -1;
+    }
+
+    int stemLength = lexicon.stem(buffer, length);
+
+    if (stemLength >= 0) {
+      recorder.lexiconHit();
+    } else {
+      recorder.lexiconMiss();
+    }
+
+    return stemLength;
+  }
+
+  /**
+   * Stems a term and keeps what is emitted after it at the same position:
+   * its other candidate stems, and the term itself if it differs from its
+   * stem.
+   */
+  private void stemStacked(char[] buffer, int length) throws IOException {
+    original = ArrayUtil.grow(original, length);
+    originalLength = length;
+    System.arraycopy(buffer, 0, original, 0, length);
+
+    if (candidates == null) {
+      termAtt.setLength(stem(buffer, length));
+    } else {
+      termAtt.setLength(runStemmer(buffer, length));
+      candidateCount = stemmer.candidates(context, candidates, minCandidateScore);
+      // The first candidate is the stem itself
+      nextCandidate = 1;
+    }
+
+    originalPending = preserveOriginal && !isOriginal(termAtt.buffer(), termAtt.length());
+
+    if (originalPending || nextCandidate < candidateCount) {
+      stemState = captureState();
+    }
+  }
+
+  private boolean isOriginal(char[] buffer, int length) {
+    if (length != originalLength) {
+      return false;
+    }
+
+    for (int i = 0; i < length; i++) {
+      if (buffer[i] != original[i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Replaces the current token with a candidate stem of the latest term, at
+   * the same position.
+   */
+  private void emitCandidate(int stemLength) {
+    restoreState(stemState);
+
+    char[] buffer = termAtt.resizeBuffer(stemLength);
+    System.arraycopy(original, 0, buffer, 0, stemLength);
+    stemmer.lastConsonant(buffer, stemLength);
+    termAtt.setLength(stemLength);
+    posIncAttr.setPositionIncrement(0);
+  }
+
+  /**
+   * Replaces the current token with the latest term as it was before
+   * stemming, at the same position.
+   */
+  private void emitOriginal() {
+    restoreState(stemState);
+    originalPending = false;
+
+    termAtt.copyBuffer(original, 0, originalLength);
+    posIncAttr.setPositionIncrement(0);
+    keywordAttr.setKeyword(true);
+    typeAttr.setType(ORIGINAL_TYPE);
+  }
+
+  /**
+   * Runs the stemmer on a term, sampling its latency.
+   */
+  private int runStemmer(char[] buffer, int length) {
+    int stemLength;
+
+    if (recorder.sampleLatency()) {
+      long start = System.nanoTime();
+      stemLength = stemmer.stem(context, buffer, length);
+      recorder.latency(System.nanoTime() - start);
+    } else {
+      stemLength = stemmer.stem(context, buffer, length);
+    }
+
+    SkipReason skipReason = context.skipReason();
+
+    if (skipReason == null) {
+      recorder.stemmed();
+
+      if (context.truncated()) {
+        recorder.truncated();
+      }
+    } else {
+      recorder.skipped(skipReason);
+    }
+
+    return stemLength;
+  }
+
+  @Override
+  public void end() throws IOException {
+    super.end();
+    recorder.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    recorder.flush();
+    super.close();
+  }
+
+  /**
+   * Gets the number of terms whose stems were found in the cache.
+   *
+   * @return the number of cache hits, or 0 if caching is disabled
+   */
+  public long getCacheHits() {
+    return cache == null ? 0 : cache.hits();
+  }
+
+  /**
+   * Gets the number of terms that had to be stemmed despite the cache.
+   *
+   * @return the number of cache misses, or 0 if caching is disabled
+   */
+  public long getCacheMisses() {
+    return cache == null ? 0 : cache.misses();
+  }
+
 }
@@ -3,6 +3,7 @@ package org.elasticsearch.index.analysis;
 import java.io.IOException;
 import java.io.Reader;
 import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -10,40 +11,330 @@ import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.CharArraySet;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.assistedinject.Assisted;
+import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.analysis.stemmer.turkish.cache.NodeStemCache;
+import org.elasticsearch.index.analysis.stemmer.turkish.cache.StemCache;
+import org.elasticsearch.index.analysis.stemmer.turkish.deasciification.Deasciifier;
+import org.elasticsearch.index.analysis.stemmer.turkish.lexicon.StemLexicon;
+import org.elasticsearch.index.analysis.stemmer.turkish.stats.StemmerStats;
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.LoggingStemTraceListener;
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.StemTraceListener;
+import org.elasticsearch.index.analysis.stemmer.turkish.wordlist.WordListRegistry;
 
 public class TurkishStemmerTokenFilterFactory extends AbstractTokenFilterFactory {
 
-  private final CharArraySet protectedWords;
-  private final CharArraySet lastConsonantExceptions;
-  private final CharArraySet vowelHarmonyExceptions;
-  private final CharArraySet averageStemSizeExceptions;
+  /**
+   * The word lists, which change only while holding the lock of the factory.
+   */
+  private CharArraySet protectedWords;
+  private CharArraySet lastConsonantExceptions;
+  private CharArraySet vowelHarmonyExceptions;
+  private CharArraySet averageStemSizeExceptions;
+  /**
+   * The known stems that guide the deasciification, or null.
+   */
+  private CharArraySet deasciifyStems;
+  private final int cacheSize;
+  private final int maxTokenLength;
+  private final int maxTransitions;
+  private final boolean correctMistypes;
+  private final int maxDeasciifyVariants;
+  private final int maxCandidates;
+  private final float minCandidateScore;
+  private final boolean preserveOriginal;
+  private final boolean normalize;
+  private final NodeStemCache nodeCache;
+  /**
+   * The word lists of the node, or null to load the lists of this filter
+   * for itself.
+   */
+  private final WordListRegistry wordLists;
+  /**
+   * Whether the word lists are reloaded when their files change.
+   */
+  private final boolean reloadWordLists;
+  private final StemTraceListener traceListener;
+  private final StemmerStats stats;
+  /**
+   * The path of the lexicon, or null.
+   */
+  private Path lexiconPath;
+  /**
+   * The stemmer of the filter, which is shared by all its streams, along
+   * with its fingerprint and the lexicon. It is replaced as a whole when the
+   * word lists are reloaded.
+   */
+  private volatile TurkishStemmerTokenFilter.Generation generation;
 
   @Inject
   public TurkishStemmerTokenFilterFactory(IndexSettings indexSettings,
       Environment env, @Assisted String name,
       @Assisted Settings settings) {
 
+    this(indexSettings, env, name, settings, null, null, null);
+  }
+
+  /**
+   * Creates a factory that shares the resources of the node.
+   *
+   * @param nodeCache the stem cache of the node, or null
+   * @param wordLists the word lists of the node, or null; the lists of the
+   * factory are acquired on behalf of its index, which must release them
+   * when it is removed
+   * @param stats the stats of the filter, or null
+   */
+  public TurkishStemmerTokenFilterFactory(IndexSettings indexSettings,
+      Environment env, String name, Settings settings,
+      NodeStemCache nodeCache, WordListRegistry wordLists, StemmerStats stats) {
+
     super(indexSettings, name, settings);
-    this.protectedWords = parseProtectedWords(env, settings,
-        "protected_words_path");
-    this.vowelHarmonyExceptions = parseVowelHarmonyExceptions(env, settings,
-        "vowel_harmony_exceptions_path");
-    this.lastConsonantExceptions = parseLastConsonantExceptions(env, settings,
-        "last_consonant_exceptions_path");
-    this.averageStemSizeExceptions = parseAverageStemSizeExceptions(env, settings,
-        "average_stem_size_exceptions_path");
+    this.stats = stats == null ? new StemmerStats() : stats;
+    this.wordLists = wordLists;
+    this.reloadWordLists = settings.getAsBoolean("reload_word_lists", false);
+
+    if (this.reloadWordLists && wordLists == null) {
+      // Such as the filters defined inline in an _analyze request
+      logger.warn("[reload_word_lists] is ignored for filter [" + name +
+          "], whose word lists are not watched for changes");
+    }
+
+    this.cacheSize = settings.getAsInt("cache_size", 0);
+
+    if (this.cacheSize < 0 || this.cacheSize > StemCache.MAX_SIZE) {
+      throw new IllegalArgumentException("[cache_size] must be between 0 and " +
+          StemCache.MAX_SIZE + " for filter [" + name + "], got " + this.cacheSize);
+    }
+
+    this.maxTokenLength = settings.getAsInt("max_token_length",
+        TurkishStemmer.DEFAULT_MAX_TOKEN_LENGTH);
+
+    if (this.maxTokenLength < 0) {
+      throw new IllegalArgumentException("[max_token_length] must be positive or 0 for filter [" +
+          name + "], got " + this.maxTokenLength);
+    }
+
+    this.maxTransitions = settings.getAsInt("max_transitions",
+        TurkishStemmer.DEFAULT_MAX_TRANSITIONS);
+
+    if (this.maxTransitions < 0) {
+      throw new IllegalArgumentException("[max_transitions] must be positive or 0 for filter [" +
+          name + "], got " + this.maxTransitions);
+    }
+
+    this.correctMistypes = settings.getAsBoolean("correct_mistypes", true);
+    this.maxDeasciifyVariants = settings.getAsInt("max_deasciify_variants",
+        Deasciifier.DEFAULT_MAX_VARIANTS);
+
+    if (this.maxDeasciifyVariants <= 0) {
+      throw new IllegalArgumentException("[max_deasciify_variants] must be positive for filter [" +
+          name + "], got " + this.maxDeasciifyVariants);
+    }
+
+    this.maxCandidates = settings.getAsInt("max_candidates", 1);
+
+    if (this.maxCandidates <= 0) {
+      throw new IllegalArgumentException("[max_candidates] must be positive for filter [" +
+          name + "], got " + this.maxCandidates);
+    }
+
+    this.minCandidateScore = settings.getAsFloat("min_candidate_score", 0f);
+
+    if (this.minCandidateScore < 0 || this.minCandidateScore > 1) {
+      throw new IllegalArgumentException("[min_candidate_score] must be between 0 and 1 for filter [" +
+          name + "], got " + this.minCandidateScore);
+    }
+
+    this.preserveOriginal = settings.getAsBoolean("preserve_original", false);
+    this.normalize = settings.getAsBoolean("normalize", false);
+
+    this.nodeCache = nodeCache;
+    StemLexicon lexicon = parseLexicon(env, settings, "lexicon_path");
+    this.traceListener = settings.getAsBoolean("trace", false) ?
+        new LoggingStemTraceListener(Loggers.getLogger(LoggingStemTraceListener.class,
+            indexSettings.getSettings(), indexSettings.getIndex(), name)) :
+        null;
+
+    // A changed file may be reported before the constructor is done
+    synchronized (this) {
+      this.protectedWords = parseProtectedWords(env, settings,
+          "protected_words_path");
+      this.vowelHarmonyExceptions = parseVowelHarmonyExceptions(env, settings,
+          "vowel_harmony_exceptions_path");
+      this.lastConsonantExceptions = parseLastConsonantExceptions(env, settings,
+          "last_consonant_exceptions_path");
+      this.averageStemSizeExceptions = parseAverageStemSizeExceptions(env, settings,
+          "average_stem_size_exceptions_path");
+      this.deasciifyStems = parseDeasciifyStems(env, settings,
+          "deasciify_stems_path");
+      TurkishStemmer stemmer = buildStemmer();
+
+      if (lexicon != null && lexicon.fingerprint() != stemmer.fingerprint()) {
+        throw new IllegalArgumentException("The lexicon [" + lexiconPath + "] of filter [" +
+            name + "] was built with other word lists or settings than the filter");
+      }
+
+      this.generation = generation(stemmer, lexicon);
+    }
   }
 
   @Override
   public TokenStream create(TokenStream tokenStream) {
+    return create(tokenStream, stats);
+  }
+
+  /**
+   * Creates a filter that adds its counts to other stats than the ones of
+   * the factory, such as the filters of the batches.
+   *
+   * @param tokenStream the stream to filter
+   * @param stats the stats the filter adds its counts to
+   * @return the filter
+   */
+  public TokenStream create(TokenStream tokenStream, StemmerStats stats) {
     return new TurkishStemmerTokenFilter(tokenStream,
-                                         protectedWords,
-                                         vowelHarmonyExceptions,
-                                         lastConsonantExceptions,
-                                         averageStemSizeExceptions);
+                                         () -> generation,
+                                         cacheSize,
+                                         nodeCache,
+                                         stats,
+                                         maxCandidates,
+                                         minCandidateScore,
+                                         preserveOriginal,
+                                         normalize);
+  }
+
+  /**
+   * Gets the stemmer the filter currently uses.
+   *
+   * @return the stemmer
+   */
+  public TurkishStemmer stemmer() {
+    return generation.stemmer();
+  }
+
+  private TurkishStemmer buildStemmer() {
+    return TurkishStemmer.builder()
+        .protectedWords(protectedWords)
+        .vowelHarmonyExceptions(vowelHarmonyExceptions)
+        .lastConsonantExceptions(lastConsonantExceptions)
+        .averageStemSizeExceptions(averageStemSizeExceptions)
+        .listener(traceListener)
+        .maxTokenLength(maxTokenLength)
+        .maxTransitions(maxTransitions)
+        .correctMistypes(correctMistypes)
+        .deasciifier(deasciifyStems == null ? null :
+            new Deasciifier(deasciifyStems, maxDeasciifyVariants))
+        .build();
+  }
+
+  /**
+   * Pairs a stemmer with its lexicon, under a fingerprint of everything that
+   * affects the stems of the filter, so that the node cache keeps apart the
+   * stems of filters that are configured differently.
+   */
+  private static TurkishStemmerTokenFilter.Generation generation(TurkishStemmer stemmer,
+      StemLexicon lexicon) {
+
+    return new TurkishStemmerTokenFilter.Generation(stemmer,
+        31 * stemmer.fingerprint() + (lexicon == null ? 0 : lexicon.checksum()),
+        lexicon);
+  }
+
+  /**
+   * Replaces a word list with the new content of its file and publishes a
+   * new stemmer to the running streams, along with the lexicon file if it
+   * was built with the new lists.
+   */
+  private synchronized void reload(String settingPrefix, CharArraySet words) {
+    switch (settingPrefix) {
+      case "protected_words_path":
+        protectedWords = words;
+        break;
+      case "vowel_harmony_exceptions_path":
+        vowelHarmonyExceptions = words;
+        break;
+      case "last_consonant_exceptions_path":
+        lastConsonantExceptions = words;
+        break;
+      case "average_stem_size_exceptions_path":
+        averageStemSizeExceptions = words;
+        break;
+      case "deasciify_stems_path":
+        deasciifyStems = words;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown word list [" +
+            settingPrefix + "] for filter [" + name() + "]");
+    }
+
+    TurkishStemmer stemmer = buildStemmer();
+    generation = generation(stemmer, reopenLexicon(stemmer));
+    logger.info("Reloaded the " + settingPrefix + " of filter [" + name() + "]");
+  }
+
+  /**
+   * Opens the lexicon file again after the word lists changed.
+   *
+   * @param stemmer the stemmer with the new lists
+   * @return the lexicon, or null if there is none or it was built with other
+   * lists
+   */
+  private StemLexicon reopenLexicon(TurkishStemmer stemmer) {
+    if (lexiconPath == null) {
+      return null;
+    }
+
+    StemLexicon lexicon;
+
+    try {
+      lexicon = StemLexicon.open(lexiconPath);
+    } catch (IOException e) {
+      logger.warn("Failed to reload the lexicon [" + lexiconPath + "], stemming every word", e);
+      return null;
+    }
+
+    if (lexicon.fingerprint() != stemmer.fingerprint()) {
+      logger.warn("The lexicon of filter [" + name() + "] was built with other " +
+          "word lists, stemming every word until it is rebuilt");
+      return null;
+    }
+
+    return lexicon;
+  }
+
+  /**
+   * Gets the stemmer of a filter with the default settings. Its fingerprint
+   * is the one of such filters, so it shares their stems in the node cache.
+   *
+   * @return the default generation
+   */
+  public static TurkishStemmerTokenFilter.Generation defaultGeneration() {
+    return DefaultGenerationHolder.GENERATION;
+  }
+
+  private static class DefaultGenerationHolder {
+    static final TurkishStemmerTokenFilter.Generation GENERATION =
+        generation(new TurkishStemmer(), null);
+  }
+
+  private StemLexicon parseLexicon(Environment env, Settings settings,
+      String settingPrefix) {
+
+    String path = settings.get(settingPrefix);
+
+    if (path == null) {
+      return null;
+    }
+
+    try {
+      lexiconPath = env.configFile().resolve(path);
+      return StemLexicon.open(lexiconPath);
+    } catch (IOException | InvalidPathException e) {
+      logger.warn("Failed to load the lexicon [" + path + "], stemming every word", e);
+      return null;
+    }
   }
 
   private CharArraySet parseProtectedWords(Environment env, Settings settings,
@@ -121,9 +412,24 @@ public class TurkishStemmerTokenFilterFactory extends AbstractTokenFilterFactory
     return averageStemSizeExceptions;
   }
 
+  private CharArraySet parseDeasciifyStems(Environment env, Settings settings,
+      String settingPrefix) {
+
+    try {
+      return parseExceptions(env, settings, settingPrefix);
+    } catch (IOException e) {
+      logger.info("Failed to load given deasciification stems, not deasciifying");
+      return null;
+    }
+  }
+
   private CharArraySet parseExceptions(Environment env, Settings settings,
       String settingPrefix) throws IOException {
 
+    if (wordLists != null) {
+      return acquireExceptions(env, settings, settingPrefix);
+    }
+
     List<String> exceptionsList = new ArrayList<String>();
     Reader exceptionsReader = null;
 
@@ -149,4 +455,25 @@ public class TurkishStemmerTokenFilterFactory extends AbstractTokenFilterFactory
       return null;
     }
   }
+
+  private CharArraySet acquireExceptions(Environment env, Settings settings,
+      String settingPrefix) {
+
+    String path = settings.get(settingPrefix);
+
+    if (path == null) {
+      return null;
+    }
+
+    try {
+      return wordLists.acquire(index(), env.configFile().resolve(path),
+          reloadWordLists ? words -> reload(settingPrefix, words) : null);
+    } catch (InvalidPathException e) {
+      logger.info("failed to find the " + settingPrefix + ", using the default set");
+      return null;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("IOException while reading " +
+          settingPrefix + ": " + path, e);
+    }
+  }
 }
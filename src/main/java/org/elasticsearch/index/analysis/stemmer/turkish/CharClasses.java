@@ -0,0 +1,121 @@
+package org.elasticsearch.index.analysis.stemmer.turkish;
+
+import java.util.Arrays;
+
+import org.elasticsearch.index.analysis.TurkishStemmer;
+
+/**
+ * Lookup tables of the classes of the Turkish letters.
+ *
+ * Every character up to the last Turkish letter has a byte of class flags,
+ * and every pair of vowels has a flag of whether they are in harmony, so the
+ * checks of the stemmer take a single array access.
+ */
+public final class CharClasses {
+
+  public static final int ALPHABET          = 1;
+  public static final int VOWEL             = 1 << 1;
+  public static final int CONSONANT         = 1 << 2;
+  public static final int FRONT             = 1 << 3;
+  public static final int BACK              = 1 << 4;
+  public static final int ROUNDED           = 1 << 5;
+  public static final int UNROUNDED         = 1 << 6;
+  /**
+   * The vowels that may follow a rounded vowel.
+   */
+  public static final int FOLLOWING_ROUNDED = 1 << 7;
+
+  private static final byte[] CLASSES;
+  /**
+   * The index of each vowel in the harmony matrix, or -1.
+   */
+  private static final byte[] VOWEL_INDICES;
+  private static final boolean[] HARMONY;
+
+  static {
+    char maxChar = 0;
+
+    for(char c : (TurkishStemmer.ALPHABET + TurkishStemmer.VOWELS).toCharArray()) {
+      maxChar = (char) Math.max(maxChar, c);
+    }
+
+    CLASSES = new byte[maxChar + 1];
+    VOWEL_INDICES = new byte[maxChar + 1];
+
+    set(TurkishStemmer.ALPHABET, ALPHABET);
+    set(TurkishStemmer.VOWELS, VOWEL);
+    set(TurkishStemmer.CONSONANTS, CONSONANT);
+    set(TurkishStemmer.FRONT_VOWELS, FRONT);
+    set(TurkishStemmer.BACK_VOWELS, BACK);
+    set(TurkishStemmer.ROUNDED_VOWELS, ROUNDED);
+    set(TurkishStemmer.UNROUNDED_VOWELS, UNROUNDED);
+    set(TurkishStemmer.FOLLOWING_ROUNDED_VOWELS, FOLLOWING_ROUNDED);
+
+    int vowels = TurkishStemmer.VOWELS.length();
+
+    Arrays.fill(VOWEL_INDICES, (byte) -1);
+    for(int i = 0; i < vowels; i++) {
+      VOWEL_INDICES[TurkishStemmer.VOWELS.charAt(i)] = (byte) i;
+    }
+
+    HARMONY = new boolean[vowels * vowels];
+
+    for(int i = 0; i < vowels; i++) {
+      for(int j = 0; j < vowels; j++) {
+        char vowel = TurkishStemmer.VOWELS.charAt(i);
+        char candidate = TurkishStemmer.VOWELS.charAt(j);
+
+        HARMONY[i * vowels + j] =
+            (both(vowel, UNROUNDED, candidate, UNROUNDED) ||
+             both(vowel, ROUNDED, candidate, FOLLOWING_ROUNDED)) &&
+            (both(vowel, FRONT, candidate, FRONT) ||
+             both(vowel, BACK, candidate, BACK));
+      }
+    }
+  }
+
+  private CharClasses() {
+  }
+
+  private static void set(final String chars, final int flag) {
+    for(int i = 0; i < chars.length(); i++) {
+      CLASSES[chars.charAt(i)] |= flag;
+    }
+  }
+
+  private static boolean both(final char first, final int firstFlag,
+                              final char second, final int secondFlag) {
+    return is(first, firstFlag) && is(second, secondFlag);
+  }
+
+  /**
+   * Checks whether a character belongs to any of the given classes.
+   *
+   * @param c the character
+   * @param flags the classes to check
+   * @return whether the character has any of the flags
+   */
+  public static boolean is(final char c, final int flags) {
+    return c < CLASSES.length && (CLASSES[c] & flags) != 0;
+  }
+
+  /**
+   * Checks whether two vowels have both frontness and roundness harmony.
+   *
+   * @param vowel the first vowel
+   * @param candidate the vowel that follows it
+   * @return whether they are in harmony, which is false for non-vowels
+   */
+  public static boolean harmony(final char vowel, final char candidate) {
+    if(vowel >= VOWEL_INDICES.length || candidate >= VOWEL_INDICES.length)
+      return false;
+
+    int first = VOWEL_INDICES[vowel];
+    int second = VOWEL_INDICES[candidate];
+
+    if(first < 0 || second < 0)
+      return false;
+
+    return HARMONY[first * TurkishStemmer.VOWELS.length() + second];
+  }
+}
@@ -0,0 +1,120 @@
+package org.elasticsearch.index.analysis.stemmer.turkish;
+
+import org.apache.lucene.util.ArrayUtil;
+
+/**
+ * The vowels of a word, computed once so that the syllables and the vowel
+ * harmony of any prefix of the word are known without scanning it again.
+ *
+ * Stripping suffixes only ever leaves prefixes of the word, so the profile
+ * keeps, for every prefix length, the number of vowels and the position of
+ * the last vowel of the prefix. As in the rest of the stemmer, every letter
+ * that is not a consonant counts as a vowel.
+ *
+ * A profile is reusable and not thread-safe.
+ */
+public final class WordProfile {
+  private char[] word;
+  /**
+   * The number of vowels of each prefix, indexed by its length.
+   */
+  private int[] syllables = new int[32];
+  /**
+   * The position of the last vowel of each prefix, indexed by its length, or
+   * -1 if the prefix has no vowels.
+   */
+  private int[] lastVowels = new int[32];
+  private int length;
+
+  /**
+   * Computes the profile of a word.
+   *
+   * The characters of the word are read when checking the harmony, so the
+   * vowels of the buffer may change afterwards as long as they stay vowels.
+   *
+   * @param word the buffer that holds the word
+   * @param len the length of the word
+   */
+  public void reset(final char[] word, final int len) {
+    if(this.syllables.length <= len) {
+      this.syllables = new int[ArrayUtil.oversize(len + 1, Integer.BYTES)];
+      this.lastVowels = new int[this.syllables.length];
+    }
+
+    this.word = word;
+    this.length = len;
+    this.syllables[0] = 0;
+    this.lastVowels[0] = -1;
+
+    for(int i = 0; i < len; i++) {
+      if(CharClasses.is(word[i], CharClasses.CONSONANT)) {
+        this.syllables[i + 1] = this.syllables[i];
+        this.lastVowels[i + 1] = this.lastVowels[i];
+      } else {
+        this.syllables[i + 1] = this.syllables[i] + 1;
+        this.lastVowels[i + 1] = i;
+      }
+    }
+  }
+
+  /**
+   * Reads the characters of the word from another buffer, which holds the
+   * same word apart from vowels that were replaced with other vowels.
+   *
+   * @param word the buffer that holds the word
+   */
+  public void rebase(final char[] word) {
+    this.word = word;
+  }
+
+  /**
+   * Gets the length of the word.
+   *
+   * @return the length of the word
+   */
+  public int length() {
+    return this.length;
+  }
+
+  /**
+   * Gets the number of syllables of a prefix of the word.
+   *
+   * @param len the length of the prefix
+   * @return the number of syllables
+   */
+  public int syllables(final int len) {
+    return this.syllables[len];
+  }
+
+  /**
+   * Gets the position of the last vowel of a prefix of the word.
+   *
+   * @param len the length of the prefix
+   * @return the position of the vowel, or -1 if there is none
+   */
+  public int lastVowel(final int len) {
+    return this.lastVowels[len];
+  }
+
+  /**
+   * Checks whether the last two vowels of a prefix of the word are in
+   * harmony.
+   *
+   * @param len the length of the prefix
+   * @return whether the prefix has vowel harmony, which holds for prefixes
+   * of less than two vowels
+   */
+  public boolean vowelHarmony(final int len) {
+    int candidate = this.lastVowels[len];
+
+    if(candidate < 0)
+      return true;
+
+    int vowel = this.lastVowels[candidate];
+
+    if(vowel < 0)
+      return true;
+
+    return CharClasses.harmony(this.word[vowel], this.word[candidate]);
+  }
+}
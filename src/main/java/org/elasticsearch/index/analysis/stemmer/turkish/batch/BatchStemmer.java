@@ -0,0 +1,228 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.batch;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tr.TurkishLowerCaseFilter;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.analysis.TurkishStemmerTokenFilter;
+import org.elasticsearch.index.analysis.TurkishStemmerTokenFilterFactory;
+import org.elasticsearch.index.analysis.stemmer.turkish.cache.NodeStemCache;
+
+/**
+ * Stems many words or texts at once, splitting them into chunks that are
+ * stemmed in parallel.
+ *
+ * Every chunk goes through a stemmer filter as a stream of its own, so the
+ * stems are the ones of the indexing path and the filters share the stem
+ * cache of the node with it. The calling thread stems chunks too, and the
+ * executor only lends it helpers: a helper that is rejected or that starts
+ * once all the chunks are taken does nothing, so a request never waits for
+ * a thread of a busy executor.
+ */
+public final class BatchStemmer {
+
+  /**
+   * The name of the thread pool of the batch requests.
+   */
+  public static final String THREAD_POOL = "turkish_stemmer";
+  /**
+   * The number of words in a chunk.
+   */
+  static final int WORDS_PER_CHUNK = 256;
+  /**
+   * The number of texts in a chunk.
+   */
+  static final int TEXTS_PER_CHUNK = 16;
+
+  private final Executor executor;
+  private final int parallelism;
+  private final NodeStemCache nodeCache;
+
+  /**
+   * Creates a batch stemmer.
+   *
+   * @param executor the executor of the helpers
+   * @param parallelism the maximum number of threads that stem a batch,
+   * including the calling thread
+   * @param nodeCache the stem cache of the node, or null
+   */
+  public BatchStemmer(final Executor executor, final int parallelism,
+                      final NodeStemCache nodeCache) {
+    this.executor = executor;
+    this.parallelism = Math.max(1, parallelism);
+    this.nodeCache = nodeCache;
+  }
+
+  /**
+   * Creates a filter with the default settings, which uses the stem cache of
+   * the node.
+   *
+   * @return the function that wraps a stream with the filter
+   */
+  public Function<TokenStream, TokenStream> defaultFilter() {
+    return stream -> new TurkishStemmerTokenFilter(stream,
+        TurkishStemmerTokenFilterFactory::defaultGeneration, 0, this.nodeCache);
+  }
+
+  /**
+   * Stems words, each one as a single token.
+   *
+   * @param filter the function that wraps a stream with a stemmer filter
+   * @param words the words
+   * @return the stem of each word, in the order of the words
+   * @throws IOException if a stream fails or the thread is interrupted
+   */
+  public String[] stemWords(final Function<TokenStream, TokenStream> filter,
+                            final String[] words) throws IOException {
+    String[] stems = new String[words.length];
+
+    run(words.length, WORDS_PER_CHUNK,
+        (from, to) -> stemWords(filter, words, from, to, stems));
+
+    return stems;
+  }
+
+  /**
+   * Splits texts into words and stems them. The words are split by the
+   * standard tokenizer and lowercased by the rules of Turkish.
+   *
+   * @param filter the function that wraps a stream with a stemmer filter
+   * @param texts the texts
+   * @return the stems of the words of each text, in the order of the texts
+   * @throws IOException if a stream fails or the thread is interrupted
+   */
+  public String[][] stemTexts(final Function<TokenStream, TokenStream> filter,
+                              final String[] texts) throws IOException {
+    String[][] stems = new String[texts.length][];
+
+    run(texts.length, TEXTS_PER_CHUNK,
+        (from, to) -> stemTexts(filter, texts, from, to, stems));
+
+    return stems;
+  }
+
+  private static void stemWords(final Function<TokenStream, TokenStream> filter,
+                                final String[] words, final int from,
+                                final int to, final String[] stems)
+      throws IOException {
+
+    try(TokenStream stream = filter.apply(new WordsTokenStream(words, from, to))) {
+      CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+      PositionIncrementAttribute posIncAtt =
+          stream.addAttribute(PositionIncrementAttribute.class);
+      int word = from - 1;
+
+      stream.reset();
+
+      // Tokens stacked on a word are not stems of the next one
+      while(stream.incrementToken()) {
+        if(posIncAtt.getPositionIncrement() > 0)
+          stems[++word] = termAtt.toString();
+      }
+
+      stream.end();
+    }
+  }
+
+  private static void stemTexts(final Function<TokenStream, TokenStream> filter,
+                                final String[] texts, final int from,
+                                final int to, final String[][] stems)
+      throws IOException {
+
+    Tokenizer tokenizer = new StandardTokenizer();
+    TokenStream stream = filter.apply(new TurkishLowerCaseFilter(tokenizer));
+    CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+    List<String> tokens = new ArrayList<String>();
+
+    for(int i = from; i < to; i++) {
+      tokenizer.setReader(new StringReader(texts[i]));
+      tokens.clear();
+
+      try {
+        stream.reset();
+
+        while(stream.incrementToken()) {
+          tokens.add(termAtt.toString());
+        }
+
+        stream.end();
+      } finally {
+        stream.close();
+      }
+
+      stems[i] = tokens.toArray(new String[tokens.size()]);
+    }
+  }
+
+  private interface Chunk {
+    void stem(int from, int to) throws IOException;
+  }
+
+  /**
+   * Stems all the chunks of a batch, with the calling thread and as many
+   * helpers as the parallelism allows.
+   */
+  private void run(final int count, final int chunkSize, final Chunk chunk)
+      throws IOException {
+
+    int chunks = (count + chunkSize - 1) / chunkSize;
+    AtomicInteger next = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(chunks);
+    AtomicReference<Exception> failure = new AtomicReference<>();
+
+    Runnable worker = () -> {
+      int c;
+
+      while((c = next.getAndIncrement()) < chunks) {
+        try {
+          if(failure.get() == null)
+            chunk.stem(c * chunkSize, Math.min(count, (c + 1) * chunkSize));
+        } catch(Exception e) {
+          failure.compareAndSet(null, e);
+        } finally {
+          done.countDown();
+        }
+      }
+    };
+
+    for(int i = 1; i < Math.min(this.parallelism, chunks); i++) {
+      try {
+        this.executor.execute(worker);
+      } catch(RejectedExecutionException | EsRejectedExecutionException e) {
+        break;
+      }
+    }
+
+    worker.run();
+
+    try {
+      done.await();
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while stemming a batch");
+    }
+
+    Exception e = failure.get();
+
+    if(e instanceof IOException) {
+      throw (IOException) e;
+    } else if(e != null) {
+      throw (RuntimeException) e;
+    }
+  }
+}
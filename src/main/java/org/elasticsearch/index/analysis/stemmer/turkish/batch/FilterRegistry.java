@@ -0,0 +1,51 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.batch;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.elasticsearch.index.analysis.TurkishStemmerTokenFilterFactory;
+
+/**
+ * The stemmer filters of the indices of a node, by index and filter name, so
+ * that requests can stem with the filter of an index. The filters of an index
+ * are dropped when the index is removed from the node.
+ */
+public final class FilterRegistry {
+
+  private final ConcurrentMap<String,
+      ConcurrentMap<String, TurkishStemmerTokenFilterFactory>> indices =
+          new ConcurrentHashMap<>();
+
+  /**
+   * Registers a filter, replacing any filter of the index with the same name.
+   *
+   * @param index the name of the index
+   * @param filter the filter
+   */
+  public void register(final String index, final TurkishStemmerTokenFilterFactory filter) {
+    this.indices.computeIfAbsent(index, i -> new ConcurrentHashMap<>())
+        .put(filter.name(), filter);
+  }
+
+  /**
+   * Gets a filter of an index.
+   *
+   * @param index the name of the index
+   * @param filter the name of the filter
+   * @return the filter, or null if the index has no such filter on this node
+   */
+  public TurkishStemmerTokenFilterFactory get(final String index, final String filter) {
+    ConcurrentMap<String, TurkishStemmerTokenFilterFactory> filters = this.indices.get(index);
+
+    return filters == null ? null : filters.get(filter);
+  }
+
+  /**
+   * Drops the filters of an index.
+   *
+   * @param index the name of the index
+   */
+  public void remove(final String index) {
+    this.indices.remove(index);
+  }
+}
@@ -0,0 +1,41 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.batch;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+
+/**
+ * A stream of a range of words, each one being a token as it is.
+ */
+final class WordsTokenStream extends TokenStream {
+  private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+  private final PositionIncrementAttribute posIncAtt =
+      addAttribute(PositionIncrementAttribute.class);
+  private final String[] words;
+  private final int from;
+  private final int to;
+  private int next;
+
+  WordsTokenStream(final String[] words, final int from, final int to) {
+    this.words = words;
+    this.from = from;
+    this.to = to;
+  }
+
+  @Override
+  public void reset() {
+    this.next = this.from;
+  }
+
+  @Override
+  public boolean incrementToken() {
+    if(this.next == this.to)
+      return false;
+
+    clearAttributes();
+    this.termAtt.setEmpty().append(this.words[this.next++]);
+    this.posIncAtt.setPositionIncrement(1);
+
+    return true;
+  }
+}
@@ -0,0 +1,78 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded buffer of the accesses to a segment of the node cache that are
+ * not counted in its sketch yet.
+ *
+ * Threads claim slots by advancing the write counter, and the thread that
+ * holds the segment next drains the slots into its sketch. Each segment has
+ * a buffer per stripe of threads, so lookups on different threads rarely
+ * write to the same counter. An access is only dropped when the buffer is
+ * full while another thread holds the segment.
+ */
+final class AccessBuffer {
+  static final int SIZE = 32;
+  private static final int MASK = SIZE - 1;
+  /**
+   * The flag of the slots that hold a hash, so that a hash of 0 is told apart
+   * from an empty slot.
+   */
+  private static final long PRESENT = 1L << 32;
+
+  private final AtomicLongArray slots = new AtomicLongArray(SIZE);
+  private final AtomicLong writes = new AtomicLong();
+  /**
+   * The number of slots drained, only written by the thread that holds the
+   * segment.
+   */
+  private volatile long reads;
+
+  /**
+   * Adds an access to the buffer.
+   *
+   * @param hash the hash of the accessed key
+   * @return whether the access was added, or dropped because the buffer is
+   * full
+   */
+  boolean offer(final int hash) {
+    while(true) {
+      long write = this.writes.get();
+
+      if(write - this.reads >= SIZE)
+        return false;
+
+      if(this.writes.compareAndSet(write, write + 1)) {
+        this.slots.set((int) write & MASK, PRESENT | (hash & 0xffffffffL));
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Counts the buffered accesses in a sketch and empties their slots. It must
+   * only be called by the thread that holds the segment.
+   *
+   * @param sketch the sketch of the segment
+   */
+  void drain(final FrequencySketch sketch) {
+    long read = this.reads;
+    long write = this.writes.get();
+
+    for(; read < write; read++) {
+      int slot = (int) read & MASK;
+      long access = this.slots.get(slot);
+
+      // The slot is claimed, but its hash is not written yet
+      if(access == 0)
+        break;
+
+      this.slots.set(slot, 0);
+      sketch.increment((int) access);
+    }
+
+    this.reads = read;
+  }
+}
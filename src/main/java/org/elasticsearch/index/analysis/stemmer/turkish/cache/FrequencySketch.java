@@ -0,0 +1,100 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.cache;
+
+/**
+ * A count-min sketch that estimates how often keys were seen recently.
+ *
+ * Every key is counted in four 4-bit counters, sixteen of which are packed in
+ * a long. Its estimate is the minimum of its counters. Once the number of
+ * increments reaches ten times the width of the table all counters are
+ * halved, so the estimates follow the recent popularity of the keys.
+ *
+ * This class is not thread-safe.
+ */
+final class FrequencySketch {
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+    0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long ONE_MASK = 0x1111111111111111L;
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private final long[] table;
+  private final int mask;
+  private final int sampleSize;
+  private int additions;
+
+  /**
+   * Creates a sketch.
+   *
+   * @param capacity the number of keys the sketch should tell apart
+   */
+  FrequencySketch(final int capacity) {
+    int width = Integer.highestOneBit(Math.max(capacity, 16) - 1) << 1;
+
+    this.table = new long[width];
+    this.mask = width - 1;
+    this.sampleSize = 10 * width;
+  }
+
+  /**
+   * Gets the estimated number of times a key was seen, up to 15.
+   *
+   * @param hash the hash of the key
+   * @return the estimated frequency
+   */
+  int frequency(final int hash) {
+    int frequency = 15;
+
+    for(int depth = 0; depth < SEEDS.length; depth++) {
+      frequency = Math.min(frequency, (int) ((this.table[index(hash, depth)] >>>
+          shift(hash, depth)) & 15L));
+    }
+
+    return frequency;
+  }
+
+  /**
+   * Counts an occurrence of a key.
+   *
+   * @param hash the hash of the key
+   */
+  void increment(final int hash) {
+    boolean added = false;
+
+    for(int depth = 0; depth < SEEDS.length; depth++) {
+      int index = index(hash, depth);
+      int shift = shift(hash, depth);
+
+      if(((this.table[index] >>> shift) & 15L) != 15L) {
+        this.table[index] += 1L << shift;
+        added = true;
+      }
+    }
+
+    if(added && ++this.additions == this.sampleSize) {
+      reset();
+    }
+  }
+
+  private void reset() {
+    int odd = 0;
+
+    for(int i = 0; i < this.table.length; i++) {
+      odd += Long.bitCount(this.table[i] & ONE_MASK);
+      this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+    }
+
+    this.additions = (this.additions - (odd >>> 2)) >>> 1;
+  }
+
+  private int index(final int hash, final int depth) {
+    long h = (hash + SEEDS[depth]) * SEEDS[depth];
+    h += h >>> 32;
+
+    return (int) h & this.mask;
+  }
+
+  private static int shift(final int hash, final int depth) {
+    return ((hash >>> (depth << 3)) & 15) << 2;
+  }
+}
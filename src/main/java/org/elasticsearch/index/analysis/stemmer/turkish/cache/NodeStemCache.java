@@ -0,0 +1,395 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.cache;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded stem cache shared by all the token streams of a node.
+ *
+ * The cache is split into segments by the hash of the keys. Lookups read a
+ * concurrent map without locking, and record their key in a buffer of the
+ * calling thread's stripe, which the segment drains when the buffer is full
+ * or a key is added. Each segment keeps its keys in insertion
+ * order along with a {@link FrequencySketch} of the keys it was asked for,
+ * and when it is full a new key is admitted only if it is more frequent than
+ * the oldest key, which is otherwise moved to the back of the line. This way
+ * words that show up once do not push out the common ones.
+ *
+ * Keys carry a fingerprint of the configuration of the filter that stemmed
+ * them, so filters with different word lists never see each other's stems.
+ */
+public final class NodeStemCache {
+
+  private static final int SEGMENTS = 16;
+  /**
+   * The number of access buffers of a segment, the power of two that covers
+   * the processors, up to 16.
+   */
+  private static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+  /**
+   * The estimated memory of an entry besides the characters of its word and
+   * stem.
+   */
+  static final int ENTRY_OVERHEAD = 112;
+
+  private final Segment[] segments;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder rejections = new LongAdder();
+
+  /**
+   * Creates a cache.
+   *
+   * @param maxEntries the maximum number of entries
+   * @param maxBytes the maximum estimated memory of the entries
+   */
+  public NodeStemCache(final int maxEntries, final long maxBytes) {
+    if(maxEntries <= 0 || maxBytes <= 0) {
+      throw new IllegalArgumentException("Invalid stem cache limits: " +
+          maxEntries + " entries, " + maxBytes + " bytes");
+    }
+
+    this.segments = new Segment[SEGMENTS];
+
+    for(int i = 0; i < SEGMENTS; i++) {
+      this.segments[i] = new Segment(Math.max(1, maxEntries / SEGMENTS),
+                                     Math.max(1, maxBytes / SEGMENTS));
+    }
+  }
+
+  /**
+   * Creates a view of the cache for a token stream.
+   *
+   * @param fingerprint the fingerprint of the configuration of the filter
+   * @return a new view, which is not thread-safe
+   */
+  public View view(final long fingerprint) {
+    return new View(fingerprint);
+  }
+
+  public long hits() {
+    return this.hits.sum();
+  }
+
+  public long misses() {
+    return this.misses.sum();
+  }
+
+  public long evictions() {
+    return this.evictions.sum();
+  }
+
+  /**
+   * Gets the number of stems that were not cached because the words were
+   * less frequent than the ones they would replace.
+   *
+   * @return the number of rejected stems
+   */
+  public long rejections() {
+    return this.rejections.sum();
+  }
+
+  /**
+   * Gets the number of cached stems.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    int size = 0;
+
+    for(Segment segment : this.segments) {
+      size += segment.entries.size();
+    }
+
+    return size;
+  }
+
+  /**
+   * Gets the estimated memory of the cached stems.
+   *
+   * @return the estimated bytes of the entries
+   */
+  public long bytes() {
+    long bytes = 0;
+
+    for(Segment segment : this.segments) {
+      segment.lock.lock();
+      try {
+        bytes += segment.bytes;
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+
+    return bytes;
+  }
+
+  /**
+   * Removes all the cached stems.
+   */
+  public void clear() {
+    for(Segment segment : this.segments) {
+      segment.lock.lock();
+      try {
+        segment.entries.clear();
+        segment.order.clear();
+        segment.bytes = 0;
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+  }
+
+  private Segment segment(final int hash) {
+    return this.segments[(hash >>> 28) & (SEGMENTS - 1)];
+  }
+
+  static int stripes(final int processors) {
+    int stripes = 1;
+
+    while(stripes < processors && stripes < 16)
+      stripes <<= 1;
+
+    return stripes;
+  }
+
+  /**
+   * The access of a single token stream to the cache. It reuses a key to
+   * look up words, so that hits do not allocate.
+   */
+  public final class View {
+    private final long fingerprint;
+    private final Key probe;
+
+    private View(final long fingerprint) {
+      this.fingerprint = fingerprint;
+      this.probe = new Key(fingerprint);
+    }
+
+    /**
+     * Looks up the stem of the word held in the first characters of a
+     * buffer. On a hit the stem replaces the word in the buffer.
+     *
+     * @param buffer the buffer that holds the word
+     * @param len the length of the word
+     * @return the length of the stem, or -1 if the word is not cached
+     */
+    public int get(final char[] buffer, final int len) {
+      if(len == 0 || len > StemCache.MAX_TERM_LENGTH) {
+        misses.increment();
+        return -1;
+      }
+
+      this.probe.set(buffer, len);
+
+      Segment segment = segment(this.probe.hash);
+      char[] stem = segment.entries.get(this.probe);
+
+      segment.recordAccess(this.probe.hash);
+      this.probe.chars = null;
+
+      if(stem == null) {
+        misses.increment();
+        return -1;
+      }
+
+      System.arraycopy(stem, 0, buffer, 0, stem.length);
+      hits.increment();
+
+      return stem.length;
+    }
+
+    /**
+     * Caches the stem of a word, unless the cache prefers the words it
+     * already has.
+     *
+     * @param word the buffer that holds the word
+     * @param wordLength the length of the word
+     * @param stem the buffer that holds the stem
+     * @param stemLength the length of the stem
+     */
+    public void put(final char[] word, final int wordLength,
+                    final char[] stem, final int stemLength) {
+      if(wordLength == 0 || wordLength > StemCache.MAX_TERM_LENGTH)
+        return;
+
+      Key key = new Key(this.fingerprint);
+      char[] chars = new char[wordLength];
+
+      System.arraycopy(word, 0, chars, 0, wordLength);
+      key.set(chars, wordLength);
+
+      char[] value = new char[stemLength];
+      System.arraycopy(stem, 0, value, 0, stemLength);
+
+      segment(key.hash).put(key, value);
+    }
+  }
+
+  private final class Segment {
+    private final ConcurrentHashMap<Key, char[]> entries;
+    /**
+     * The keys from the oldest to the newest admitted, guarded by the lock.
+     */
+    private final ArrayDeque<Key> order = new ArrayDeque<Key>();
+    private final FrequencySketch sketch;
+    /**
+     * The accesses that are not counted yet, in a buffer per stripe of
+     * threads.
+     */
+    private final AccessBuffer[] accesses = new AccessBuffer[STRIPES];
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int maxEntries;
+    private final long maxBytes;
+    private long bytes;
+
+    private Segment(final int maxEntries, final long maxBytes) {
+      this.maxEntries = maxEntries;
+      this.maxBytes = maxBytes;
+      this.entries = new ConcurrentHashMap<Key, char[]>();
+      this.sketch = new FrequencySketch(maxEntries);
+
+      for(int i = 0; i < STRIPES; i++) {
+        this.accesses[i] = new AccessBuffer();
+      }
+    }
+
+    /**
+     * Records an access of a key in the buffer of the stripe of the calling
+     * thread, without touching the lock. Only a full buffer makes the thread
+     * try the lock to count the buffered accesses; if another thread holds
+     * the segment, the access is dropped.
+     */
+    private void recordAccess(final int hash) {
+      AccessBuffer buffer = this.accesses[stripe()];
+
+      if(buffer.offer(hash) || !this.lock.tryLock())
+        return;
+
+      try {
+        drain();
+        this.sketch.increment(hash);
+      } finally {
+        this.lock.unlock();
+      }
+    }
+
+    /**
+     * Counts the buffered accesses of every stripe. It must only be called
+     * while holding the lock.
+     */
+    private void drain() {
+      for(AccessBuffer buffer : this.accesses) {
+        buffer.drain(this.sketch);
+      }
+    }
+
+    private void put(final Key key, final char[] stem) {
+      long weight = weight(key, stem);
+
+      this.lock.lock();
+      try {
+        drain();
+
+        if(this.entries.containsKey(key) || weight > this.maxBytes)
+          return;
+
+        int frequency = this.sketch.frequency(key.hash);
+
+        while(this.entries.size() >= this.maxEntries ||
+              this.bytes + weight > this.maxBytes) {
+          Key victim = this.order.pollFirst();
+
+          if(frequency <= this.sketch.frequency(victim.hash)) {
+            // Keep the victim, which gets challenged again after the others
+            this.order.addLast(victim);
+            rejections.increment();
+            return;
+          }
+
+          this.bytes -= weight(victim, this.entries.remove(victim));
+          evictions.increment();
+        }
+
+        this.entries.put(key, stem);
+        this.order.addLast(key);
+        this.bytes += weight;
+      } finally {
+        this.lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Picks the access buffer of the calling thread.
+   */
+  private static int stripe() {
+    long id = Thread.currentThread().getId();
+
+    return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & (STRIPES - 1);
+  }
+
+  private static long weight(final Key key, final char[] stem) {
+    return ENTRY_OVERHEAD + 2L * (key.length + stem.length);
+  }
+
+  /**
+   * A word along with the fingerprint of the configuration that stemmed it.
+   */
+  private static final class Key {
+    private final long fingerprint;
+    private char[] chars;
+    private int length;
+    private int hash;
+
+    private Key(final long fingerprint) {
+      this.fingerprint = fingerprint;
+    }
+
+    private void set(final char[] chars, final int length) {
+      long h = this.fingerprint;
+
+      for(int i = 0; i < length; i++) {
+        h = 31 * h + chars[i];
+      }
+
+      // The finalizer of MurmurHash3, so that all bits of the hash are mixed
+      h ^= h >>> 33;
+      h *= 0xff51afd7ed558ccdL;
+      h ^= h >>> 33;
+      h *= 0xc4ceb9fe1a85ec53L;
+      h ^= h >>> 33;
+
+      this.chars = chars;
+      this.length = length;
+      this.hash = (int) h;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if(!(o instanceof Key))
+        return false;
+
+      Key other = (Key) o;
+
+      if(this.hash != other.hash || this.length != other.length ||
+         this.fingerprint != other.fingerprint)
+        return false;
+
+      for(int i = 0; i < this.length; i++) {
+        if(this.chars[i] != other.chars[i])
+          return false;
+      }
+
+      return true;
+    }
+  }
+}
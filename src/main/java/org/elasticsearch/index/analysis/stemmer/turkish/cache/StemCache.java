@@ -0,0 +1,156 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.cache;
+
+import java.util.Arrays;
+
+/**
+ * A small direct-mapped cache of stems, meant to be owned by a single token
+ * stream.
+ *
+ * Each word hashes to exactly one slot and replaces whatever was cached there.
+ * Words and stems are copied into flat arrays of fixed size, so lookups and
+ * insertions do not allocate. Words longer than {@link #MAX_TERM_LENGTH} are
+ * not cached.
+ *
+ * This class is not thread-safe.
+ */
+public final class StemCache {
+
+  /**
+   * The maximum length of the words that get cached.
+   */
+  public static final int MAX_TERM_LENGTH = 32;
+  /**
+   * The maximum number of entries. Each slot holds a word and a stem of
+   * {@link #MAX_TERM_LENGTH} characters, so a cache of this size takes 512 KB,
+   * and there is one per token stream of each thread.
+   */
+  public static final int MAX_SIZE = 4096;
+
+  private final int mask;
+  private final char[] words;
+  private final char[] stems;
+  private final byte[] wordLengths;
+  private final byte[] stemLengths;
+  private long hits;
+  private long misses;
+
+  /**
+   * Creates a cache.
+   *
+   * @param size the number of entries, which is rounded up to a power of two,
+   * up to {@link #MAX_SIZE}
+   */
+  public StemCache(final int size) {
+    if(size <= 0 || size > MAX_SIZE) {
+      throw new IllegalArgumentException("Invalid stem cache size: " + size);
+    }
+
+    int slots = Integer.highestOneBit(size);
+    if(slots < size)
+      slots <<= 1;
+
+    this.mask = slots - 1;
+    this.words = new char[slots * MAX_TERM_LENGTH];
+    this.stems = new char[slots * MAX_TERM_LENGTH];
+    this.wordLengths = new byte[slots];
+    this.stemLengths = new byte[slots];
+  }
+
+  /**
+   * Looks up the stem of the word held in the first characters of a buffer.
+   * On a hit the stem replaces the word in the buffer.
+   *
+   * @param buffer the buffer that holds the word
+   * @param len the length of the word
+   * @return the length of the stem, or -1 if the word is not cached
+   */
+  public int get(final char[] buffer, final int len) {
+    if(len == 0 || len > MAX_TERM_LENGTH) {
+      this.misses++;
+      return -1;
+    }
+
+    int slot = slot(buffer, len);
+    int offset = slot * MAX_TERM_LENGTH;
+
+    if(this.wordLengths[slot] != len || !equals(buffer, len, offset)) {
+      this.misses++;
+      return -1;
+    }
+
+    int stemLength = this.stemLengths[slot];
+    System.arraycopy(this.stems, offset, buffer, 0, stemLength);
+    this.hits++;
+
+    return stemLength;
+  }
+
+  /**
+   * Caches the stem of a word.
+   *
+   * @param word the buffer that holds the word
+   * @param wordLength the length of the word
+   * @param stem the buffer that holds the stem
+   * @param stemLength the length of the stem
+   */
+  public void put(final char[] word, final int wordLength,
+                  final char[] stem, final int stemLength) {
+    if(wordLength == 0 || wordLength > MAX_TERM_LENGTH ||
+       stemLength > MAX_TERM_LENGTH)
+      return;
+
+    int slot = slot(word, wordLength);
+    int offset = slot * MAX_TERM_LENGTH;
+
+    System.arraycopy(word, 0, this.words, offset, wordLength);
+    System.arraycopy(stem, 0, this.stems, offset, stemLength);
+    this.wordLengths[slot] = (byte) wordLength;
+    this.stemLengths[slot] = (byte) stemLength;
+  }
+
+  /**
+   * Removes all the cached stems. The counters are kept.
+   */
+  public void clear() {
+    Arrays.fill(this.wordLengths, (byte) 0);
+  }
+
+  /**
+   * Gets the number of entries of the cache.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return this.mask + 1;
+  }
+
+  public long hits() {
+    return this.hits;
+  }
+
+  public long misses() {
+    return this.misses;
+  }
+
+  private int slot(final char[] buffer, final int len) {
+    int hash = 0;
+
+    for(int i = 0; i < len; i++) {
+      hash = 31 * hash + buffer[i];
+    }
+
+    // Spread the high bits, since the mask keeps only the low ones
+    hash ^= (hash >>> 16);
+
+    return hash & this.mask;
+  }
+
+  private boolean equals(final char[] buffer, final int len, final int offset) {
+    for(int i = 0; i < len; i++) {
+      if(this.words[offset + i] != buffer[i])
+        return false;
+    }
+
+    return true;
+  }
+}
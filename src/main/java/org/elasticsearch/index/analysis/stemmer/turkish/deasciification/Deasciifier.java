@@ -0,0 +1,304 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.deasciification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.CharArrayMap;
+import org.apache.lucene.analysis.CharArraySet;
+import org.elasticsearch.index.analysis.stemmer.turkish.CharClasses;
+
+/**
+ * Restores the Turkish letters of words that were typed with their ASCII
+ * counterparts, guided by a set of known stems.
+ *
+ * Every known stem with a letter of {@link #TURKISH_LETTERS} is kept under its
+ * ASCII spelling, along with its form before a suffix that starts with a
+ * vowel, in which a final p, ç, t or k becomes b, c, d or ğ. A word that
+ * starts with such a spelling gets the Turkish letters of the stem, while the
+ * letters of its suffixes follow the vowel harmony and the consonants before
+ * them. The variant is only kept if it stems to a known stem, which the
+ * stemmer checks.
+ *
+ * The hashes of the ASCII spellings are also kept in a small bitset, so that
+ * a word is checked against all the spellings in a single pass over its
+ * letters, and most words do not look up the spellings at all.
+ *
+ * A deasciifier is immutable and thread-safe.
+ */
+public final class Deasciifier {
+
+  /**
+   * The default maximum number of variants tried for a word.
+   */
+  public static final int DEFAULT_MAX_VARIANTS = 4;
+  /**
+   * The letters that are typed as their ASCII counterparts, which are the
+   * letters of {@link #ASCII_LETTERS} at the same positions.
+   */
+  public static final String TURKISH_LETTERS = "çşğöüı";
+  public static final String ASCII_LETTERS   = "csgoui";
+
+  /**
+   * The consonants after which a suffix starts with ç instead of c.
+   */
+  private static final String VOICELESS_CONSONANTS = "fstkçşhp";
+  private static final String VOICED_CONSONANTS    = "bcdğ";
+  private static final String SOFTENED_CONSONANTS  = "pçtk";
+
+  private static final int BITS_PER_SPELLING = 8;
+
+  private final CharArraySet stems;
+  /**
+   * The Turkish spellings of the known stems by their ASCII spelling.
+   */
+  private final CharArrayMap<char[][]> spellings;
+  /**
+   * The bits of the hashes of the ASCII spellings.
+   */
+  private final long[] hashes;
+  private final int minLength;
+  private final int maxLength;
+  private final int maxVariants;
+
+  /**
+   * Creates a deasciifier.
+   *
+   * @param stems the known stems, in their Turkish spelling
+   * @param maxVariants the maximum number of variants tried for a word
+   */
+  public Deasciifier(final CharArraySet stems, final int maxVariants) {
+    if(maxVariants <= 0) {
+      throw new IllegalArgumentException("Invalid maximum number of variants: " + maxVariants);
+    }
+
+    CharArrayMap<List<char[]>> spellings = new CharArrayMap<List<char[]>>(stems.size(), false);
+    int minLength = Integer.MAX_VALUE;
+    int maxLength = 0;
+
+    for(Object entry : stems) {
+      char[] stem = (char[]) entry;
+
+      if(!hasTurkishLetter(stem, stem.length))
+        continue;
+
+      add(spellings, stem);
+
+      int last = SOFTENED_CONSONANTS.indexOf(stem[stem.length - 1]);
+
+      if(last >= 0) {
+        char[] voiced = stem.clone();
+        voiced[voiced.length - 1] = VOICED_CONSONANTS.charAt(last);
+        add(spellings, voiced);
+      }
+
+      minLength = Math.min(minLength, stem.length);
+      maxLength = Math.max(maxLength, stem.length);
+    }
+
+    int bits = Math.max(Long.SIZE, Integer.highestOneBit(
+        Math.max(1, spellings.size() * BITS_PER_SPELLING - 1)) << 1);
+
+    this.stems = stems;
+    this.spellings = new CharArrayMap<char[][]>(spellings.size(), false);
+    this.hashes = new long[bits / Long.SIZE];
+    this.minLength = minLength;
+    this.maxLength = maxLength;
+    this.maxVariants = maxVariants;
+
+    for(CharArrayMap<List<char[]>>.EntryIterator i = spellings.entrySet().iterator(); i.hasNext();) {
+      char[] ascii = i.nextKey();
+      List<char[]> turkish = i.currentValue();
+      int hash = 0;
+
+      for(char c : ascii) {
+        hash = 31 * hash + c;
+      }
+
+      this.hashes[hashIndex(hash)] |= 1L << mix(hash);
+      this.spellings.put(ascii, turkish.toArray(new char[turkish.size()][]));
+    }
+  }
+
+  private static void add(final CharArrayMap<List<char[]>> spellings,
+                          final char[] turkish) {
+    char[] ascii = fold(turkish);
+    List<char[]> list = spellings.get(ascii, 0, ascii.length);
+
+    if(list == null) {
+      list = new ArrayList<char[]>(1);
+      spellings.put(ascii, list);
+    }
+
+    list.add(turkish);
+  }
+
+  /**
+   * Replaces the Turkish letters of a word with their ASCII counterparts.
+   *
+   * @param word the word
+   * @return the ASCII spelling of the word
+   */
+  public static char[] fold(final char[] word) {
+    char[] folded = word.clone();
+
+    for(int i = 0; i < folded.length; i++) {
+      int letter = TURKISH_LETTERS.indexOf(folded[i]);
+
+      if(letter >= 0)
+        folded[i] = ASCII_LETTERS.charAt(letter);
+    }
+
+    return folded;
+  }
+
+  private static boolean hasTurkishLetter(final char[] word, final int len) {
+    for(int i = 0; i < len; i++) {
+      if(TURKISH_LETTERS.indexOf(word[i]) >= 0)
+        return true;
+    }
+
+    return false;
+  }
+
+  private static int mix(final int hash) {
+    return hash * 0x9E3779B9 >>> 7;
+  }
+
+  private int hashIndex(final int hash) {
+    return mix(hash) >>> 6 & (this.hashes.length - 1);
+  }
+
+  private boolean mayContain(final int hash) {
+    return (this.hashes[hashIndex(hash)] & 1L << mix(hash)) != 0;
+  }
+
+  /**
+   * Gets the known stems.
+   *
+   * @return the stems
+   */
+  public CharArraySet stems() {
+    return this.stems;
+  }
+
+  /**
+   * Gets the maximum number of variants tried for a word.
+   *
+   * @return the maximum number of variants
+   */
+  public int maxVariants() {
+    return this.maxVariants;
+  }
+
+  /**
+   * Checks whether the first characters of a buffer are a known stem.
+   *
+   * @param word an array with the characters of the stem
+   * @param len the length of the stem
+   * @return whether the stem is known
+   */
+  public boolean known(final char[] word, final int len) {
+    return this.stems.contains(word, 0, len);
+  }
+
+  /**
+   * Finds the lengths of the prefixes of a word that are the ASCII spelling
+   * of a known stem. A word with a Turkish letter was not typed in ASCII, so
+   * it has none.
+   *
+   * @param word an array with the characters of the word
+   * @param len the length of the word
+   * @param lengths the array to write the lengths to, shortest first, which
+   * holds at least the length of the word
+   * @return the number of prefixes
+   */
+  public int prefixes(final char[] word, final int len, final int[] lengths) {
+    int end = Math.min(len, this.maxLength);
+    int hash = 0;
+    int count = 0;
+
+    for(int i = 0; i < len; i++) {
+      char c = word[i];
+
+      if(c >= 'ç' && TURKISH_LETTERS.indexOf(c) >= 0)
+        return 0;
+
+      if(i >= end)
+        continue;
+
+      hash = 31 * hash + c;
+
+      if(i + 1 >= this.minLength && mayContain(hash) &&
+          this.spellings.containsKey(word, 0, i + 1))
+        lengths[count++] = i + 1;
+    }
+
+    return count;
+  }
+
+  /**
+   * Gets the Turkish spellings of a prefix of a word that was found by
+   * {@link #prefixes(char[], int, int[])}.
+   *
+   * @param word an array with the characters of the word
+   * @param len the length of the prefix
+   * @return the spellings
+   */
+  public char[][] spellings(final char[] word, final int len) {
+    return this.spellings.get(word, 0, len);
+  }
+
+  /**
+   * Writes a variant of a word with the given spelling of its prefix, and
+   * the Turkish letters of the rest of the word as its suffixes would have
+   * them: i and u follow the frontness of the vowel before them, g between
+   * a vowel and another letter becomes ğ, and c after a voiceless consonant
+   * becomes ç.
+   *
+   * @param word an array with the characters of the word
+   * @param len the length of the word
+   * @param spelling the Turkish spelling of the prefix
+   * @param variant the array to write the variant to, which holds at least
+   * the length of the word
+   */
+  public static void variant(final char[] word, final int len,
+                             final char[] spelling, final char[] variant) {
+    char lastVowel = 0;
+
+    System.arraycopy(spelling, 0, variant, 0, spelling.length);
+
+    for(int i = 0; i < spelling.length; i++) {
+      if(CharClasses.is(spelling[i], CharClasses.VOWEL))
+        lastVowel = spelling[i];
+    }
+
+    for(int i = spelling.length; i < len; i++) {
+      char c = word[i];
+      char previous = variant[i - 1];
+
+      switch(c) {
+        case 'i':
+          if(CharClasses.is(lastVowel, CharClasses.BACK))
+            c = 'ı';
+          break;
+        case 'u':
+          if(CharClasses.is(lastVowel, CharClasses.FRONT))
+            c = 'ü';
+          break;
+        case 'g':
+          if(i + 1 < len && CharClasses.is(previous, CharClasses.VOWEL))
+            c = 'ğ';
+          break;
+        case 'c':
+          if(VOICELESS_CONSONANTS.indexOf(previous) >= 0)
+            c = 'ç';
+          break;
+      }
+
+      if(CharClasses.is(c, CharClasses.VOWEL))
+        lastVowel = c;
+
+      variant[i] = c;
+    }
+  }
+}
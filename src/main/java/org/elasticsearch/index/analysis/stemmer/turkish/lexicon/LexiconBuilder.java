@@ -0,0 +1,167 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.lexicon;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.util.WordlistLoader;
+import org.elasticsearch.index.analysis.TurkishStemmer;
+import org.elasticsearch.index.analysis.stemmer.turkish.deasciification.Deasciifier;
+
+/**
+ * Builds a {@link StemLexicon} file by stemming every word of a word list.
+ *
+ * Usage:
+ *
+ * <pre>
+ * java -cp ... org.elasticsearch.index.analysis.stemmer.turkish.lexicon.LexiconBuilder \
+ *     [--protected_words_path file] [--vowel_harmony_exceptions_path file] \
+ *     [--last_consonant_exceptions_path file] \
+ *     [--average_stem_size_exceptions_path file] [--deasciify_stems_path file] \
+ *     [--max_deasciify_variants n] [--max_token_length n] [--max_transitions n] \
+ *     [--correct_mistypes true|false] words.txt lexicon.fst
+ * </pre>
+ *
+ * The word list has a word per line. The options must be the settings of
+ * the filters that will use the lexicon, and default to the ones of the
+ * filter. The lexicon records the fingerprint of its stemmer, and a filter
+ * with other word lists or settings rejects it.
+ */
+public final class LexiconBuilder {
+
+  private LexiconBuilder() {
+  }
+
+  public static void main(final String[] args) throws IOException {
+    CharArraySet protectedWords = TurkishStemmer.getDefaultProtectedWordSet();
+    CharArraySet vowelHarmonyExceptions = TurkishStemmer.getDefaultVowelHarmonySet();
+    CharArraySet lastConsonantExceptions = TurkishStemmer.getDefaultLastConsonantSet();
+    CharArraySet averageStemSizeExceptions = TurkishStemmer.getDefaultAverageStemSizeSet();
+    CharArraySet deasciifyStems = null;
+    int maxDeasciifyVariants = Deasciifier.DEFAULT_MAX_VARIANTS;
+    TurkishStemmer.Builder builder = TurkishStemmer.builder();
+    int i = 0;
+
+    for(; i + 1 < args.length && args[i].startsWith("--"); i += 2) {
+      String value = args[i + 1];
+
+      switch(args[i]) {
+        case "--protected_words_path":
+          protectedWords = loadWordSet(Paths.get(value));
+          break;
+        case "--vowel_harmony_exceptions_path":
+          vowelHarmonyExceptions = loadWordSet(Paths.get(value));
+          break;
+        case "--last_consonant_exceptions_path":
+          lastConsonantExceptions = loadWordSet(Paths.get(value));
+          break;
+        case "--average_stem_size_exceptions_path":
+          averageStemSizeExceptions = loadWordSet(Paths.get(value));
+          break;
+        case "--deasciify_stems_path":
+          deasciifyStems = loadWordSet(Paths.get(value));
+          break;
+        case "--max_deasciify_variants":
+          maxDeasciifyVariants = parseInt(args[i], value);
+          break;
+        case "--max_token_length":
+          builder.maxTokenLength(parseInt(args[i], value));
+          break;
+        case "--max_transitions":
+          builder.maxTransitions(parseInt(args[i], value));
+          break;
+        case "--correct_mistypes":
+          builder.correctMistypes(Boolean.parseBoolean(value));
+          break;
+        default:
+          usage("Unknown option " + args[i]);
+      }
+    }
+
+    if(args.length - i != 2) {
+      usage("Expected a word list and a lexicon file");
+    }
+
+    TurkishStemmer stemmer = builder
+        .protectedWords(protectedWords)
+        .vowelHarmonyExceptions(vowelHarmonyExceptions)
+        .lastConsonantExceptions(lastConsonantExceptions)
+        .averageStemSizeExceptions(averageStemSizeExceptions)
+        .deasciifier(deasciifyStems == null ? null :
+            new Deasciifier(deasciifyStems, maxDeasciifyVariants))
+        .build();
+    Path output = Paths.get(args[i + 1]);
+    StemLexicon.Writer writer = build(stemmer, Paths.get(args[i]));
+
+    writer.write(output);
+
+    System.out.println(String.format(Locale.ROOT,
+        "Wrote %s, skipped %d words", output, writer.skipped()));
+  }
+
+  /**
+   * Stems the distinct words of a word list in sorted order.
+   *
+   * @param stemmer the stemmer to use
+   * @param words the path of the word list
+   * @return a writer with the stemmed words and the fingerprint of the
+   * stemmer
+   * @throws IOException if reading the word list fails
+   */
+  public static StemLexicon.Writer build(final TurkishStemmer stemmer,
+                                         final Path words) throws IOException {
+    SortedSet<String> sorted = new TreeSet<String>();
+
+    try(BufferedReader reader = Files.newBufferedReader(words, StandardCharsets.UTF_8)) {
+      String line;
+
+      while((line = reader.readLine()) != null) {
+        line = line.trim();
+        if(!line.isEmpty())
+          sorted.add(line);
+      }
+    }
+
+    StemLexicon.Writer writer = StemLexicon.writer(stemmer.fingerprint());
+
+    for(String word : sorted) {
+      writer.add(word, stemmer.stem(word.toCharArray(), word.length(), 0));
+    }
+
+    return writer;
+  }
+
+  private static CharArraySet loadWordSet(final Path path) throws IOException {
+    try(Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      return WordlistLoader.getWordSet(reader, "#");
+    }
+  }
+
+  private static int parseInt(final String option, final String value) {
+    try {
+      return Integer.parseInt(value);
+    } catch(NumberFormatException e) {
+      usage("Expected a number for " + option + ", got " + value);
+      return 0;
+    }
+  }
+
+  private static void usage(final String message) {
+    System.err.println(message);
+    System.err.println("Usage: LexiconBuilder [--protected_words_path file] " +
+        "[--vowel_harmony_exceptions_path file] " +
+        "[--last_consonant_exceptions_path file] " +
+        "[--average_stem_size_exceptions_path file] [--deasciify_stems_path file] " +
+        "[--max_deasciify_variants n] [--max_token_length n] [--max_transitions n] " +
+        "[--correct_mistypes true|false] words.txt lexicon.fst");
+    System.exit(1);
+  }
+}
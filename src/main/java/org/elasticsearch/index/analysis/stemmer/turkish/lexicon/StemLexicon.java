@@ -0,0 +1,267 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.lexicon;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.util.IntsRefBuilder;
+import org.apache.lucene.util.fst.Builder;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.PositiveIntOutputs;
+import org.apache.lucene.util.fst.Util;
+
+/**
+ * A precomputed mapping of words to their stems, stored as an FST.
+ *
+ * A stem differs from its word at most in its last letter, so the output of
+ * a word is the length of the prefix it shares with its stem, shifted left by
+ * 16 bits, plus the last letter of the stem when it is not part of that
+ * prefix.
+ *
+ * The header of the file holds the fingerprint of the stemmer that built it,
+ * as the stems are only right for stemmers with the same word lists and
+ * settings.
+ */
+public final class StemLexicon {
+
+  static final String CODEC_NAME = "turkish_stemmer_lexicon";
+  static final int VERSION_START = 0;
+  static final int VERSION_FINGERPRINT = 1;
+  static final int VERSION_CURRENT = VERSION_FINGERPRINT;
+
+  private final FST<Long> fst;
+  private final long fingerprint;
+  private final long checksum;
+
+  private StemLexicon(final FST<Long> fst, final long fingerprint,
+                      final long checksum) {
+    this.fst = fst;
+    this.fingerprint = fingerprint;
+    this.checksum = checksum;
+  }
+
+  /**
+   * Loads a lexicon file.
+   *
+   * @param path the path of the file
+   * @return the lexicon
+   * @throws IOException if the file cannot be read, is corrupt or was built
+   * without the fingerprint of its stemmer
+   */
+  public static StemLexicon open(final Path path) throws IOException {
+    try(Directory directory = new MMapDirectory(path.toAbsolutePath().getParent());
+        ChecksumIndexInput input = directory.openChecksumInput(
+            path.getFileName().toString(), IOContext.READONCE)) {
+
+      CodecUtil.checkHeader(input, CODEC_NAME, VERSION_FINGERPRINT, VERSION_CURRENT);
+      long fingerprint = input.readLong();
+      FST<Long> fst = new FST<Long>(input, PositiveIntOutputs.getSingleton());
+      long checksum = CodecUtil.checkFooter(input);
+
+      return new StemLexicon(fst, fingerprint, checksum);
+    }
+  }
+
+  /**
+   * Creates a builder of a lexicon.
+   *
+   * @param fingerprint the fingerprint of the stemmer that finds the stems
+   * @return a new builder
+   */
+  public static Writer writer(final long fingerprint) {
+    return new Writer(fingerprint);
+  }
+
+  /**
+   * Gets the fingerprint of the stemmer that built the lexicon, which must
+   * be the one of the stemmers that use it.
+   *
+   * @return the fingerprint
+   */
+  public long fingerprint() {
+    return this.fingerprint;
+  }
+
+  /**
+   * Gets the checksum of the lexicon file, which identifies its contents.
+   *
+   * @return the checksum
+   */
+  public long checksum() {
+    return this.checksum;
+  }
+
+  /**
+   * Gets the memory of the lexicon.
+   *
+   * @return the bytes of the FST
+   */
+  public long ramBytesUsed() {
+    return this.fst.ramBytesUsed();
+  }
+
+  /**
+   * Creates a lookup, which holds the reusable state of the lookups of a
+   * token stream.
+   *
+   * @return a new lookup, which is not thread-safe
+   */
+  public Lookup lookup() {
+    return new Lookup();
+  }
+
+  /**
+   * Encodes the stem of a word as an output of the FST.
+   *
+   * @return the output, or -1 if the stem does not fit the encoding
+   */
+  static long encode(final CharSequence word, final CharSequence stem) {
+    int prefix = 0;
+
+    while(prefix < stem.length() && prefix < word.length() &&
+          stem.charAt(prefix) == word.charAt(prefix))
+      prefix++;
+
+    if(prefix == stem.length())
+      return (long) prefix << 16;
+
+    if(prefix == stem.length() - 1 && stem.charAt(prefix) != 0)
+      return ((long) prefix << 16) | stem.charAt(prefix);
+
+    return -1;
+  }
+
+  /**
+   * Looks up stems in the lexicon without allocating.
+   */
+  public final class Lookup {
+    private final FST.Arc<Long> arc = new FST.Arc<Long>();
+    private final FST.BytesReader reader = fst.getBytesReader();
+
+    private Lookup() {
+    }
+
+    /**
+     * Finds the stem of the word held in the first characters of a buffer.
+     * If the word is found its stem replaces it in the buffer.
+     *
+     * @param buffer the buffer that holds the word
+     * @param len the length of the word
+     * @return the length of the stem, or -1 if the word is not in the lexicon
+     * @throws IOException if reading the FST fails
+     */
+    public int stem(final char[] buffer, final int len) throws IOException {
+      long output = 0;
+
+      fst.getFirstArc(this.arc);
+
+      for(int i = 0; i < len; i++) {
+        if(fst.findTargetArc(buffer[i], this.arc, this.arc, this.reader) == null)
+          return -1;
+
+        output += this.arc.output;
+      }
+
+      if(!this.arc.isFinal())
+        return -1;
+
+      output += this.arc.nextFinalOutput;
+
+      int prefix = (int) (output >>> 16);
+      char last = (char) (output & 0xFFFF);
+
+      if(last == 0)
+        return prefix;
+
+      buffer[prefix] = last;
+
+      return prefix + 1;
+    }
+  }
+
+  /**
+   * Builds a lexicon from words added in sorted order.
+   */
+  public static final class Writer {
+    private final Builder<Long> builder = new Builder<Long>(FST.INPUT_TYPE.BYTE2,
+        PositiveIntOutputs.getSingleton());
+    private final IntsRefBuilder scratch = new IntsRefBuilder();
+    private final long fingerprint;
+    private String previous;
+    private long skipped;
+
+    private Writer(final long fingerprint) {
+      this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Adds a word along with its stem.
+     *
+     * @param word the word, which must come after the previously added one
+     * @param stem the stem of the word
+     * @return whether the word was added, which is false for stems that do not
+     * fit the encoding
+     * @throws IOException if building the FST fails
+     */
+    public boolean add(final String word, final String stem) throws IOException {
+      if(this.previous != null && this.previous.compareTo(word) >= 0) {
+        throw new IllegalArgumentException("Words must be added in sorted order, got [" +
+            word + "] after [" + this.previous + "]");
+      }
+
+      long output = encode(word, stem);
+
+      if(output < 0) {
+        this.skipped++;
+        return false;
+      }
+
+      this.builder.add(Util.toUTF16(word, this.scratch), output);
+      this.previous = word;
+
+      return true;
+    }
+
+    /**
+     * Gets the number of words that were not added.
+     *
+     * @return the number of skipped words
+     */
+    public long skipped() {
+      return this.skipped;
+    }
+
+    /**
+     * Writes the lexicon to a file.
+     *
+     * @param path the path of the file
+     * @throws IOException if writing fails
+     */
+    public void write(final Path path) throws IOException {
+      FST<Long> fst = this.builder.finish();
+
+      if(fst == null) {
+        throw new IllegalStateException("The lexicon has no words");
+      }
+
+      Files.deleteIfExists(path);
+
+      try(Directory directory = new NIOFSDirectory(path.toAbsolutePath().getParent());
+          IndexOutput output = directory.createOutput(
+              path.getFileName().toString(), IOContext.DEFAULT)) {
+
+        CodecUtil.writeHeader(output, CODEC_NAME, VERSION_CURRENT);
+        output.writeLong(this.fingerprint);
+        fst.save(output);
+        CodecUtil.writeFooter(output);
+      }
+    }
+  }
+}
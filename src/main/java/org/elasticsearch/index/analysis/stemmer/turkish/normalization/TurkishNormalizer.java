@@ -0,0 +1,89 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.normalization;
+
+/**
+ * Lowercases a term by the rules of Turkish and strips the suffixes after its
+ * apostrophe, in a single pass over its characters.
+ *
+ * The term comes out as it would from a Turkish lowercase filter followed by
+ * an apostrophe filter: I becomes ı, İ and I followed by a combining dot above
+ * become i, the other characters are lowercased as usual, and the term ends
+ * before its first ' or ’.
+ */
+public final class TurkishNormalizer {
+
+  private static final char LATIN_CAPITAL_LETTER_I = 'I';
+  private static final char LATIN_SMALL_LETTER_I = 'i';
+  private static final char LATIN_SMALL_LETTER_DOTLESS_I = 'ı';
+  private static final char COMBINING_DOT_ABOVE = '\u0307';
+  private static final char APOSTROPHE = '\'';
+  private static final char RIGHT_SINGLE_QUOTATION_MARK = '\u2019';
+
+  private TurkishNormalizer() {
+  }
+
+  /**
+   * Normalizes the first characters of a buffer in place.
+   *
+   * @param buffer an array with the characters of the term
+   * @param len the length of the term
+   * @return the length of the normalized term, which is never longer
+   */
+  public static int normalize(final char[] buffer, final int len) {
+    // Whether the character follows an I through non-spacing marks only
+    boolean afterI = false;
+    int end = 0;
+    int i = 0;
+
+    while(i < len) {
+      int c = Character.codePointAt(buffer, i, len);
+
+      if(c == APOSTROPHE || c == RIGHT_SINGLE_QUOTATION_MARK)
+        break;
+
+      afterI = c == LATIN_CAPITAL_LETTER_I ||
+          (afterI && Character.getType(c) == Character.NON_SPACING_MARK);
+
+      if(afterI && c == COMBINING_DOT_ABOVE) {
+        i++;
+        continue;
+      }
+
+      if(c == LATIN_CAPITAL_LETTER_I) {
+        if(isBeforeDot(buffer, i + 1, len)) {
+          buffer[end++] = LATIN_SMALL_LETTER_I;
+        } else {
+          buffer[end++] = LATIN_SMALL_LETTER_DOTLESS_I;
+          afterI = false;
+        }
+
+        i++;
+        continue;
+      }
+
+      i += Character.charCount(c);
+      end += Character.toChars(Character.toLowerCase(c), buffer, end);
+    }
+
+    return end;
+  }
+
+  /**
+   * Checks whether the non-spacing marks from a position of a buffer include
+   * a combining dot above.
+   */
+  private static boolean isBeforeDot(final char[] buffer, final int from,
+                                     final int len) {
+    for(int i = from; i < len;) {
+      int c = Character.codePointAt(buffer, i, len);
+
+      if(Character.getType(c) != Character.NON_SPACING_MARK)
+        return false;
+      if(c == COMBINING_DOT_ABOVE)
+        return true;
+
+      i += Character.charCount(c);
+    }
+
+    return false;
+  }
+}
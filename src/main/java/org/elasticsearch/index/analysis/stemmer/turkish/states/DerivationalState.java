@@ -65,6 +65,10 @@ public enum DerivationalState implements State {
     return null;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
   public EnumSet<DerivationalSuffix> suffixes() {
     return this.suffixes;
   }
@@ -156,6 +156,10 @@ public enum NominalVerbState implements State {
     return this.finalState;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
   public EnumSet<NominalVerbSuffix> suffixes() {
     return this.suffixes;
   }
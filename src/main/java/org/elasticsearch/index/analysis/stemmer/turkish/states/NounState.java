@@ -237,6 +237,10 @@ public enum NounState implements State {
     return null;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
   public EnumSet<NounSuffix> suffixes() {
     return this.suffixes;
   }
@@ -1,6 +1,7 @@
 package org.elasticsearch.index.analysis.stemmer.turkish.states;
 
 import java.util.List;
+import java.util.Set;
 
 import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.Suffix;
 import org.elasticsearch.index.analysis.stemmer.turkish.transitions.Transition;
@@ -28,6 +29,12 @@ public interface State {
    * @param marked whether to mark the transitions as marked
    */
   void addTransitions(String word, List<Transition> transitions, boolean marked);
+  /**
+   * Gets the suffixes that lead from the current state to other states.
+   *
+   * @return the suffixes of the state
+   */
+  Set<? extends Suffix> suffixes();
 
   public abstract State nextState(Suffix suffix);
 
@@ -0,0 +1,179 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.states;
+
+import java.util.Arrays;
+
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.DerivationalSuffix;
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.NominalVerbSuffix;
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.NounSuffix;
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.Suffix;
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.SuffixMatcher;
+import org.elasticsearch.index.analysis.stemmer.turkish.transitions.TransitionQueue;
+
+/**
+ * A state machine compiled into primitive tables.
+ *
+ * States and suffixes are identified by their ordinals. Every distinct pair of
+ * a start and a next state is an edge with a dense id, which is what the
+ * {@link TransitionQueue} uses to mark and remove similar transitions.
+ */
+public final class StateMachine {
+
+  public static final StateMachine NOMINAL_VERB = new StateMachine("NominalVerb",
+      NominalVerbState.values(), NominalVerbSuffix.matcher());
+
+  public static final StateMachine NOUN = new StateMachine("Noun",
+      NounState.values(), NounSuffix.matcher());
+
+  public static final StateMachine DERIVATIONAL = new StateMachine("Derivational",
+      DerivationalState.values(), DerivationalSuffix.matcher());
+
+  private final String name;
+  private final State[] states;
+  private final SuffixMatcher matcher;
+  private final int suffixCount;
+  private final byte initialState;
+  private final boolean[] finalStates;
+  /**
+   * The suffixes of each state as a bit set of suffix ids.
+   */
+  private final long[] stateSuffixes;
+  /**
+   * The edge of each state and suffix pair, at {@code state * suffixCount +
+   * suffix}, or -1 when the state has no such suffix.
+   */
+  private final byte[] edges;
+  private final byte[] edgeStartStates;
+  private final byte[] edgeNextStates;
+
+  private StateMachine(final String name,
+                       final State[] states,
+                       final SuffixMatcher matcher) {
+    this.name = name;
+    this.states = states;
+    this.matcher = matcher;
+    this.suffixCount = matcher.size();
+    this.finalStates = new boolean[states.length];
+    this.stateSuffixes = new long[states.length];
+    this.edges = new byte[states.length * this.suffixCount];
+
+    byte[] edgeStartStates = new byte[TransitionQueue.MAX_EDGES];
+    byte[] edgeNextStates = new byte[TransitionQueue.MAX_EDGES];
+    int edgeCount = 0;
+    int initialState = -1;
+
+    Arrays.fill(this.edges, (byte) -1);
+
+    for(int state = 0; state < states.length; state++) {
+      if(states[state].initialState() && initialState < 0)
+        initialState = state;
+
+      this.finalStates[state] = states[state].finalState();
+
+      for(int suffix = 0; suffix < this.suffixCount; suffix++) {
+        Suffix candidate = matcher.suffix(suffix);
+
+        if(!states[state].suffixes().contains(candidate))
+          continue;
+
+        int nextState = indexOf(states, states[state].nextState(candidate));
+        int edge = 0;
+
+        while(edge < edgeCount && (edgeStartStates[edge] != state ||
+                                   edgeNextStates[edge] != nextState))
+          edge++;
+
+        if(edge == edgeCount) {
+          if(edgeCount == TransitionQueue.MAX_EDGES) {
+            throw new IllegalStateException("Too many edges in " + name);
+          }
+
+          edgeStartStates[edge] = (byte) state;
+          edgeNextStates[edge] = (byte) nextState;
+          edgeCount++;
+        }
+
+        this.stateSuffixes[state] |= 1L << suffix;
+        this.edges[state * this.suffixCount + suffix] = (byte) edge;
+      }
+    }
+
+    this.initialState = (byte) initialState;
+    this.edgeStartStates = Arrays.copyOf(edgeStartStates, edgeCount);
+    this.edgeNextStates = Arrays.copyOf(edgeNextStates, edgeCount);
+  }
+
+  private static int indexOf(final State[] states, final State state) {
+    for(int i = 0; i < states.length; i++) {
+      if(states[i] == state)
+        return i;
+    }
+
+    throw new IllegalStateException("Unknown state: " + state);
+  }
+
+  /**
+   * Gets the name of the state machine.
+   *
+   * @return the name
+   */
+  public String name() {
+    return this.name;
+  }
+
+  public byte initialState() {
+    return this.initialState;
+  }
+
+  public boolean finalState(final byte state) {
+    return this.finalStates[state];
+  }
+
+  public State state(final byte state) {
+    return this.states[state];
+  }
+
+  public Suffix suffix(final byte suffix) {
+    return this.matcher.suffix(suffix);
+  }
+
+  public int edgeCount() {
+    return this.edgeStartStates.length;
+  }
+
+  public byte startState(final byte edge) {
+    return this.edgeStartStates[edge];
+  }
+
+  public byte nextState(final byte edge) {
+    return this.edgeNextStates[edge];
+  }
+
+  /**
+   * Adds the transitions from a state about the first characters of a buffer
+   * to a queue, in the order of the suffix priority.
+   *
+   * @param state the state to add transitions from
+   * @param word the buffer that holds the word
+   * @param len the length of the word
+   * @param transitions the queue to add transitions to
+   */
+  public void addTransitions(final byte state,
+                             final char[] word,
+                             final int len,
+                             final TransitionQueue transitions) {
+
+    long matches = this.matcher.match(word, len) & this.stateSuffixes[state];
+    int offset = state * this.suffixCount;
+
+    while(matches != 0) {
+      int suffix = Long.numberOfTrailingZeros(matches);
+      transitions.add(this.edges[offset + suffix], suffix, len);
+      matches &= matches - 1;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.name;
+  }
+}
@@ -0,0 +1,288 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.stats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.SkipReason;
+
+/**
+ * The counters of the tokens of a filter.
+ *
+ * The counters are striped, and the token streams do not even touch them per
+ * token: each stream counts into its own {@link Recorder} and adds its counts
+ * to the shared counters once it ends.
+ *
+ * The latency of the stemmer is sampled once every {@link #LATENCY_SAMPLING}
+ * runs, into buckets whose bounds are powers of two of nanoseconds.
+ */
+public final class StemmerStats {
+
+  /**
+   * The number of runs of the stemmer per latency sample.
+   */
+  public static final int LATENCY_SAMPLING = 16;
+  /**
+   * The number of latency buckets, the last of which has no upper bound.
+   */
+  public static final int LATENCY_BUCKETS = 16;
+  /**
+   * The upper bound of the first bucket is 2^8 = 256 nanoseconds.
+   */
+  private static final int FIRST_BUCKET_SHIFT = 8;
+
+  private final LongAdder tokens = new LongAdder();
+  private final LongAdder keywords = new LongAdder();
+  private final LongAdder stemmed = new LongAdder();
+  private final LongAdder truncated = new LongAdder();
+  private final LongAdder cacheHits = new LongAdder();
+  private final LongAdder cacheMisses = new LongAdder();
+  private final LongAdder lexiconHits = new LongAdder();
+  private final LongAdder lexiconMisses = new LongAdder();
+  private final LongAdder[] skipped = adders(SkipReason.values().length);
+  private final LongAdder[] latencies = adders(LATENCY_BUCKETS);
+
+  private static LongAdder[] adders(final int count) {
+    LongAdder[] adders = new LongAdder[count];
+
+    for(int i = 0; i < count; i++) {
+      adders[i] = new LongAdder();
+    }
+
+    return adders;
+  }
+
+  /**
+   * Creates a recorder for a token stream.
+   *
+   * @return a new recorder, which is not thread-safe
+   */
+  public Recorder recorder() {
+    return new Recorder();
+  }
+
+  /**
+   * Gets the number of tokens the filter has seen.
+   *
+   * @return the number of tokens
+   */
+  public long tokens() {
+    return this.tokens.sum();
+  }
+
+  /**
+   * Gets the number of tokens that were marked as keywords and left alone.
+   *
+   * @return the number of keywords
+   */
+  public long keywords() {
+    return this.keywords.sum();
+  }
+
+  /**
+   * Gets the number of tokens the stemmer ran its state machines on.
+   *
+   * @return the number of stemmed tokens
+   */
+  public long stemmed() {
+    return this.stemmed.sum();
+  }
+
+  /**
+   * Gets the number of stemmed tokens that ran out of transitions and got
+   * the best stem found until then.
+   *
+   * @return the number of truncated tokens
+   */
+  public long truncated() {
+    return this.truncated.sum();
+  }
+
+  /**
+   * Gets the number of tokens the stemmer skipped for a reason.
+   *
+   * @param reason the reason
+   * @return the number of skipped tokens
+   */
+  public long skipped(final SkipReason reason) {
+    return this.skipped[reason.ordinal()].sum();
+  }
+
+  /**
+   * Gets the number of tokens whose stems were found in the cache of the
+   * stream or the cache of the node.
+   *
+   * @return the number of hits
+   */
+  public long cacheHits() {
+    return this.cacheHits.sum();
+  }
+
+  /**
+   * Gets the number of tokens that were looked up in a cache and not found
+   * in any, whether they were then found in the lexicon or stemmed.
+   *
+   * @return the number of misses
+   */
+  public long cacheMisses() {
+    return this.cacheMisses.sum();
+  }
+
+  /**
+   * Gets the number of tokens whose stems were found in the lexicon.
+   *
+   * @return the number of hits
+   */
+  public long lexiconHits() {
+    return this.lexiconHits.sum();
+  }
+
+  /**
+   * Gets the number of tokens that were looked up in the lexicon and not
+   * found.
+   *
+   * @return the number of misses
+   */
+  public long lexiconMisses() {
+    return this.lexiconMisses.sum();
+  }
+
+  /**
+   * Gets the number of sampled runs of the stemmer in a latency bucket.
+   *
+   * @param bucket the index of the bucket
+   * @return the number of runs
+   */
+  public long latency(final int bucket) {
+    return this.latencies[bucket].sum();
+  }
+
+  /**
+   * Gets the upper bound of a latency bucket.
+   *
+   * @param bucket the index of the bucket
+   * @return the exclusive bound in nanoseconds, or {@link Long#MAX_VALUE}
+   */
+  public static long latencyBound(final int bucket) {
+    return bucket == LATENCY_BUCKETS - 1 ?
+        Long.MAX_VALUE : 1L << (FIRST_BUCKET_SHIFT + bucket);
+  }
+
+  /**
+   * Gets the bucket of a latency.
+   *
+   * @param nanos the latency in nanoseconds
+   * @return the index of the bucket
+   */
+  public static int latencyBucket(final long nanos) {
+    int bucket = 64 - Long.numberOfLeadingZeros(nanos) - FIRST_BUCKET_SHIFT;
+
+    return Math.max(0, Math.min(bucket, LATENCY_BUCKETS - 1));
+  }
+
+  /**
+   * The counts of a token stream that have not been added to the counters
+   * of the filter yet.
+   */
+  public final class Recorder {
+    private long tokens;
+    private long keywords;
+    private long stemmed;
+    private long truncated;
+    private long cacheHits;
+    private long cacheMisses;
+    private long lexiconHits;
+    private long lexiconMisses;
+    private final long[] skipped = new long[SkipReason.values().length];
+    private final long[] latencies = new long[LATENCY_BUCKETS];
+    private int runs;
+
+    private Recorder() {
+    }
+
+    public void token() {
+      this.tokens++;
+    }
+
+    public void keyword() {
+      this.keywords++;
+    }
+
+    public void stemmed() {
+      this.stemmed++;
+    }
+
+    public void truncated() {
+      this.truncated++;
+    }
+
+    public void skipped(final SkipReason reason) {
+      this.skipped[reason.ordinal()]++;
+    }
+
+    public void cacheHit() {
+      this.cacheHits++;
+    }
+
+    public void cacheMiss() {
+      this.cacheMisses++;
+    }
+
+    public void lexiconHit() {
+      this.lexiconHits++;
+    }
+
+    public void lexiconMiss() {
+      this.lexiconMisses++;
+    }
+
+    /**
+     * Checks whether the latency of the next run of the stemmer should be
+     * sampled.
+     *
+     * @return whether to sample the run
+     */
+    public boolean sampleLatency() {
+      return ++this.runs % LATENCY_SAMPLING == 0;
+    }
+
+    /**
+     * Records the latency of a sampled run of the stemmer.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void latency(final long nanos) {
+      this.latencies[latencyBucket(nanos)]++;
+    }
+
+    /**
+     * Adds the counts to the counters of the filter and clears them.
+     */
+    public void flush() {
+      add(StemmerStats.this.tokens, this.tokens);
+      add(StemmerStats.this.keywords, this.keywords);
+      add(StemmerStats.this.stemmed, this.stemmed);
+      add(StemmerStats.this.truncated, this.truncated);
+      add(StemmerStats.this.cacheHits, this.cacheHits);
+      add(StemmerStats.this.cacheMisses, this.cacheMisses);
+      add(StemmerStats.this.lexiconHits, this.lexiconHits);
+      add(StemmerStats.this.lexiconMisses, this.lexiconMisses);
+      this.tokens = this.keywords = this.stemmed = this.truncated = 0;
+      this.cacheHits = this.cacheMisses = 0;
+      this.lexiconHits = this.lexiconMisses = 0;
+
+      for(int i = 0; i < this.skipped.length; i++) {
+        add(StemmerStats.this.skipped[i], this.skipped[i]);
+        this.skipped[i] = 0;
+      }
+
+      for(int i = 0; i < this.latencies.length; i++) {
+        add(StemmerStats.this.latencies[i], this.latencies[i]);
+        this.latencies[i] = 0;
+      }
+    }
+
+    private void add(final LongAdder adder, final long count) {
+      if(count != 0)
+        adder.add(count);
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.stats;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The stats of the filters of a node, by index and filter name. The tokens
+ * the filters see while indexing and analyzing are counted apart from the
+ * words of the batches stemmed with them. The stats of an index are dropped
+ * when the index is removed from the node.
+ */
+public final class StemmerStatsRegistry {
+
+  private final ConcurrentMap<String, ConcurrentMap<String, StemmerStats>> indices =
+      new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, ConcurrentMap<String, StemmerStats>> batches =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Gets the stats of a filter, creating them if needed.
+   *
+   * @param index the name of the index
+   * @param filter the name of the filter
+   * @return the stats
+   */
+  public StemmerStats stats(final String index, final String filter) {
+    return stats(this.indices, index, filter);
+  }
+
+  /**
+   * Gets the stats of the batches stemmed with a filter, creating them if
+   * needed.
+   *
+   * @param index the name of the index
+   * @param filter the name of the filter
+   * @return the stats
+   */
+  public StemmerStats batchStats(final String index, final String filter) {
+    return stats(this.batches, index, filter);
+  }
+
+  /**
+   * Drops the stats of the filters of an index.
+   *
+   * @param index the name of the index
+   */
+  public void remove(final String index) {
+    this.indices.remove(index);
+    this.batches.remove(index);
+  }
+
+  /**
+   * Gets the stats of all the filters.
+   *
+   * @return the stats of the filters by index and filter name, both sorted
+   */
+  public Map<String, Map<String, StemmerStats>> indices() {
+    return sorted(this.indices);
+  }
+
+  /**
+   * Gets the stats of the batches stemmed with the filters.
+   *
+   * @return the stats of the batches by index and filter name, both sorted
+   */
+  public Map<String, Map<String, StemmerStats>> batches() {
+    return sorted(this.batches);
+  }
+
+  private static StemmerStats stats(
+      final ConcurrentMap<String, ConcurrentMap<String, StemmerStats>> indices,
+      final String index, final String filter) {
+    return indices.computeIfAbsent(index, i -> new ConcurrentHashMap<>())
+        .computeIfAbsent(filter, f -> new StemmerStats());
+  }
+
+  private static Map<String, Map<String, StemmerStats>> sorted(
+      final ConcurrentMap<String, ConcurrentMap<String, StemmerStats>> indices) {
+    Map<String, Map<String, StemmerStats>> sorted = new TreeMap<>();
+
+    for(Map.Entry<String, ConcurrentMap<String, StemmerStats>> index : indices.entrySet()) {
+      sorted.put(index.getKey(), Collections.unmodifiableMap(new TreeMap<>(index.getValue())));
+    }
+
+    return Collections.unmodifiableMap(sorted);
+  }
+}
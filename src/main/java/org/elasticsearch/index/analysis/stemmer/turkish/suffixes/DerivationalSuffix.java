@@ -1,48 +1,78 @@
 package org.elasticsearch.index.analysis.stemmer.turkish.suffixes;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 public enum DerivationalSuffix implements Suffix {
   S1  ("-lU", "lı|li|lu|lü", null, true);
 
-  private final String  name;
-  private final Pattern pattern;
+  private final String name;
+  private final String[] allomorphs;
   private final boolean optionalLetterCheck;
-  private final Pattern optionalLetterPattern;
+  private final String optionalLetters;
   private final boolean checkHarmony;
 
+  /**
+   * Matches all the suffixes of the enum at once. The index of a suffix in the
+   * matches is its ordinal, so the matches follow the suffix priority.
+   */
+  private static final SuffixMatcher matcher = new SuffixMatcher(values());
+
   private DerivationalSuffix(final String name,
                              final String pattern,
                              final String optionalLetter,
                              final boolean checkHarmony) {
+
     this.name = name;
-    this.pattern =  Pattern.compile("(" + pattern + ")$");
+    this.allomorphs = pattern.split("\\|");
     if (optionalLetter == null) {
       this.optionalLetterCheck = false;
-      this.optionalLetterPattern = null;
+      this.optionalLetters = null;
     } else {
       this.optionalLetterCheck = true;
-      this.optionalLetterPattern = Pattern.compile(optionalLetter);
+      this.optionalLetters = optionalLetter.replace("|", "");
     }
-
     this.checkHarmony = checkHarmony;
   }
 
-
-  private Matcher suffixMatcher(final String word) {
-    return this.pattern.matcher(word);
+  /**
+   * Gets the matcher of all the derivational suffixes.
+   *
+   * @return the suffix matcher
+   */
+  public static SuffixMatcher matcher() {
+    return matcher;
   }
 
   private boolean optionalLetterCheck() { return this.optionalLetterCheck; }
 
-
   /**
    * {@inheritDoc}
    */
   @Override
   public boolean match(final String word) {
-    return suffixMatcher(word).find();
+    return (matcher.match(word) & (1L << ordinal())) != 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean match(final char[] word, final int len) {
+    return (matcher.match(word, len) & (1L << ordinal())) != 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int length() {
+    return this.allomorphs[0].length();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String[] allomorphs() {
+    return this.allomorphs.clone();
   }
 
   /**
@@ -50,22 +80,42 @@ public enum DerivationalSuffix implements Suffix {
    */
   @Override
   public char optionalLetter(String word) {
-    if(optionalLetterCheck()) {
-      Matcher matcher = this.optionalLetterPattern.matcher(word);
+    if(optionalLetterCheck() && !word.isEmpty()
+        && this.optionalLetters.indexOf(word.charAt(word.length() - 1)) >= 0) {
+      return word.charAt(word.length() - 1);
+    }
 
-      if(matcher.find()) {
-        return matcher.group().charAt(0);
-      }
+    return '\0';
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public char optionalLetter(final char[] word, final int len) {
+    if(optionalLetterCheck() && len > 0
+        && this.optionalLetters.indexOf(word[len - 1]) >= 0) {
+      return word[len - 1];
     }
 
     return '\0';
   }
 
+  /**
+   * {@inheritDoc}
+   */
   @Override
   public String removeSuffix(final String word) {
-    return suffixMatcher(word).replaceAll("");
+    if(match(word)) {
+      return word.substring(0, word.length() - length());
+    }
+
+    return word;
   }
 
+  /**
+   * {@inheritDoc}
+   */
   @Override
   public boolean checkHarmony() { return this.checkHarmony; }
 
@@ -8,6 +8,24 @@ public interface Suffix {
    * @return whether the word has the certain suffix or not
    */
   boolean match(String word);
+  /**
+   * Checks if the first characters of a buffer end with the certain suffix.
+   * @param word the buffer that holds the word
+   * @param len the length of the word
+   * @return whether the word has the certain suffix or not
+   */
+  boolean match(char[] word, int len);
+  /**
+   * Gets the length of the suffix. All the allomorphs of a suffix have the
+   * same length.
+   * @return the number of characters of the suffix
+   */
+  int length();
+  /**
+   * Gets the allomorphs of the suffix.
+   * @return the allomorphs in the order they are defined
+   */
+  String[] allomorphs();
   /**
    * Gets the optional last letter of the word if exists after removing the
    * suffix.
@@ -15,6 +33,14 @@ public interface Suffix {
    * @return the optional letter if exists
    */
   char optionalLetter(String word);
+  /**
+   * Gets the optional last letter of the first characters of a buffer if
+   * exists after removing the suffix.
+   * @param word the buffer that holds the word after removing the suffix
+   * @param len the length of the word
+   * @return the optional letter if exists
+   */
+  char optionalLetter(char[] word, int len);
   /**
    * Checks if the suffix requires the word to be checked for vowel harmony
    * @return whether vowel harmony check is required or not
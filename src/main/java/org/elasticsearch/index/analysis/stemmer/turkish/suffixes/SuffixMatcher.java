@@ -0,0 +1,162 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.suffixes;
+
+import java.util.Arrays;
+
+/**
+ * Finds which suffixes of a set a word ends with.
+ *
+ * The allomorphs of the suffixes are compiled into a trie over their reversed
+ * characters, so every suffix that matches the end of a word is found in one
+ * backwards scan over its last few characters. The matches are reported as a
+ * bit set whose bits are the indices of the suffixes in the given array.
+ */
+public final class SuffixMatcher {
+  private final Suffix[] suffixes;
+  /**
+   * The column of each character in the transition table, or -1 for the
+   * characters that no allomorph contains.
+   */
+  private final byte[] columns;
+  private final int alphabetSize;
+  /**
+   * The child of each node per column. The root is node 0, so 0 also stands
+   * for a missing child.
+   */
+  private final int[] children;
+  /**
+   * The suffixes whose allomorphs end at each node.
+   */
+  private final long[] accepted;
+
+  public SuffixMatcher(final Suffix[] suffixes) {
+    if(suffixes.length > Long.SIZE) {
+      throw new IllegalArgumentException("Too many suffixes: " + suffixes.length);
+    }
+
+    this.suffixes = suffixes.clone();
+
+    char maxChar = 0;
+    int totalChars = 0;
+
+    for(Suffix suffix : suffixes) {
+      for(String allomorph : suffix.allomorphs()) {
+        totalChars += allomorph.length();
+        for(int i = 0; i < allomorph.length(); i++) {
+          maxChar = (char) Math.max(maxChar, allomorph.charAt(i));
+        }
+      }
+    }
+
+    this.columns = new byte[maxChar + 1];
+    Arrays.fill(this.columns, (byte) -1);
+
+    int size = 0;
+
+    for(Suffix suffix : suffixes) {
+      for(String allomorph : suffix.allomorphs()) {
+        for(int i = 0; i < allomorph.length(); i++) {
+          if(this.columns[allomorph.charAt(i)] < 0) {
+            this.columns[allomorph.charAt(i)] = (byte) size++;
+          }
+        }
+      }
+    }
+
+    this.alphabetSize = size;
+
+    int[] children = new int[(totalChars + 1) * this.alphabetSize];
+    long[] accepted = new long[totalChars + 1];
+    int nodes = 1;
+
+    for(int index = 0; index < suffixes.length; index++) {
+      for(String allomorph : suffixes[index].allomorphs()) {
+        int node = 0;
+
+        for(int i = allomorph.length() - 1; i >= 0; i--) {
+          int slot = node * this.alphabetSize + this.columns[allomorph.charAt(i)];
+
+          if(children[slot] == 0) {
+            children[slot] = nodes++;
+          }
+          node = children[slot];
+        }
+
+        accepted[node] |= 1L << index;
+      }
+    }
+
+    this.children = Arrays.copyOf(children, nodes * this.alphabetSize);
+    this.accepted = Arrays.copyOf(accepted, nodes);
+  }
+
+  /**
+   * Finds the suffixes that the first characters of a buffer end with.
+   *
+   * @param word the buffer that holds the word
+   * @param len the length of the word
+   * @return a bit set of the indices of the matching suffixes
+   */
+  public long match(final char[] word, final int len) {
+    long matches = 0;
+    int node = 0;
+
+    for(int i = len - 1; i >= 0; i--) {
+      node = child(node, word[i]);
+
+      if(node == 0)
+        break;
+
+      matches |= this.accepted[node];
+    }
+
+    return matches;
+  }
+
+  /**
+   * Finds the suffixes that a word ends with.
+   *
+   * @param word the word to check about suffix matches
+   * @return a bit set of the indices of the matching suffixes
+   */
+  public long match(final CharSequence word) {
+    long matches = 0;
+    int node = 0;
+
+    for(int i = word.length() - 1; i >= 0; i--) {
+      node = child(node, word.charAt(i));
+
+      if(node == 0)
+        break;
+
+      matches |= this.accepted[node];
+    }
+
+    return matches;
+  }
+
+  /**
+   * Gets the number of suffixes.
+   *
+   * @return the number of suffixes
+   */
+  public int size() {
+    return this.suffixes.length;
+  }
+
+  /**
+   * Gets the suffix of a given index.
+   *
+   * @param index the index of the suffix, as reported by the matches
+   * @return the suffix
+   */
+  public Suffix suffix(final int index) {
+    return this.suffixes[index];
+  }
+
+  private int child(final int node, final char c) {
+    if(c >= this.columns.length || this.columns[c] < 0)
+      return 0;
+
+    return this.children[node * this.alphabetSize + this.columns[c]];
+  }
+}
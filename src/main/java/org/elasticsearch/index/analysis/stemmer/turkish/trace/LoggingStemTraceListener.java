@@ -0,0 +1,109 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.trace;
+
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.index.analysis.stemmer.turkish.states.State;
+import org.elasticsearch.index.analysis.stemmer.turkish.states.StateMachine;
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.Suffix;
+
+/**
+ * Writes the path of every word to a debug log.
+ */
+public class LoggingStemTraceListener implements StemTraceListener {
+  private final Logger logger;
+
+  public LoggingStemTraceListener(final Logger logger) {
+    this.logger = logger;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void started(final char[] word, final int len) {
+    logger.debug("Stemming word: [{}]", new String(word, 0, len));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void skipped(final char[] word, final int len, final SkipReason reason) {
+    logger.debug("Skipping {} word: [{}]", reason, new String(word, 0, len));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void initialTransition(final StateMachine machine, final char[] word,
+                                final int len, final State startState,
+                                final Suffix suffix, final State nextState) {
+    logger.debug("[{}SuffixStripper] Initial transition: [{}] by [{}({}) -> {}]",
+        machine, new String(word, 0, len), startState, suffix, nextState);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void transition(final StateMachine machine, final char[] word,
+                         final int wordLength, final int stemLength,
+                         final State startState, final Suffix suffix,
+                         final State nextState) {
+    logger.debug("[{}SuffixStripper] Word stemmed: [{}] -> [{}] by [{}({}) -> {}]",
+        machine, new String(word, 0, wordLength), new String(word, 0, stemLength),
+        startState, suffix, nextState);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void candidate(final StateMachine machine, final char[] word,
+                        final int stemLength) {
+    logger.debug("[{}SuffixStripper] Candidate stem: [{}]", machine,
+        new String(word, 0, stemLength));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void finished(final StateMachine machine, final char[] word,
+                       final int len, final int queued, final int tried) {
+    logger.debug("[{}SuffixStripper] Done with [{}]: tried {} of {} transitions",
+        machine, new String(word, 0, len), tried, queued);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void truncated(final char[] word, final int len) {
+    logger.debug("Ran out of transitions at: [{}]", new String(word, 0, len));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void mistypeCorrected(final char[] word, final int len) {
+    logger.debug("Retrying with corrected word: [{}]", new String(word, 0, len));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void deasciified(final char[] word, final int len) {
+    logger.debug("Retrying with deasciified word: [{}]", new String(word, 0, len));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void stemmed(final char[] stem, final int len) {
+    logger.debug("Final stem: [{}]", new String(stem, 0, len));
+  }
+}
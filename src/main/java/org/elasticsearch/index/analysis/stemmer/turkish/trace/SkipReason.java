@@ -0,0 +1,23 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.trace;
+
+/**
+ * The reasons why a word is left unstemmed.
+ */
+public enum SkipReason {
+  EMPTY("empty"),
+  NON_TURKISH("non-turkish"),
+  PROTECTED("protected"),
+  SMALL("small"),
+  TOO_LONG("too-long");
+
+  private final String name;
+
+  SkipReason(final String name) {
+    this.name = name;
+  }
+
+  @Override
+  public String toString() {
+    return this.name;
+  }
+}
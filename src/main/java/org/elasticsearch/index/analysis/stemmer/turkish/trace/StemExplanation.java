@@ -0,0 +1,308 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.trace;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.analysis.stemmer.turkish.states.State;
+import org.elasticsearch.index.analysis.stemmer.turkish.states.StateMachine;
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.Suffix;
+
+/**
+ * What the stemmer did with a word, for finding the words that are costly to
+ * stem and tuning the word lists.
+ *
+ * An explanation is filled as the listener of a run of the stemmer on the
+ * word. The time is the one of a separate run without a listener.
+ */
+public final class StemExplanation implements StemTraceListener, Writeable, ToXContent {
+  private final String word;
+  private final long nanos;
+  private String stem;
+  private SkipReason skipReason;
+  private String correctedWord;
+  private boolean truncated;
+  private final Map<String, Machine> machines = new LinkedHashMap<>();
+
+  /**
+   * Creates an empty explanation of a word.
+   *
+   * @param word the word
+   * @param nanos the time the stemmer took on the word, in nanoseconds
+   */
+  public StemExplanation(final String word, final long nanos) {
+    this.word = word;
+    this.nanos = nanos;
+  }
+
+  public StemExplanation(final StreamInput in) throws IOException {
+    this.word = in.readString();
+    this.nanos = in.readVLong();
+    this.stem = in.readOptionalString();
+
+    String skipReason = in.readOptionalString();
+
+    this.skipReason = skipReason == null ? null : SkipReason.valueOf(skipReason);
+    this.correctedWord = in.readOptionalString();
+    this.truncated = in.readBoolean();
+
+    for(Machine machine : in.readList(Machine::new)) {
+      this.machines.put(machine.name, machine);
+    }
+  }
+
+  @Override
+  public void writeTo(final StreamOutput out) throws IOException {
+    out.writeString(this.word);
+    out.writeVLong(this.nanos);
+    out.writeOptionalString(this.stem);
+    out.writeOptionalString(this.skipReason == null ? null : this.skipReason.name());
+    out.writeOptionalString(this.correctedWord);
+    out.writeBoolean(this.truncated);
+    out.writeList(new ArrayList<>(this.machines.values()));
+  }
+
+  public String word() {
+    return this.word;
+  }
+
+  /**
+   * Gets the final stem of the word.
+   *
+   * @return the stem, or null if the stemmer did not finish
+   */
+  public String stem() {
+    return this.stem;
+  }
+
+  public long nanos() {
+    return this.nanos;
+  }
+
+  /**
+   * Gets the reason why the word was not processed by the state machines.
+   *
+   * @return the reason, or null if the word was processed
+   */
+  public SkipReason skipReason() {
+    return this.skipReason;
+  }
+
+  /**
+   * Checks whether the word got no candidates and was retried with its last
+   * letter swapped between u and ü or i and ı.
+   *
+   * @return whether the word was retried
+   */
+  public boolean mistypeRetried() {
+    return this.correctedWord != null;
+  }
+
+  /**
+   * Gets the word of the retry.
+   *
+   * @return the corrected word, or null if the word was not retried
+   */
+  public String correctedWord() {
+    return this.correctedWord;
+  }
+
+  /**
+   * Checks whether the word ran out of transitions and got the best stem
+   * found until then.
+   *
+   * @return whether the word was truncated
+   */
+  public boolean truncated() {
+    return this.truncated;
+  }
+
+  /**
+   * Gets the work of each state machine, in the order they first ran.
+   *
+   * @return the machines
+   */
+  public List<Machine> machines() {
+    return Collections.unmodifiableList(new ArrayList<>(this.machines.values()));
+  }
+
+  private Machine machine(final StateMachine machine) {
+    return this.machines.computeIfAbsent(machine.name(), Machine::new);
+  }
+
+  @Override
+  public void skipped(final char[] word, final int len, final SkipReason reason) {
+    this.skipReason = reason;
+  }
+
+  @Override
+  public void transition(final StateMachine machine, final char[] word,
+                         final int wordLength, final int stemLength,
+                         final State startState, final Suffix suffix,
+                         final State nextState) {
+    machine(machine).applied++;
+  }
+
+  @Override
+  public void candidate(final StateMachine machine, final char[] word,
+                        final int stemLength) {
+    List<String> candidates = machine(machine).candidates;
+    String candidate = new String(word, 0, stemLength);
+
+    if(!candidates.contains(candidate))
+      candidates.add(candidate);
+  }
+
+  @Override
+  public void finished(final StateMachine machine, final char[] word,
+                       final int len, final int queued, final int tried) {
+    Machine m = machine(machine);
+
+    m.runs++;
+    m.queued += queued;
+    m.tried += tried;
+  }
+
+  @Override
+  public void truncated(final char[] word, final int len) {
+    this.truncated = true;
+  }
+
+  @Override
+  public void mistypeCorrected(final char[] word, final int len) {
+    this.correctedWord = new String(word, 0, len);
+  }
+
+  @Override
+  public void stemmed(final char[] stem, final int len) {
+    this.stem = new String(stem, 0, len);
+  }
+
+  @Override
+  public XContentBuilder toXContent(final XContentBuilder builder, final Params params)
+      throws IOException {
+    builder.startObject();
+    builder.field("word", this.word);
+    builder.field("stem", this.stem);
+    builder.field("took_nanos", this.nanos);
+
+    if(this.skipReason != null)
+      builder.field("skipped", this.skipReason.toString());
+
+    builder.field("mistype_retry", mistypeRetried());
+
+    if(this.correctedWord != null)
+      builder.field("corrected_word", this.correctedWord);
+
+    builder.field("truncated", this.truncated);
+
+    builder.startArray("machines");
+    for(Machine machine : this.machines.values()) {
+      machine.toXContent(builder, params);
+    }
+    builder.endArray();
+    builder.endObject();
+
+    return builder;
+  }
+
+  /**
+   * The work of a state machine on a word, summed over all the prefixes of
+   * the word it ran on.
+   */
+  public static final class Machine implements Writeable, ToXContent {
+    private final String name;
+    private int runs;
+    private int queued;
+    private int tried;
+    private int applied;
+    private final List<String> candidates = new ArrayList<>();
+
+    Machine(final String name) {
+      this.name = name;
+    }
+
+    Machine(final StreamInput in) throws IOException {
+      this.name = in.readString();
+      this.runs = in.readVInt();
+      this.queued = in.readVInt();
+      this.tried = in.readVInt();
+      this.applied = in.readVInt();
+      this.candidates.addAll(in.readList(StreamInput::readString));
+    }
+
+    @Override
+    public void writeTo(final StreamOutput out) throws IOException {
+      out.writeString(this.name);
+      out.writeVInt(this.runs);
+      out.writeVInt(this.queued);
+      out.writeVInt(this.tried);
+      out.writeVInt(this.applied);
+      out.writeStringList(this.candidates);
+    }
+
+    public String name() {
+      return this.name;
+    }
+
+    /**
+     * Gets the number of words the machine ran on.
+     */
+    public int runs() {
+      return this.runs;
+    }
+
+    /**
+     * Gets the number of transitions whose suffix was tried.
+     */
+    public int tried() {
+      return this.tried;
+    }
+
+    /**
+     * Gets the number of transitions that were queued but pruned without
+     * being tried, through the marking of similar transitions.
+     */
+    public int pruned() {
+      return this.queued - this.tried;
+    }
+
+    /**
+     * Gets the number of tried transitions that removed their suffix.
+     */
+    public int applied() {
+      return this.applied;
+    }
+
+    /**
+     * Gets the distinct candidate stems the machine reached, in the order it
+     * first reached them.
+     */
+    public List<String> candidates() {
+      return Collections.unmodifiableList(this.candidates);
+    }
+
+    @Override
+    public XContentBuilder toXContent(final XContentBuilder builder, final Params params)
+        throws IOException {
+      builder.startObject();
+      builder.field("machine", this.name);
+      builder.field("runs", this.runs);
+      builder.field("tried", this.tried);
+      builder.field("pruned", pruned());
+      builder.field("applied", this.applied);
+      builder.field("candidates", this.candidates);
+      builder.endObject();
+
+      return builder;
+    }
+  }
+}
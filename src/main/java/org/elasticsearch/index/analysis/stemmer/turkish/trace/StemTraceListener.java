@@ -0,0 +1,131 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.trace;
+
+import org.elasticsearch.index.analysis.stemmer.turkish.states.State;
+import org.elasticsearch.index.analysis.stemmer.turkish.states.StateMachine;
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.Suffix;
+
+/**
+ * Follows the path a word takes through the stemmer.
+ *
+ * Words are given as buffers that are only valid during the call, since the
+ * stemmer does not allocate for the sake of a listener. A stemmer without a
+ * listener skips every notification. All methods do nothing by default.
+ */
+public interface StemTraceListener {
+
+  /**
+   * Called when the stemmer starts on a word, including its retry after
+   * correcting a mistype.
+   *
+   * @param word the buffer that holds the word
+   * @param len the length of the word
+   */
+  default void started(char[] word, int len) {
+  }
+
+  /**
+   * Called when a word is left as it is.
+   *
+   * @param word the buffer that holds the word
+   * @param len the length of the word
+   * @param reason why the word is not stemmed
+   */
+  default void skipped(char[] word, int len, SkipReason reason) {
+  }
+
+  /**
+   * Called for every transition from the initial state of a state machine.
+   *
+   * @param machine the state machine
+   * @param word the buffer that holds the word
+   * @param len the length of the word the machine starts with
+   * @param startState the initial state
+   * @param suffix the suffix of the transition
+   * @param nextState the state the transition leads to
+   */
+  default void initialTransition(StateMachine machine, char[] word, int len,
+                                 State startState, Suffix suffix,
+                                 State nextState) {
+  }
+
+  /**
+   * Called when a transition removes a suffix from a word.
+   *
+   * @param machine the state machine
+   * @param word the buffer that holds the word
+   * @param wordLength the length of the word before the transition
+   * @param stemLength the length of the word after the transition
+   * @param startState the state the transition starts from
+   * @param suffix the suffix that was removed
+   * @param nextState the state the transition leads to
+   */
+  default void transition(StateMachine machine, char[] word, int wordLength,
+                          int stemLength, State startState, Suffix suffix,
+                          State nextState) {
+  }
+
+  /**
+   * Called when a state machine reaches a final state, which makes the
+   * current word a candidate stem.
+   *
+   * @param machine the state machine
+   * @param word the buffer that holds the word
+   * @param stemLength the length of the candidate stem
+   */
+  default void candidate(StateMachine machine, char[] word, int stemLength) {
+  }
+
+  /**
+   * Called when a state machine is done with a word. The transitions that
+   * were queued but not tried were pruned, being similar to a transition that
+   * was tried before them.
+   *
+   * @param machine the state machine
+   * @param word the buffer that holds the word
+   * @param len the length of the word the machine started with
+   * @param queued the number of transitions that were queued
+   * @param tried the number of transitions whose suffix was tried
+   */
+  default void finished(StateMachine machine, char[] word, int len,
+                        int queued, int tried) {
+  }
+
+  /**
+   * Called when a word runs out of transitions, after which the state
+   * machines do nothing and the word gets the best stem found so far.
+   *
+   * @param word the buffer that holds the word
+   * @param len the length of the word the machine was processing
+   */
+  default void truncated(char[] word, int len) {
+  }
+
+  /**
+   * Called when a word that got no candidate stems is retried with its last
+   * letter corrected.
+   *
+   * @param word the buffer that holds the corrected word
+   * @param len the length of the word
+   */
+  default void mistypeCorrected(char[] word, int len) {
+  }
+
+  /**
+   * Called when a word that was typed without Turkish letters is retried
+   * with the Turkish letters of a known stem.
+   *
+   * @param word the buffer that holds the variant of the word
+   * @param len the length of the word
+   */
+  default void deasciified(char[] word, int len) {
+  }
+
+  /**
+   * Called with the final stem of a word.
+   *
+   * @param stem the buffer that holds the stem
+   * @param len the length of the stem
+   */
+  default void stemmed(char[] stem, int len) {
+  }
+}
@@ -0,0 +1,190 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.transitions;
+
+import java.util.Arrays;
+
+import org.apache.lucene.util.ArrayUtil;
+
+/**
+ * A reusable queue of transitions about the prefixes of a single word.
+ *
+ * Every word that a state machine visits is a prefix of the word being
+ * stemmed, so a transition is kept as the length of that prefix together with
+ * the ids of its edge and suffix in parallel arrays. Once the arrays have
+ * grown to fit the longest run, processing a word does not allocate.
+ *
+ * Marking and removing the similar transitions, that is the queued ones of the
+ * same edge, does not scan the queue. Since transitions are only appended, the
+ * transitions that were queued when an edge was marked or removed are the ones
+ * below the tail of the queue at that time, so each edge keeps these tails as
+ * watermarks and a transition is checked against them when it is polled.
+ */
+public class TransitionQueue {
+
+  /**
+   * The maximum number of edges of a state machine.
+   */
+  public static final int MAX_EDGES = 64;
+
+  private byte[] edges    = new byte[16];
+  private byte[] suffixes = new byte[16];
+  private int[]  lengths  = new int[16];
+  private int head;
+  private int tail;
+
+  /**
+   * The transitions of an edge below these indices were removed because they
+   * were similar to a transition that reached a final state.
+   */
+  private final int[] removedBelow = new int[MAX_EDGES];
+  /**
+   * The transitions of an edge below these indices were marked by the latest
+   * marking of the edge, which happened at the given time.
+   */
+  private final int[] markedBelow = new int[MAX_EDGES];
+  private final int[] markedAt = new int[MAX_EDGES];
+  /**
+   * The marked transitions of an edge below these indices were removed by a
+   * removal that followed their marking.
+   */
+  private final int[] markedRemovedBelow = new int[MAX_EDGES];
+  private int clock;
+  private int lastRemoval;
+  private int edgeCount;
+
+  /**
+   * Removes all the transitions of the queue.
+   *
+   * @param edgeCount the number of edges of the state machine that will use
+   * the queue
+   */
+  public void clear(final int edgeCount) {
+    if(edgeCount > MAX_EDGES) {
+      throw new IllegalArgumentException("Too many edges: " + edgeCount);
+    }
+
+    Arrays.fill(this.removedBelow, 0, this.edgeCount, 0);
+    Arrays.fill(this.markedBelow, 0, this.edgeCount, 0);
+    Arrays.fill(this.markedAt, 0, this.edgeCount, 0);
+    Arrays.fill(this.markedRemovedBelow, 0, this.edgeCount, 0);
+    this.edgeCount = edgeCount;
+    this.clock = 0;
+    this.lastRemoval = 0;
+    this.head = 0;
+    this.tail = 0;
+  }
+
+  /**
+   * Adds a transition at the end of the queue.
+   *
+   * @param edge the id of the edge of the transition
+   * @param suffix the id of the suffix of the transition
+   * @param length the length of the word the transition applies to
+   */
+  public void add(final int edge, final int suffix, final int length) {
+    if(this.tail == this.lengths.length) {
+      grow();
+    }
+
+    this.edges[this.tail] = (byte) edge;
+    this.suffixes[this.tail] = (byte) suffix;
+    this.lengths[this.tail] = length;
+    this.tail++;
+  }
+
+  /**
+   * Checks if there are no transitions left to process.
+   *
+   * @return whether the queue is empty or not
+   */
+  public boolean isEmpty() {
+    while(this.head < this.tail && removed(this.head)) {
+      this.head++;
+    }
+
+    return this.head == this.tail;
+  }
+
+  /**
+   * Removes the first transition of the queue.
+   *
+   * @return the index of the removed transition, which stays valid until the
+   * queue is cleared
+   */
+  public int poll() {
+    if(isEmpty()) {
+      throw new IllegalStateException("No transitions left");
+    }
+
+    return this.head++;
+  }
+
+  /**
+   * Gets the number of transitions added since the queue was cleared, which
+   * are the ones at indices below it.
+   *
+   * @return the number of added transitions
+   */
+  public int added() {
+    return this.tail;
+  }
+
+  public byte edge(final int index) {
+    return this.edges[index];
+  }
+
+  public byte suffix(final int index) {
+    return this.suffixes[index];
+  }
+
+  public int length(final int index) {
+    return this.lengths[index];
+  }
+
+  /**
+   * Marks the queued transitions that are similar to the given one.
+   *
+   * @param index the index of the transition to compare with
+   */
+  public void markSimilar(final int index) {
+    int edge = this.edges[index];
+
+    if(this.markedAt[edge] < this.lastRemoval) {
+      // The previous marking of the edge is already followed by a removal
+      this.markedRemovedBelow[edge] = this.markedBelow[edge];
+    }
+
+    this.markedBelow[edge] = this.tail;
+    this.markedAt[edge] = ++this.clock;
+  }
+
+  /**
+   * Removes the queued transitions that are either marked or similar to the
+   * given one.
+   *
+   * @param index the index of the transition to compare with
+   */
+  public void removeSimilarOrMarked(final int index) {
+    this.removedBelow[this.edges[index]] = this.tail;
+    this.lastRemoval = ++this.clock;
+  }
+
+  private boolean removed(final int index) {
+    int edge = this.edges[index];
+
+    if(index < this.removedBelow[edge])
+      return true;
+
+    if(this.markedAt[edge] < this.lastRemoval)
+      return index < this.markedBelow[edge];
+
+    return index < this.markedRemovedBelow[edge];
+  }
+
+  private void grow() {
+    int size = ArrayUtil.oversize(this.tail + 1, 1);
+
+    this.edges = Arrays.copyOf(this.edges, size);
+    this.suffixes = Arrays.copyOf(this.suffixes, size);
+    this.lengths = Arrays.copyOf(this.lengths, size);
+  }
+}
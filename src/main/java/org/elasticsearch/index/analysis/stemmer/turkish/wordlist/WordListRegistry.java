@@ -0,0 +1,351 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.wordlist;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.analysis.CharArraySet;
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.elasticsearch.index.analysis.Analysis;
+import org.elasticsearch.watcher.ResourceWatcher;
+
+/**
+ * The word lists of a node, shared by all the filters that are configured
+ * with the same file.
+ *
+ * Lists are keyed by the resolved path of their file and the hash of its
+ * content, and each one is read and parsed once into an immutable set. A list
+ * is looked up again without reading its file for as long as the size and the
+ * modification time of the file stay the same, so creating many indices with
+ * the same settings costs neither file reads nor heap per index.
+ *
+ * Every list counts the references of its owners, usually indices, and it is
+ * dropped once all its owners have released it.
+ *
+ * The registry is also a {@link ResourceWatcher} of the files that have
+ * listeners. When the content of such a file changes, it is parsed into a new
+ * list, the references of the listeners move to it and the listeners get the
+ * new words, while everyone else keeps the list they had.
+ */
+public final class WordListRegistry implements ResourceWatcher {
+
+  /**
+   * Gets notified when the content of a file changes.
+   */
+  public interface Listener {
+
+    /**
+     * Called, outside of any lock, once a changed file has been parsed.
+     *
+     * @param words the new immutable set of the words
+     */
+    void changed(CharArraySet words);
+  }
+
+  private final Map<Key, Entry> entries = new HashMap<>();
+  /**
+   * The latest entry of each file.
+   */
+  private final Map<Path, Entry> latest = new HashMap<>();
+  private final Map<Object, List<Entry>> owners = new HashMap<>();
+  private long loads;
+  private long reloads;
+
+  /**
+   * Gets the words of a file, reading it only if it is not known or it has
+   * changed.
+   *
+   * @param owner the owner of the reference, which releases it through
+   * {@link #release(Object)}
+   * @param path the path of the file, with one word per line and comments
+   * starting with '#'
+   * @return the immutable set of the words
+   * @throws IOException if the file cannot be read
+   */
+  public CharArraySet acquire(final Object owner, final Path path)
+      throws IOException {
+    return acquire(owner, path, null);
+  }
+
+  /**
+   * Gets the words of a file, reading it only if it is not known or it has
+   * changed, and keeps a listener of its changes until the owner releases it.
+   *
+   * @param owner the owner of the reference, which releases it through
+   * {@link #release(Object)}
+   * @param path the path of the file, with one word per line and comments
+   * starting with '#'
+   * @param listener the listener of the changes of the file, or null
+   * @return the immutable set of the words
+   * @throws IOException if the file cannot be read
+   */
+  public synchronized CharArraySet acquire(final Object owner, final Path path,
+                                           final Listener listener)
+      throws IOException {
+
+    Path resolved = path.toAbsolutePath().normalize();
+    BasicFileAttributes attributes =
+        Files.readAttributes(resolved, BasicFileAttributes.class);
+    Entry entry = this.latest.get(resolved);
+
+    if(entry == null || !entry.matches(attributes)) {
+      entry = load(resolved, attributes);
+    }
+
+    entry.references++;
+    this.owners.computeIfAbsent(owner, o -> new ArrayList<>()).add(entry);
+
+    if(listener != null) {
+      entry.subscriptions.add(new Subscription(owner, listener));
+    }
+
+    return entry.words;
+  }
+
+  /**
+   * Gets the entry of the current content of a file, parsing it if it is
+   * new, and makes it the latest entry of the file.
+   */
+  private Entry load(final Path path, final BasicFileAttributes attributes)
+      throws IOException {
+
+    byte[] content = Files.readAllBytes(path);
+    Key key = new Key(path, content);
+    Entry entry = this.entries.get(key);
+
+    if(entry == null) {
+      entry = new Entry(key, parse(content));
+      this.entries.put(key, entry);
+      this.loads++;
+    }
+
+    entry.size = attributes.size();
+    entry.modified = attributes.lastModifiedTime();
+    this.latest.put(path, entry);
+
+    return entry;
+  }
+
+  @Override
+  public void init() {
+  }
+
+  /**
+   * Checks the files that have listeners and reloads the ones that changed.
+   * A file that cannot be read or parsed keeps its current words.
+   *
+   * @throws IOException the first failure to reload a file, after all the
+   * other files have been checked
+   */
+  @Override
+  public void checkAndNotify() throws IOException {
+    List<Subscription> notified = new ArrayList<>();
+    List<CharArraySet> changes = new ArrayList<>();
+    IOException failure = null;
+
+    synchronized(this) {
+      for(Entry entry : new ArrayList<>(this.entries.values())) {
+        if(entry.subscriptions.isEmpty())
+          continue;
+
+        try {
+          Path path = entry.key.path;
+          BasicFileAttributes attributes =
+              Files.readAttributes(path, BasicFileAttributes.class);
+
+          if(entry.matches(attributes))
+            continue;
+
+          Entry changed = load(path, attributes);
+
+          if(changed == entry)
+            continue;
+
+          this.reloads++;
+
+          for(Subscription subscription : entry.subscriptions) {
+            move(subscription.owner, entry, changed);
+            changed.subscriptions.add(subscription);
+            notified.add(subscription);
+            changes.add(changed.words);
+          }
+
+          entry.subscriptions.clear();
+          drop(entry);
+        } catch(IOException e) {
+          if(failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+    }
+
+    for(int i = 0; i < notified.size(); i++) {
+      notified.get(i).listener.changed(changes.get(i));
+    }
+
+    if(failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Moves a reference of an owner from an entry to another.
+   */
+  private void move(final Object owner, final Entry from, final Entry to) {
+    List<Entry> references = this.owners.get(owner);
+
+    references.set(references.indexOf(from), to);
+    from.references--;
+    to.references++;
+  }
+
+  /**
+   * Drops an entry if it has no references left.
+   */
+  private void drop(final Entry entry) {
+    if(entry.references == 0) {
+      this.entries.remove(entry.key);
+      this.latest.remove(entry.key.path, entry);
+    }
+  }
+
+  /**
+   * Releases all the references of an owner.
+   *
+   * @param owner the owner of the references
+   */
+  public synchronized void release(final Object owner) {
+    List<Entry> released = this.owners.remove(owner);
+
+    if(released == null)
+      return;
+
+    for(Entry entry : released) {
+      entry.references--;
+      entry.subscriptions.removeIf(subscription -> subscription.owner.equals(owner));
+      drop(entry);
+    }
+  }
+
+  /**
+   * Gets the number of lists that are referenced.
+   *
+   * @return the number of lists
+   */
+  public synchronized int size() {
+    return this.entries.size();
+  }
+
+  /**
+   * Gets the number of owners that hold references to lists.
+   *
+   * @return the number of owners
+   */
+  public synchronized int owners() {
+    return this.owners.size();
+  }
+
+  /**
+   * Gets the number of times a file was parsed into a new list.
+   *
+   * @return the number of loads
+   */
+  public synchronized long loads() {
+    return this.loads;
+  }
+
+  /**
+   * Gets the number of times a watched file changed and its listeners got
+   * new words.
+   *
+   * @return the number of reloads
+   */
+  public synchronized long reloads() {
+    return this.reloads;
+  }
+
+  private static CharArraySet parse(final byte[] content) throws IOException {
+    try(Reader reader = new InputStreamReader(new ByteArrayInputStream(content),
+                                              StandardCharsets.UTF_8.newDecoder())) {
+      List<String> words = Analysis.loadWordList(reader, "#");
+
+      if(words.isEmpty())
+        return CharArraySet.EMPTY_SET;
+
+      return CharArraySet.unmodifiableSet(new CharArraySet(words, false));
+    }
+  }
+
+  private static final class Key {
+    private final Path path;
+    private final long hash1;
+    private final long hash2;
+
+    Key(final Path path, final byte[] content) {
+      MurmurHash3.Hash128 hash =
+          MurmurHash3.hash128(content, 0, content.length, 0, new MurmurHash3.Hash128());
+
+      this.path = path;
+      this.hash1 = hash.h1;
+      this.hash2 = hash.h2;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if(!(other instanceof Key))
+        return false;
+
+      Key key = (Key) other;
+
+      return this.hash1 == key.hash1 && this.hash2 == key.hash2 &&
+          this.path.equals(key.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * this.path.hashCode() + Long.hashCode(this.hash1);
+    }
+  }
+
+  private static final class Entry {
+    private final Key key;
+    private final CharArraySet words;
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private long size;
+    private FileTime modified;
+    private int references;
+
+    Entry(final Key key, final CharArraySet words) {
+      this.key = key;
+      this.words = words;
+    }
+
+    boolean matches(final BasicFileAttributes attributes) {
+      return this.size == attributes.size() &&
+          this.modified.equals(attributes.lastModifiedTime());
+    }
+  }
+
+  private static final class Subscription {
+    private final Object owner;
+    private final Listener listener;
+
+    Subscription(final Object owner, final Listener listener) {
+      this.owner = owner;
+      this.listener = listener;
+    }
+  }
+}
@@ -1,21 +1,246 @@
 package org.elasticsearch.plugin.analysis.turkishstemmer;
 
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.IndexScopedSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.settings.SettingsFilter;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.shard.IndexEventListener;
+import org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason;
 import org.elasticsearch.indices.analysis.AnalysisModule.AnalysisProvider;
 import org.elasticsearch.index.analysis.TokenFilterFactory;
+import org.elasticsearch.index.analysis.stemmer.turkish.batch.BatchStemmer;
+import org.elasticsearch.index.analysis.stemmer.turkish.batch.FilterRegistry;
+import org.elasticsearch.index.analysis.stemmer.turkish.cache.NodeStemCache;
+import org.elasticsearch.index.analysis.stemmer.turkish.stats.StemmerStatsRegistry;
+import org.elasticsearch.index.analysis.stemmer.turkish.wordlist.WordListRegistry;
+import org.elasticsearch.plugin.analysis.turkishstemmer.batch.RestTurkishStemmerBatchAction;
+import org.elasticsearch.plugin.analysis.turkishstemmer.batch.TransportTurkishStemmerBatchAction;
+import org.elasticsearch.plugin.analysis.turkishstemmer.batch.TurkishStemmerBatchAction;
+import org.elasticsearch.plugin.analysis.turkishstemmer.stats.RestTurkishStemmerStatsAction;
+import org.elasticsearch.plugin.analysis.turkishstemmer.stats.TransportTurkishStemmerStatsAction;
+import org.elasticsearch.plugin.analysis.turkishstemmer.stats.TurkishStemmerStatsAction;
+import org.elasticsearch.plugins.ActionPlugin;
 import org.elasticsearch.plugins.AnalysisPlugin;
 import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestHandler;
+import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.threadpool.ExecutorBuilder;
+import org.elasticsearch.threadpool.FixedExecutorBuilder;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.watcher.ResourceWatcherService;
+import org.elasticsearch.watcher.ResourceWatcherService.Frequency;
 import org.elasticsearch.index.analysis.TurkishStemmerTokenFilterFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
  
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 
-public class TurkishStemmerPlugin extends Plugin implements AnalysisPlugin {
+public class TurkishStemmerPlugin extends Plugin implements AnalysisPlugin, ActionPlugin {
+
+	/**
+	 * The maximum number of stems the node keeps for all indices, or 0 to
+	 * disable the node cache.
+	 */
+	public static final Setting<Integer> CACHE_MAX_ENTRIES =
+			Setting.intSetting("turkish_stemmer.cache.max_entries", 0, 0,
+					Property.NodeScope);
+
+	/**
+	 * The maximum estimated memory of the stems the node keeps.
+	 */
+	public static final Setting<ByteSizeValue> CACHE_MAX_BYTES =
+			Setting.byteSizeSetting("turkish_stemmer.cache.max_bytes",
+					new ByteSizeValue(32, ByteSizeUnit.MB), Property.NodeScope);
+
+	/**
+	 * The maximum number of words and texts of a batch.
+	 */
+	public static final Setting<Integer> BATCH_MAX_ENTRIES =
+			Setting.intSetting("turkish_stemmer.batch.max_entries", 10000, 1,
+					Property.NodeScope);
+
+	/**
+	 * The maximum number of characters of the words and texts of a batch.
+	 */
+	public static final Setting<Integer> BATCH_MAX_CHARS =
+			Setting.intSetting("turkish_stemmer.batch.max_chars", 1000000, 1,
+					Property.NodeScope);
+
+	private final NodeStemCache cache;
+	private final WordListRegistry wordLists = new WordListRegistry();
+	private final StemmerStatsRegistry stats = new StemmerStatsRegistry();
+	private final FilterRegistry filters = new FilterRegistry();
+
+	public TurkishStemmerPlugin(Settings settings) {
+		int maxEntries = CACHE_MAX_ENTRIES.get(settings);
+
+		this.cache = maxEntries > 0 ?
+				new NodeStemCache(maxEntries, CACHE_MAX_BYTES.get(settings).getBytes()) :
+				null;
+	}
+
+	/**
+	 * Gets the stem cache of the node.
+	 *
+	 * @return the cache, or null if it is disabled
+	 */
+	public NodeStemCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Gets the word lists of the node, which are shared by all indices.
+	 *
+	 * @return the registry of the word lists
+	 */
+	public WordListRegistry getWordLists() {
+		return wordLists;
+	}
+
+	/**
+	 * Gets the stats of the filters of the node.
+	 *
+	 * @return the registry of the stats
+	 */
+	public StemmerStatsRegistry getStats() {
+		return stats;
+	}
+
+	/**
+	 * Gets the filters of the indices of the node.
+	 *
+	 * @return the registry of the filters
+	 */
+	public FilterRegistry getFilters() {
+		return filters;
+	}
+
+	/**
+	 * Watches the word lists of the filters that reload them when their files
+	 * change, and binds the stats and the filters of the indices, along with
+	 * the batch stemmer, for the actions.
+	 */
+	@Override
+	public Collection<Object> createComponents(Client client,
+			ClusterService clusterService, ThreadPool threadPool,
+			ResourceWatcherService resourceWatcherService,
+			ScriptService scriptService, NamedXContentRegistry xContentRegistry) {
+		try {
+			resourceWatcherService.add(wordLists, Frequency.MEDIUM);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		BatchStemmer batchStemmer = new BatchStemmer(
+				threadPool.executor(BatchStemmer.THREAD_POOL),
+				threadPool.info(BatchStemmer.THREAD_POOL).getMax(), cache);
+		return asList(stats, filters, batchStemmer);
+	}
+
+	/**
+	 * Adds the thread pool of the batch requests, with a thread per
+	 * processor.
+	 */
+	@Override
+	public List<ExecutorBuilder<?>> getExecutorBuilders(Settings settings) {
+		return singletonList(new FixedExecutorBuilder(settings, BatchStemmer.THREAD_POOL,
+				EsExecutors.boundedNumberOfProcessors(settings), 1000,
+				"turkish_stemmer.thread_pool"));
+	}
+
+	/**
+	 * Releases the word lists, the stats and the filters of an index once it
+	 * is removed from the node, whether it was deleted, closed or moved away.
+	 */
+	@Override
+	public void onIndexModule(IndexModule indexModule) {
+		indexModule.addIndexEventListener(new IndexEventListener() {
+			@Override
+			public void afterIndexRemoved(Index index, IndexSettings indexSettings,
+					IndexRemovalReason reason) {
+				wordLists.release(index);
+				stats.remove(index.getName());
+				filters.remove(index.getName());
+			}
+		});
+	}
+
+	@Override
+	public List<ActionHandler<? extends ActionRequest, ? extends ActionResponse>> getActions() {
+		return asList(
+				new ActionHandler<>(TurkishStemmerStatsAction.INSTANCE,
+						TransportTurkishStemmerStatsAction.class),
+				new ActionHandler<>(TurkishStemmerBatchAction.INSTANCE,
+						TransportTurkishStemmerBatchAction.class));
+	}
+
+	@Override
+	public List<RestHandler> getRestHandlers(Settings settings,
+			RestController restController, ClusterSettings clusterSettings,
+			IndexScopedSettings indexScopedSettings, SettingsFilter settingsFilter,
+			IndexNameExpressionResolver indexNameExpressionResolver,
+			Supplier<DiscoveryNodes> nodesInCluster) {
+		return asList(
+				new RestTurkishStemmerStatsAction(settings, restController),
+				new RestTurkishStemmerBatchAction(settings, restController));
+	}
+
+	@Override
+	public List<Setting<?>> getSettings() {
+		return Arrays.asList(CACHE_MAX_ENTRIES, CACHE_MAX_BYTES, BATCH_MAX_ENTRIES,
+				BATCH_MAX_CHARS);
+	}
 
 	// Use singletonMap to register our token filter,
 	// since we only have one in our plugin.
 	@Override
 	public Map<String, AnalysisProvider<TokenFilterFactory>> getTokenFilters() {
-		return singletonMap("turkish_stemmer", TurkishStemmerTokenFilterFactory::new);
+		return singletonMap("turkish_stemmer", (indexSettings, env, name, settings) -> {
+			if (isTransient(indexSettings.getIndex())) {
+				return new TurkishStemmerTokenFilterFactory(indexSettings, env, name,
+						settings, cache, null, null);
+			}
+
+			String index = indexSettings.getIndex().getName();
+			TurkishStemmerTokenFilterFactory factory = new TurkishStemmerTokenFilterFactory(
+					indexSettings, env, name, settings, cache, wordLists,
+					stats.stats(index, name));
+			filters.register(index, factory);
+			return factory;
+		});
+	}
+
+	/**
+	 * Checks whether filters are built for a single request rather than for
+	 * an index, such as the filters that _analyze defines inline. Their index
+	 * is never removed, so they load their own word lists and keep their own
+	 * stats instead of taking references in the registries of the node.
+	 */
+	static boolean isTransient(Index index) {
+		return IndexMetaData.INDEX_UUID_NA_VALUE.equals(index.getUUID());
 	}
 }
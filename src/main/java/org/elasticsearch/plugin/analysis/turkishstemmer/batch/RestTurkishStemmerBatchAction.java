@@ -0,0 +1,42 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.batch;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+
+import java.io.IOException;
+
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.action.RestToXContentListener;
+
+/**
+ * Serves batches at {@code _turkish_stemmer/stem} and
+ * {@code {index}/_turkish_stemmer/stem}.
+ */
+public class RestTurkishStemmerBatchAction extends BaseRestHandler {
+
+	public RestTurkishStemmerBatchAction(Settings settings, RestController controller) {
+		super(settings);
+		controller.registerHandler(GET, "/_turkish_stemmer/stem", this);
+		controller.registerHandler(POST, "/_turkish_stemmer/stem", this);
+		controller.registerHandler(GET, "/{index}/_turkish_stemmer/stem", this);
+		controller.registerHandler(POST, "/{index}/_turkish_stemmer/stem", this);
+	}
+
+	@Override
+	protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client)
+			throws IOException {
+		TurkishStemmerBatchRequest batchRequest = new TurkishStemmerBatchRequest(request.param("index"));
+
+		try (XContentParser parser = request.contentOrSourceParamParser()) {
+			TurkishStemmerBatchRequest.parse(parser, batchRequest);
+		}
+
+		return channel -> client.execute(TurkishStemmerBatchAction.INSTANCE, batchRequest,
+				new RestToXContentListener<>(channel));
+	}
+}
@@ -0,0 +1,137 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.batch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.single.shard.TransportSingleShardAction;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.routing.ShardsIterator;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.analysis.TurkishStemmer;
+import org.elasticsearch.index.analysis.TurkishStemmerTokenFilterFactory;
+import org.elasticsearch.index.analysis.stemmer.turkish.batch.BatchStemmer;
+import org.elasticsearch.index.analysis.stemmer.turkish.batch.FilterRegistry;
+import org.elasticsearch.index.analysis.stemmer.turkish.stats.StemmerStats;
+import org.elasticsearch.index.analysis.stemmer.turkish.stats.StemmerStatsRegistry;
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.StemExplanation;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.plugin.analysis.turkishstemmer.TurkishStemmerPlugin;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+/**
+ * Stems a batch on the thread pool of the stemmer. A batch with an index is
+ * stemmed on a node that holds a shard of the index, with the filter of the
+ * index; a batch without one is stemmed on the local node with the default
+ * filter. The words of the batches stemmed with the filter of an index are
+ * counted in the batch stats of the filter, apart from its indexing stats.
+ */
+public class TransportTurkishStemmerBatchAction
+		extends TransportSingleShardAction<TurkishStemmerBatchRequest, TurkishStemmerBatchResponse> {
+
+	private final BatchStemmer batchStemmer;
+	private final FilterRegistry filters;
+	private final StemmerStatsRegistry stats;
+	private final int maxEntries;
+	private final int maxChars;
+
+	@Inject
+	public TransportTurkishStemmerBatchAction(Settings settings, ThreadPool threadPool,
+			ClusterService clusterService, TransportService transportService,
+			ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver,
+			BatchStemmer batchStemmer, FilterRegistry filters, StemmerStatsRegistry stats) {
+		super(settings, TurkishStemmerBatchAction.NAME, threadPool, clusterService, transportService,
+				actionFilters, indexNameExpressionResolver, TurkishStemmerBatchRequest::new,
+				BatchStemmer.THREAD_POOL);
+		this.batchStemmer = batchStemmer;
+		this.filters = filters;
+		this.stats = stats;
+		this.maxEntries = TurkishStemmerPlugin.BATCH_MAX_ENTRIES.get(settings);
+		this.maxChars = TurkishStemmerPlugin.BATCH_MAX_CHARS.get(settings);
+	}
+
+	@Override
+	protected void doExecute(TurkishStemmerBatchRequest request,
+			ActionListener<TurkishStemmerBatchResponse> listener) {
+		// The limits are the ones of the node that receives the batch
+		ActionRequestValidationException validationException =
+				request.maxSize(maxEntries, maxChars).validate();
+		if (validationException != null) {
+			listener.onFailure(validationException);
+			return;
+		}
+		super.doExecute(request, listener);
+	}
+
+	@Override
+	protected TurkishStemmerBatchResponse newResponse() {
+		return new TurkishStemmerBatchResponse();
+	}
+
+	@Override
+	protected boolean resolveIndex(TurkishStemmerBatchRequest request) {
+		return request.index() != null;
+	}
+
+	@Override
+	protected ClusterBlockException checkRequestBlock(ClusterState state, InternalRequest request) {
+		if (request.concreteIndex() != null) {
+			return super.checkRequestBlock(state, request);
+		}
+		return null;
+	}
+
+	@Override
+	protected ShardsIterator shards(ClusterState state, InternalRequest request) {
+		if (request.concreteIndex() == null) {
+			// without an index, the batch is stemmed on the local node
+			return null;
+		}
+		return state.getRoutingTable().index(request.concreteIndex()).randomAllActiveShardsIt();
+	}
+
+	@Override
+	protected TurkishStemmerBatchResponse shardOperation(TurkishStemmerBatchRequest request,
+			ShardId shardId) throws IOException {
+		Function<TokenStream, TokenStream> filter = batchStemmer.defaultFilter();
+		TurkishStemmer stemmer = TurkishStemmerTokenFilterFactory.defaultGeneration().stemmer();
+
+		if (request.filter() != null) {
+			TurkishStemmerTokenFilterFactory factory =
+					filters.get(shardId.getIndexName(), request.filter());
+			if (factory == null) {
+				throw new IllegalArgumentException("failed to find filter [" + request.filter() +
+						"] of type [turkish_stemmer] in index [" + shardId.getIndexName() + "]");
+			}
+			StemmerStats batchStats = stats.batchStats(shardId.getIndexName(), request.filter());
+			filter = stream -> factory.create(stream, batchStats);
+			stemmer = factory.stemmer();
+		}
+
+		String[] stems = request.words() == null ? null :
+				batchStemmer.stemWords(filter, request.words());
+		String[][] tokens = request.texts() == null ? null :
+				batchStemmer.stemTexts(filter, request.texts());
+
+		List<StemExplanation> explanations = null;
+
+		if (request.explain()) {
+			explanations = new ArrayList<>(request.words().length);
+			for (String word : request.words()) {
+				explanations.add(stemmer.explain(word));
+			}
+		}
+
+		return new TurkishStemmerBatchResponse(stems, tokens, explanations);
+	}
+}
@@ -0,0 +1,25 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.batch;
+
+import org.elasticsearch.action.Action;
+import org.elasticsearch.client.ElasticsearchClient;
+
+public class TurkishStemmerBatchAction extends Action<TurkishStemmerBatchRequest,
+		TurkishStemmerBatchResponse, TurkishStemmerBatchRequestBuilder> {
+
+	public static final TurkishStemmerBatchAction INSTANCE = new TurkishStemmerBatchAction();
+	public static final String NAME = "indices:admin/turkish_stemmer/stem";
+
+	private TurkishStemmerBatchAction() {
+		super(NAME);
+	}
+
+	@Override
+	public TurkishStemmerBatchResponse newResponse() {
+		return new TurkishStemmerBatchResponse();
+	}
+
+	@Override
+	public TurkishStemmerBatchRequestBuilder newRequestBuilder(ElasticsearchClient client) {
+		return new TurkishStemmerBatchRequestBuilder(client, this);
+	}
+}
@@ -0,0 +1,206 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.batch;
+
+import static org.elasticsearch.action.ValidateActions.addValidationError;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.support.single.shard.SingleShardRequest;
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+/**
+ * A request to stem words or texts, with the default stemmer or with a
+ * filter of an index.
+ */
+public class TurkishStemmerBatchRequest extends SingleShardRequest<TurkishStemmerBatchRequest> {
+
+	static final ParseField FILTER = new ParseField("filter");
+	static final ParseField WORDS = new ParseField("words");
+	static final ParseField TEXTS = new ParseField("texts");
+	static final ParseField EXPLAIN = new ParseField("explain");
+
+	private String filter;
+	private String[] words;
+	private String[] texts;
+	private boolean explain;
+	/**
+	 * The limits of the node that stems the batch, which are not sent along
+	 * with the request; 0 means no limit.
+	 */
+	private int maxEntries;
+	private int maxChars;
+
+	public TurkishStemmerBatchRequest() {
+	}
+
+	public TurkishStemmerBatchRequest(String index) {
+		super(index);
+	}
+
+	/**
+	 * Sets the name of the filter of the index to stem with.
+	 */
+	public TurkishStemmerBatchRequest filter(String filter) {
+		this.filter = filter;
+		return this;
+	}
+
+	public String filter() {
+		return filter;
+	}
+
+	/**
+	 * Sets the words to stem, each one as it is.
+	 */
+	public TurkishStemmerBatchRequest words(String... words) {
+		this.words = words;
+		return this;
+	}
+
+	public String[] words() {
+		return words;
+	}
+
+	/**
+	 * Sets the texts whose words to stem.
+	 */
+	public TurkishStemmerBatchRequest texts(String... texts) {
+		this.texts = texts;
+		return this;
+	}
+
+	public String[] texts() {
+		return texts;
+	}
+
+	/**
+	 * Sets whether to explain what the stemmer did with each word.
+	 */
+	public TurkishStemmerBatchRequest explain(boolean explain) {
+		this.explain = explain;
+		return this;
+	}
+
+	public boolean explain() {
+		return explain;
+	}
+
+	/**
+	 * Sets the maximum size of the batch, which the node applies from its
+	 * settings before validating the request.
+	 *
+	 * @param maxEntries the maximum number of words and texts, or 0
+	 * @param maxChars the maximum number of characters of the words and
+	 * texts, or 0
+	 */
+	public TurkishStemmerBatchRequest maxSize(int maxEntries, int maxChars) {
+		this.maxEntries = maxEntries;
+		this.maxChars = maxChars;
+		return this;
+	}
+
+	@Override
+	public ActionRequestValidationException validate() {
+		ActionRequestValidationException validationException = null;
+		if (words == null && texts == null) {
+			validationException = addValidationError("words or texts is missing", validationException);
+		}
+		if (explain && words == null) {
+			validationException = addValidationError("explain requires words", validationException);
+		}
+		if (filter != null && index == null) {
+			validationException = addValidationError("filter [" + filter + "] requires an index",
+					validationException);
+		}
+		int entries = length(words) + length(texts);
+		if (maxEntries > 0 && entries > maxEntries) {
+			validationException = addValidationError("batch has [" + entries +
+					"] words and texts, more than the maximum of [" + maxEntries + "]",
+					validationException);
+		}
+		long chars = chars(words) + chars(texts);
+		if (maxChars > 0 && chars > maxChars) {
+			validationException = addValidationError("batch has [" + chars +
+					"] characters, more than the maximum of [" + maxChars + "]",
+					validationException);
+		}
+		return validationException;
+	}
+
+	private static int length(String[] strings) {
+		return strings == null ? 0 : strings.length;
+	}
+
+	private static long chars(String[] strings) {
+		long chars = 0;
+		if (strings != null) {
+			for (String string : strings) {
+				chars += string.length();
+			}
+		}
+		return chars;
+	}
+
+	/**
+	 * Parses the body of a request, which has the optional fields
+	 * {@code filter}, {@code words}, {@code texts} and {@code explain}.
+	 */
+	public static void parse(XContentParser parser, TurkishStemmerBatchRequest request)
+			throws IOException {
+		if (parser.nextToken() != XContentParser.Token.START_OBJECT) {
+			throw new IllegalArgumentException("Malformed content, must start with an object");
+		}
+		String currentFieldName = null;
+		XContentParser.Token token;
+		while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+			if (token == XContentParser.Token.FIELD_NAME) {
+				currentFieldName = parser.currentName();
+			} else if (FILTER.match(currentFieldName) && token == XContentParser.Token.VALUE_STRING) {
+				request.filter(parser.text());
+			} else if (WORDS.match(currentFieldName) && token == XContentParser.Token.START_ARRAY) {
+				request.words(parseStrings(parser, currentFieldName));
+			} else if (TEXTS.match(currentFieldName) && token == XContentParser.Token.START_ARRAY) {
+				request.texts(parseStrings(parser, currentFieldName));
+			} else if (EXPLAIN.match(currentFieldName) && token == XContentParser.Token.VALUE_BOOLEAN) {
+				request.explain(parser.booleanValue());
+			} else {
+				throw new IllegalArgumentException("Unknown parameter [" + currentFieldName +
+						"] in request body or parameter is of the wrong type [" + token + "]");
+			}
+		}
+	}
+
+	private static String[] parseStrings(XContentParser parser, String fieldName) throws IOException {
+		List<Object> values = parser.list();
+		String[] strings = new String[values.size()];
+		for (int i = 0; i < strings.length; i++) {
+			if (!(values.get(i) instanceof String)) {
+				throw new IllegalArgumentException("[" + fieldName + "] must be an array of strings");
+			}
+			strings[i] = (String) values.get(i);
+		}
+		return strings;
+	}
+
+	@Override
+	public void readFrom(StreamInput in) throws IOException {
+		super.readFrom(in);
+		filter = in.readOptionalString();
+		words = in.readOptionalStringArray();
+		texts = in.readOptionalStringArray();
+		explain = in.readBoolean();
+	}
+
+	@Override
+	public void writeTo(StreamOutput out) throws IOException {
+		super.writeTo(out);
+		out.writeOptionalString(filter);
+		out.writeOptionalStringArray(words);
+		out.writeOptionalStringArray(texts);
+		out.writeBoolean(explain);
+	}
+}
@@ -0,0 +1,33 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.batch;
+
+import org.elasticsearch.action.support.single.shard.SingleShardOperationRequestBuilder;
+import org.elasticsearch.client.ElasticsearchClient;
+
+public class TurkishStemmerBatchRequestBuilder extends SingleShardOperationRequestBuilder<
+		TurkishStemmerBatchRequest, TurkishStemmerBatchResponse, TurkishStemmerBatchRequestBuilder> {
+
+	public TurkishStemmerBatchRequestBuilder(ElasticsearchClient client,
+			TurkishStemmerBatchAction action) {
+		super(client, action, new TurkishStemmerBatchRequest());
+	}
+
+	public TurkishStemmerBatchRequestBuilder setFilter(String filter) {
+		request.filter(filter);
+		return this;
+	}
+
+	public TurkishStemmerBatchRequestBuilder setWords(String... words) {
+		request.words(words);
+		return this;
+	}
+
+	public TurkishStemmerBatchRequestBuilder setTexts(String... texts) {
+		request.texts(texts);
+		return this;
+	}
+
+	public TurkishStemmerBatchRequestBuilder setExplain(boolean explain) {
+		request.explain(explain);
+		return this;
+	}
+}
@@ -0,0 +1,115 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.batch;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.StemExplanation;
+
+/**
+ * The stems of the words and of the texts of a request, in their order, and
+ * the explanations of the words if they were asked for.
+ */
+public class TurkishStemmerBatchResponse extends ActionResponse implements ToXContentObject {
+
+	private String[] stems;
+	private String[][] tokens;
+	private List<StemExplanation> explanations;
+
+	TurkishStemmerBatchResponse() {
+	}
+
+	public TurkishStemmerBatchResponse(String[] stems, String[][] tokens,
+			List<StemExplanation> explanations) {
+		this.stems = stems;
+		this.tokens = tokens;
+		this.explanations = explanations;
+	}
+
+	/**
+	 * Gets the stem of each word.
+	 *
+	 * @return the stems, or null if the request had no words
+	 */
+	public String[] getStems() {
+		return stems;
+	}
+
+	/**
+	 * Gets the stems of the words of each text.
+	 *
+	 * @return the stems, or null if the request had no texts
+	 */
+	public String[][] getTokens() {
+		return tokens;
+	}
+
+	/**
+	 * Gets the explanation of each word.
+	 *
+	 * @return the explanations, or null if they were not asked for
+	 */
+	public List<StemExplanation> getExplanations() {
+		return explanations;
+	}
+
+	@Override
+	public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+		builder.startObject();
+		if (stems != null) {
+			builder.array("stems", stems);
+		}
+		if (tokens != null) {
+			builder.startArray("tokens");
+			for (String[] text : tokens) {
+				builder.value(text);
+			}
+			builder.endArray();
+		}
+		if (explanations != null) {
+			builder.startArray("explanations");
+			for (StemExplanation explanation : explanations) {
+				explanation.toXContent(builder, params);
+			}
+			builder.endArray();
+		}
+		builder.endObject();
+		return builder;
+	}
+
+	@Override
+	public void readFrom(StreamInput in) throws IOException {
+		super.readFrom(in);
+		stems = in.readOptionalStringArray();
+		if (in.readBoolean()) {
+			tokens = new String[in.readVInt()][];
+			for (int i = 0; i < tokens.length; i++) {
+				tokens[i] = in.readStringArray();
+			}
+		}
+		if (in.readBoolean()) {
+			explanations = in.readList(StemExplanation::new);
+		}
+	}
+
+	@Override
+	public void writeTo(StreamOutput out) throws IOException {
+		super.writeTo(out);
+		out.writeOptionalStringArray(stems);
+		out.writeBoolean(tokens != null);
+		if (tokens != null) {
+			out.writeVInt(tokens.length);
+			for (String[] text : tokens) {
+				out.writeStringArray(text);
+			}
+		}
+		out.writeBoolean(explanations != null);
+		if (explanations != null) {
+			out.writeList(explanations);
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.stats;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+
+import java.io.IOException;
+
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.action.RestActions.NodesResponseRestListener;
+
+/**
+ * Serves the stats of the filters at {@code GET _nodes/turkish_stemmer/stats}
+ * and {@code GET _nodes/{nodeId}/turkish_stemmer/stats}.
+ */
+public class RestTurkishStemmerStatsAction extends BaseRestHandler {
+
+	public RestTurkishStemmerStatsAction(Settings settings, RestController controller) {
+		super(settings);
+		controller.registerHandler(GET, "/_nodes/turkish_stemmer/stats", this);
+		controller.registerHandler(GET, "/_nodes/{nodeId}/turkish_stemmer/stats", this);
+	}
+
+	@Override
+	protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client)
+			throws IOException {
+		String[] nodesIds = Strings.splitStringByCommaToArray(request.param("nodeId"));
+		TurkishStemmerStatsRequest statsRequest = new TurkishStemmerStatsRequest(nodesIds);
+		statsRequest.timeout(request.param("timeout"));
+
+		return channel -> client.execute(TurkishStemmerStatsAction.INSTANCE, statsRequest,
+				new NodesResponseRestListener<>(channel));
+	}
+}
@@ -0,0 +1,101 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.stats;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.nodes.BaseNodeRequest;
+import org.elasticsearch.action.support.nodes.TransportNodesAction;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.analysis.stemmer.turkish.stats.StemmerStats;
+import org.elasticsearch.index.analysis.stemmer.turkish.stats.StemmerStatsRegistry;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+public class TransportTurkishStemmerStatsAction extends TransportNodesAction<TurkishStemmerStatsRequest,
+		TurkishStemmerStatsResponse, TransportTurkishStemmerStatsAction.NodeRequest, TurkishStemmerNodeStats> {
+
+	private final StemmerStatsRegistry stats;
+
+	@Inject
+	public TransportTurkishStemmerStatsAction(Settings settings, ThreadPool threadPool,
+			ClusterService clusterService, TransportService transportService,
+			ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver,
+			StemmerStatsRegistry stats) {
+		super(settings, TurkishStemmerStatsAction.NAME, threadPool, clusterService, transportService,
+				actionFilters, indexNameExpressionResolver, TurkishStemmerStatsRequest::new,
+				NodeRequest::new, ThreadPool.Names.MANAGEMENT, TurkishStemmerNodeStats.class);
+		this.stats = stats;
+	}
+
+	@Override
+	protected TurkishStemmerStatsResponse newResponse(TurkishStemmerStatsRequest request,
+			List<TurkishStemmerNodeStats> responses, List<FailedNodeException> failures) {
+		return new TurkishStemmerStatsResponse(clusterService.getClusterName(), responses, failures);
+	}
+
+	@Override
+	protected NodeRequest newNodeRequest(String nodeId, TurkishStemmerStatsRequest request) {
+		return new NodeRequest(nodeId);
+	}
+
+	@Override
+	protected TurkishStemmerNodeStats newNodeResponse() {
+		return new TurkishStemmerNodeStats();
+	}
+
+	@Override
+	protected TurkishStemmerNodeStats nodeOperation(NodeRequest request) {
+		return new TurkishStemmerNodeStats(clusterService.localNode(),
+				filterStats(stats.indices()), filterStats(stats.batches()));
+	}
+
+	private static Map<String, Map<String, TurkishStemmerFilterStats>> filterStats(
+			Map<String, Map<String, StemmerStats>> stats) {
+		Map<String, Map<String, TurkishStemmerFilterStats>> indices = new TreeMap<>();
+
+		for (Map.Entry<String, Map<String, StemmerStats>> index : stats.entrySet()) {
+			Map<String, TurkishStemmerFilterStats> filters = new TreeMap<>();
+			for (Map.Entry<String, StemmerStats> filter : index.getValue().entrySet()) {
+				filters.put(filter.getKey(), new TurkishStemmerFilterStats(filter.getValue()));
+			}
+			indices.put(index.getKey(), Collections.unmodifiableMap(filters));
+		}
+
+		return Collections.unmodifiableMap(indices);
+	}
+
+	@Override
+	protected boolean accumulateExceptions() {
+		return false;
+	}
+
+	public static class NodeRequest extends BaseNodeRequest {
+
+		public NodeRequest() {
+		}
+
+		NodeRequest(String nodeId) {
+			super(nodeId);
+		}
+
+		@Override
+		public void readFrom(StreamInput in) throws IOException {
+			super.readFrom(in);
+		}
+
+		@Override
+		public void writeTo(StreamOutput out) throws IOException {
+			super.writeTo(out);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.stats;
+
+import java.io.IOException;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.analysis.stemmer.turkish.stats.StemmerStats;
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.SkipReason;
+
+/**
+ * A snapshot of the stats of a filter.
+ */
+public class TurkishStemmerFilterStats implements Writeable, ToXContent {
+
+	private final long tokens;
+	private final long keywords;
+	private final long stemmed;
+	private final long truncated;
+	private final long[] skipped;
+	private final long cacheHits;
+	private final long cacheMisses;
+	private final long lexiconHits;
+	private final long lexiconMisses;
+	private final long[] latencies;
+
+	public TurkishStemmerFilterStats(StemmerStats stats) {
+		this.tokens = stats.tokens();
+		this.keywords = stats.keywords();
+		this.stemmed = stats.stemmed();
+		this.truncated = stats.truncated();
+		this.skipped = new long[SkipReason.values().length];
+		for (SkipReason reason : SkipReason.values()) {
+			this.skipped[reason.ordinal()] = stats.skipped(reason);
+		}
+		this.cacheHits = stats.cacheHits();
+		this.cacheMisses = stats.cacheMisses();
+		this.lexiconHits = stats.lexiconHits();
+		this.lexiconMisses = stats.lexiconMisses();
+		this.latencies = new long[StemmerStats.LATENCY_BUCKETS];
+		for (int i = 0; i < latencies.length; i++) {
+			this.latencies[i] = stats.latency(i);
+		}
+	}
+
+	public TurkishStemmerFilterStats(StreamInput in) throws IOException {
+		this.tokens = in.readVLong();
+		this.keywords = in.readVLong();
+		this.stemmed = in.readVLong();
+		this.truncated = in.readVLong();
+		this.skipped = in.readVLongArray();
+		this.cacheHits = in.readVLong();
+		this.cacheMisses = in.readVLong();
+		this.lexiconHits = in.readVLong();
+		this.lexiconMisses = in.readVLong();
+		this.latencies = in.readVLongArray();
+	}
+
+	@Override
+	public void writeTo(StreamOutput out) throws IOException {
+		out.writeVLong(tokens);
+		out.writeVLong(keywords);
+		out.writeVLong(stemmed);
+		out.writeVLong(truncated);
+		out.writeVLongArray(skipped);
+		out.writeVLong(cacheHits);
+		out.writeVLong(cacheMisses);
+		out.writeVLong(lexiconHits);
+		out.writeVLong(lexiconMisses);
+		out.writeVLongArray(latencies);
+	}
+
+	public long getTokens() {
+		return tokens;
+	}
+
+	public long getStemmed() {
+		return stemmed;
+	}
+
+	public long getTruncated() {
+		return truncated;
+	}
+
+	public long getSkipped(SkipReason reason) {
+		return skipped[reason.ordinal()];
+	}
+
+	public long getKeywords() {
+		return keywords;
+	}
+
+	public long getCacheHits() {
+		return cacheHits;
+	}
+
+	public long getCacheMisses() {
+		return cacheMisses;
+	}
+
+	public long getLexiconHits() {
+		return lexiconHits;
+	}
+
+	public long getLexiconMisses() {
+		return lexiconMisses;
+	}
+
+	/**
+	 * Gets the share of the looked up tokens that were found in a cache.
+	 *
+	 * @return the hit ratio, or 0 if nothing was looked up
+	 */
+	public double getCacheHitRatio() {
+		long lookups = cacheHits + cacheMisses;
+		return lookups == 0 ? 0 : (double) cacheHits / lookups;
+	}
+
+	@Override
+	public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+		builder.field("tokens", tokens);
+		builder.field("stemmed", stemmed);
+		builder.field("truncated", truncated);
+		builder.startObject("skipped");
+		builder.field("keyword", keywords);
+		for (SkipReason reason : SkipReason.values()) {
+			builder.field(reason.toString(), skipped[reason.ordinal()]);
+		}
+		builder.endObject();
+		builder.startObject("cache");
+		builder.field("hits", cacheHits);
+		builder.field("misses", cacheMisses);
+		builder.field("hit_ratio", getCacheHitRatio());
+		builder.endObject();
+		builder.startObject("lexicon");
+		builder.field("hits", lexiconHits);
+		builder.field("misses", lexiconMisses);
+		builder.endObject();
+		builder.startObject("latency");
+		builder.field("sampling", StemmerStats.LATENCY_SAMPLING);
+		builder.startArray("histogram");
+		for (int i = 0; i < latencies.length; i++) {
+			if (latencies[i] == 0) {
+				continue;
+			}
+			builder.startObject();
+			if (i < latencies.length - 1) {
+				builder.field("lt_nanos", StemmerStats.latencyBound(i));
+			} else {
+				builder.field("gte_nanos", StemmerStats.latencyBound(i - 1));
+			}
+			builder.field("count", latencies[i]);
+			builder.endObject();
+		}
+		builder.endArray();
+		builder.endObject();
+		return builder;
+	}
+}
@@ -0,0 +1,114 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.stats;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+/**
+ * The stats of the filters of a node, by index and filter name, and the stats
+ * of the batches stemmed with them.
+ */
+public class TurkishStemmerNodeStats extends BaseNodeResponse implements ToXContent {
+
+	private Map<String, Map<String, TurkishStemmerFilterStats>> indices;
+	private Map<String, Map<String, TurkishStemmerFilterStats>> batches;
+
+	TurkishStemmerNodeStats() {
+	}
+
+	public TurkishStemmerNodeStats(DiscoveryNode node,
+			Map<String, Map<String, TurkishStemmerFilterStats>> indices,
+			Map<String, Map<String, TurkishStemmerFilterStats>> batches) {
+		super(node);
+		this.indices = indices;
+		this.batches = batches;
+	}
+
+	public static TurkishStemmerNodeStats readNodeStats(StreamInput in) throws IOException {
+		TurkishStemmerNodeStats stats = new TurkishStemmerNodeStats();
+		stats.readFrom(in);
+		return stats;
+	}
+
+	public Map<String, Map<String, TurkishStemmerFilterStats>> getIndices() {
+		return indices;
+	}
+
+	public Map<String, Map<String, TurkishStemmerFilterStats>> getBatches() {
+		return batches;
+	}
+
+	@Override
+	public void readFrom(StreamInput in) throws IOException {
+		super.readFrom(in);
+		this.indices = readIndices(in);
+		this.batches = readIndices(in);
+	}
+
+	@Override
+	public void writeTo(StreamOutput out) throws IOException {
+		super.writeTo(out);
+		writeIndices(out, indices);
+		writeIndices(out, batches);
+	}
+
+	@Override
+	public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+		builder.field("name", getNode().getName());
+		indicesToXContent(builder, params, "indices", indices);
+		indicesToXContent(builder, params, "batch", batches);
+		return builder;
+	}
+
+	private static Map<String, Map<String, TurkishStemmerFilterStats>> readIndices(StreamInput in)
+			throws IOException {
+		int indexCount = in.readVInt();
+		Map<String, Map<String, TurkishStemmerFilterStats>> indices = new TreeMap<>();
+		for (int i = 0; i < indexCount; i++) {
+			String index = in.readString();
+			int filterCount = in.readVInt();
+			Map<String, TurkishStemmerFilterStats> filters = new TreeMap<>();
+			for (int j = 0; j < filterCount; j++) {
+				filters.put(in.readString(), new TurkishStemmerFilterStats(in));
+			}
+			indices.put(index, Collections.unmodifiableMap(filters));
+		}
+		return Collections.unmodifiableMap(indices);
+	}
+
+	private static void writeIndices(StreamOutput out,
+			Map<String, Map<String, TurkishStemmerFilterStats>> indices) throws IOException {
+		out.writeVInt(indices.size());
+		for (Map.Entry<String, Map<String, TurkishStemmerFilterStats>> index : indices.entrySet()) {
+			out.writeString(index.getKey());
+			out.writeVInt(index.getValue().size());
+			for (Map.Entry<String, TurkishStemmerFilterStats> filter : index.getValue().entrySet()) {
+				out.writeString(filter.getKey());
+				filter.getValue().writeTo(out);
+			}
+		}
+	}
+
+	private static void indicesToXContent(XContentBuilder builder, Params params, String name,
+			Map<String, Map<String, TurkishStemmerFilterStats>> indices) throws IOException {
+		builder.startObject(name);
+		for (Map.Entry<String, Map<String, TurkishStemmerFilterStats>> index : indices.entrySet()) {
+			builder.startObject(index.getKey());
+			for (Map.Entry<String, TurkishStemmerFilterStats> filter : index.getValue().entrySet()) {
+				builder.startObject(filter.getKey());
+				filter.getValue().toXContent(builder, params);
+				builder.endObject();
+			}
+			builder.endObject();
+		}
+		builder.endObject();
+	}
+}
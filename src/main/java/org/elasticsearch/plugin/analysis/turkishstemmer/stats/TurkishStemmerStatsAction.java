@@ -0,0 +1,25 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.stats;
+
+import org.elasticsearch.action.Action;
+import org.elasticsearch.client.ElasticsearchClient;
+
+public class TurkishStemmerStatsAction extends Action<TurkishStemmerStatsRequest,
+		TurkishStemmerStatsResponse, TurkishStemmerStatsRequestBuilder> {
+
+	public static final TurkishStemmerStatsAction INSTANCE = new TurkishStemmerStatsAction();
+	public static final String NAME = "cluster:monitor/turkish_stemmer/stats";
+
+	private TurkishStemmerStatsAction() {
+		super(NAME);
+	}
+
+	@Override
+	public TurkishStemmerStatsResponse newResponse() {
+		return new TurkishStemmerStatsResponse();
+	}
+
+	@Override
+	public TurkishStemmerStatsRequestBuilder newRequestBuilder(ElasticsearchClient client) {
+		return new TurkishStemmerStatsRequestBuilder(client, this);
+	}
+}
@@ -0,0 +1,19 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.stats;
+
+import org.elasticsearch.action.support.nodes.BaseNodesRequest;
+
+/**
+ * A request for the stats of the filters of some nodes.
+ */
+public class TurkishStemmerStatsRequest extends BaseNodesRequest<TurkishStemmerStatsRequest> {
+
+	public TurkishStemmerStatsRequest() {
+	}
+
+	/**
+	 * Gets the stats of the given nodes, or all if none are given.
+	 */
+	public TurkishStemmerStatsRequest(String... nodesIds) {
+		super(nodesIds);
+	}
+}
@@ -0,0 +1,13 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.stats;
+
+import org.elasticsearch.action.support.nodes.NodesOperationRequestBuilder;
+import org.elasticsearch.client.ElasticsearchClient;
+
+public class TurkishStemmerStatsRequestBuilder extends NodesOperationRequestBuilder<
+		TurkishStemmerStatsRequest, TurkishStemmerStatsResponse, TurkishStemmerStatsRequestBuilder> {
+
+	public TurkishStemmerStatsRequestBuilder(ElasticsearchClient client,
+			TurkishStemmerStatsAction action) {
+		super(client, action, new TurkishStemmerStatsRequest());
+	}
+}
@@ -0,0 +1,50 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.stats;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.nodes.BaseNodesResponse;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+/**
+ * The stats of the filters of some nodes.
+ */
+public class TurkishStemmerStatsResponse extends BaseNodesResponse<TurkishStemmerNodeStats>
+		implements ToXContent {
+
+	TurkishStemmerStatsResponse() {
+	}
+
+	public TurkishStemmerStatsResponse(ClusterName clusterName,
+			List<TurkishStemmerNodeStats> nodes, List<FailedNodeException> failures) {
+		super(clusterName, nodes, failures);
+	}
+
+	@Override
+	protected List<TurkishStemmerNodeStats> readNodesFrom(StreamInput in) throws IOException {
+		return in.readList(TurkishStemmerNodeStats::readNodeStats);
+	}
+
+	@Override
+	protected void writeNodesTo(StreamOutput out, List<TurkishStemmerNodeStats> nodes)
+			throws IOException {
+		out.writeStreamableList(nodes);
+	}
+
+	@Override
+	public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+		builder.startObject("nodes");
+		for (TurkishStemmerNodeStats node : getNodes()) {
+			builder.startObject(node.getNode().getId());
+			node.toXContent(builder, params);
+			builder.endObject();
+		}
+		builder.endObject();
+		return builder;
+	}
+}
@@ -12,7 +12,7 @@ import static org.hamcrest.Matchers.instanceOf;
 public class SimpleTurkishStemmerAnalysisTest extends ESTestCase {
 	public void testTurkishStemmerAnalysis() throws IOException {
 		TestAnalysis analysis = createTestAnalysis(new Index("test", "_na_"),
-				Settings.EMPTY, new TurkishStemmerPlugin());
+				Settings.EMPTY, new TurkishStemmerPlugin(Settings.EMPTY));
 
 		TokenFilterFactory filterFactory = analysis.tokenFilter.get("turkish_stemmer");
 		assertThat(filterFactory, instanceOf(TurkishStemmerTokenFilterFactory.class));
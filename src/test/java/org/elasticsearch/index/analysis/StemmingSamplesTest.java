@@ -0,0 +1,173 @@
+package org.elasticsearch.index.analysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.apache.lucene.analysis.util.WordlistLoader;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Checks the stemmer against the golden stems of the stemming samples, and
+ * its throughput against the committed baseline.
+ *
+ * The golden file is only written by {@link UpdateStemmingSamples}, through
+ * {@code mvn test -Pupdate-samples}. The throughput is only checked when the
+ * {@code samples.checkThroughput} system property is true, as it is with
+ * {@code mvn test -Pcheck-throughput}. It is measured on one thread and
+ * written to {@code target/stemming_report.json}, which becomes the new
+ * baseline when copied over {@code src/test/resources/stemming_baseline.json};
+ * the test never writes the baseline. The allowed drop is given in percent by
+ * the {@code max_regression_percent} of the baseline, unless the
+ * {@code samples.maxRegression} system property overrides it.
+ */
+public class StemmingSamplesTest {
+  static final Path SAMPLES = Paths.get("src/test/resources/stemming_samples.txt");
+  static final Path BASELINE = Paths.get("src/test/resources/stemming_baseline.json");
+  static final Path REPORT = Paths.get("target/stemming_report.json");
+
+  private static final int MAX_REPORTED_DIFFS = 20;
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int MEASURED_ROUNDS = 5;
+  /**
+   * The number of times the samples are stemmed in a round.
+   */
+  private static final int PASSES_PER_ROUND = 10;
+
+  private final TurkishStemmer stemmer = new TurkishStemmer();
+  private char[][] words;
+  private String[] stems;
+
+  @BeforeClass
+  public void loadSamples() throws IOException {
+    List<String> lines;
+
+    try (InputStream input = Files.newInputStream(SAMPLES)) {
+      lines = WordlistLoader.getLines(input, StandardCharsets.UTF_8);
+    }
+
+    words = new char[lines.size()][];
+    stems = new String[lines.size()];
+
+    for (int i = 0; i < lines.size(); i++) {
+      String[] sample = lines.get(i).split(",");
+      words[i] = sample[0].toCharArray();
+      stems[i] = sample[1];
+    }
+  }
+
+  @Test
+  public void testGoldenStems() {
+    List<String> diffs = Collections.synchronizedList(new ArrayList<String>());
+
+    IntStream.range(0, words.length).parallel().forEach(i -> {
+      char[] buffer = words[i].clone();
+      String stem = new String(buffer, 0, stemmer.stem(buffer, buffer.length));
+
+      if (!stem.equals(stems[i])) {
+        diffs.add(new String(words[i]) + ": expected " + stems[i] + ", got " + stem);
+      }
+    });
+
+    Collections.sort(diffs);
+
+    Assert.assertTrue(diffs.isEmpty(), diffs.size() + " of " + words.length +
+        " samples differ from " + SAMPLES + ", the first ones being " +
+        diffs.subList(0, Math.min(diffs.size(), MAX_REPORTED_DIFFS)));
+  }
+
+  @Test
+  public void testThroughput() throws IOException {
+    if (!Boolean.getBoolean("samples.checkThroughput")) {
+      throw new SkipException("Run with -Pcheck-throughput to check the throughput");
+    }
+
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    TurkishStemmer.Context context = new TurkishStemmer.Context();
+    char[] buffer = new char[256];
+    double wordsPerSecond = 0;
+    double bytesPerWord = Double.MAX_VALUE;
+
+    for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+      long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+      long start = System.nanoTime();
+
+      for (int pass = 0; pass < PASSES_PER_ROUND; pass++) {
+        for (char[] word : words) {
+          System.arraycopy(word, 0, buffer, 0, word.length);
+          stemmer.stem(context, buffer, word.length);
+        }
+      }
+
+      long elapsed = System.nanoTime() - start;
+      long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+      long stemmed = (long) words.length * PASSES_PER_ROUND;
+
+      if (round >= WARMUP_ROUNDS) {
+        wordsPerSecond = Math.max(wordsPerSecond, stemmed * 1e9 / elapsed);
+        bytesPerWord = Math.min(bytesPerWord, (double) allocated / stemmed);
+      }
+    }
+
+    Map<String, Object> baseline = baseline();
+    double baselineWordsPerSecond = ((Number) baseline.get("words_per_second")).doubleValue();
+    String maxRegressionProperty = System.getProperty("samples.maxRegression");
+    double maxRegression = maxRegressionProperty != null ?
+        Double.parseDouble(maxRegressionProperty) :
+        ((Number) baseline.get("max_regression_percent")).doubleValue();
+
+    writeReport(wordsPerSecond, bytesPerWord, maxRegression);
+
+    Assert.assertTrue(wordsPerSecond >= baselineWordsPerSecond * (1 - maxRegression / 100),
+        String.format("Stemmed %.0f words/sec, more than %.0f%% below the baseline of %.0f words/sec",
+            wordsPerSecond, maxRegression, baselineWordsPerSecond));
+  }
+
+  private static Map<String, Object> baseline() throws IOException {
+    try (XContentParser parser = JsonXContent.jsonXContent.createParser(
+        NamedXContentRegistry.EMPTY, Files.readAllBytes(BASELINE))) {
+      return parser.map();
+    }
+  }
+
+  /**
+   * Writes the measures in the format of the baseline, along with the
+   * allowed drop the throughput was checked with.
+   */
+  private void writeReport(double wordsPerSecond, double bytesPerWord,
+      double maxRegression) throws IOException {
+
+    Files.createDirectories(REPORT.getParent());
+
+    try (OutputStream output = Files.newOutputStream(REPORT);
+         XContentBuilder report = XContentFactory.jsonBuilder(output)) {
+      report.prettyPrint();
+      report.startObject()
+          .field("words", words.length)
+          .field("words_per_second", Math.round(wordsPerSecond))
+          .field("bytes_per_word", Math.round(bytesPerWord * 100) / 100.0)
+          .field("max_regression_percent", maxRegression)
+          .endObject();
+    }
+  }
+}
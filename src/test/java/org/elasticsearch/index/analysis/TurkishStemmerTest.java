@@ -1,12 +1,21 @@
 package org.elasticsearch.index.analysis;
 
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.lucene.analysis.CharArraySet;
+import org.elasticsearch.index.analysis.stemmer.turkish.deasciification.Deasciifier;
 import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.DerivationalSuffix;
 import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.NominalVerbSuffix;
 import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.NounSuffix;
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.SkipReason;
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.StemTraceListener;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -60,6 +69,104 @@ public class TurkishStemmerTest {
     Assert.assertEquals(stem, expectedStem);
   }
 
+  @Test(dataProvider = "stems")
+  public void testStemInPlace(String word, String expectedStem) {
+    token = Arrays.copyOf(word.toCharArray(), word.length() + 1);
+    tokenLength = stemmer.stem(token, word.length());
+
+    Assert.assertEquals(new String(token, 0, tokenLength), expectedStem);
+  }
+
+  @Test
+  public void testStemInPlaceDoesNotAllocate() {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    Object[][] samples = stemmingSamples();
+    char[][] words = new char[samples.length][];
+    char[] buffer = new char[32];
+    int tokens = 200000;
+
+    for(int i = 0; i < samples.length; i++) {
+      words[i] = ((String) samples[i][0]).toCharArray();
+    }
+
+    for(int i = 0; i < tokens; i++) {
+      char[] word = words[i % words.length];
+      System.arraycopy(word, 0, buffer, 0, word.length);
+      stemmer.stem(buffer, word.length);
+    }
+
+    long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+
+    for(int i = 0; i < tokens; i++) {
+      char[] word = words[i % words.length];
+      System.arraycopy(word, 0, buffer, 0, word.length);
+      stemmer.stem(buffer, word.length);
+    }
+
+    long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    // A few hundred bytes go to the measurement itself, a byte per token
+    // would add up to hundreds of kilobytes
+    Assert.assertTrue(allocated < 4096,
+        allocated + " bytes allocated for " + tokens + " tokens");
+  }
+
+  @Test
+  public void testStemWithContext() {
+    TurkishStemmer.Context context = new TurkishStemmer.Context();
+
+    for(Object[] sample : stemmingSamples()) {
+      String word = (String) sample[0];
+      char[] buffer = word.toCharArray();
+      int stemLength = stemmer.stem(context, buffer, buffer.length);
+
+      Assert.assertEquals(new String(buffer, 0, stemLength), sample[1]);
+    }
+  }
+
+  @Test
+  public void testSharedStemmer() throws Exception {
+    final Object[][] samples = stemmingSamples();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try {
+      Callable<Integer> task = new Callable<Integer>() {
+        @Override
+        public Integer call() {
+          TurkishStemmer.Context context = new TurkishStemmer.Context();
+          char[] buffer = new char[32];
+          int failures = 0;
+
+          for(int i = 0; i < 20000; i++) {
+            String word = (String) samples[i % samples.length][0];
+            word.getChars(0, word.length(), buffer, 0);
+            int stemLength = i % 2 == 0 ? stemmer.stem(context, buffer, word.length()) :
+                                          stemmer.stem(buffer, word.length());
+
+            if(!new String(buffer, 0, stemLength).equals(samples[i % samples.length][1]))
+              failures++;
+          }
+
+          return failures;
+        }
+      };
+
+      Future<?>[] results = new Future<?>[8];
+
+      for(int i = 0; i < results.length; i++) {
+        results[i] = executor.submit(task);
+      }
+
+      for(Future<?> result : results) {
+        Assert.assertEquals(result.get(), 0);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   public void testNominalVerbSuffixStripper() {
     Set<String> stems = new LinkedHashSet<String>();
@@ -90,6 +197,27 @@ public class TurkishStemmerTest {
         "originalWord"), "kitap");
   }
 
+  @Test
+  public void testPostProcessPrecedence() {
+    // "internet" is an exception to the average stem size
+    String[] stems = { "kitap", "internet", "kalem" };
+
+    Assert.assertEquals(stemmer.postProcess(new LinkedHashSet<String>(Arrays.asList(stems)),
+        "originalWord"), "internet");
+
+    // Equally close to the average size, the shorter stem wins
+    String[] tied = { "kitap", "kit" };
+
+    Assert.assertEquals(stemmer.postProcess(new LinkedHashSet<String>(Arrays.asList(tied)),
+        "originalWord"), "kit");
+
+    // The last consonant rule applies before ranking
+    String[] consonants = { "kitab", "kitabı" };
+
+    Assert.assertEquals(stemmer.postProcess(new LinkedHashSet<String>(Arrays.asList(consonants)),
+        "kitabımı"), "kitap");
+  }
+
   @Test
   public void testDerivationalStripper() {
     Set<String> stems = new LinkedHashSet<String>();
@@ -180,4 +308,181 @@ public class TurkishStemmerTest {
     Assert.assertEquals(stemmer.proceedToStem("tekken"), false);
     Assert.assertEquals(stemmer.proceedToStem("saatler"), true);
   }
+
+  @Test
+  public void testBuilderDefaults() {
+    TurkishStemmer built = TurkishStemmer.builder().build();
+
+    for(String word : new String[] { "telefonları", "kitabımızdı", "çantasi" }) {
+      char[] buffer = word.toCharArray();
+      Assert.assertEquals(built.stem(buffer, buffer.length, 0),
+          stemmer.stem(buffer, buffer.length, 0));
+    }
+  }
+
+  private static TurkishStemmer limited(int maxTokenLength, int maxTransitions) {
+    return TurkishStemmer.builder()
+        .maxTokenLength(maxTokenLength)
+        .maxTransitions(maxTransitions)
+        .build();
+  }
+
+  private static String repeat(String prefix, String syllable, int count) {
+    StringBuilder word = new StringBuilder(prefix);
+
+    for(int i = 0; i < count; i++) {
+      word.append(syllable);
+    }
+
+    return word.toString();
+  }
+
+  @Test
+  public void testMaxTokenLength() {
+    TurkishStemmer.Context context = new TurkishStemmer.Context();
+    char[] word = "telefonları".toCharArray();
+
+    Assert.assertEquals(limited(10, 0).stem(context, word, word.length), word.length);
+    Assert.assertEquals(context.skipReason(), SkipReason.TOO_LONG);
+    Assert.assertEquals(limited(11, 0).stem(context, word, word.length), 7);
+    Assert.assertNull(context.skipReason());
+    Assert.assertEquals(limited(0, 0).stem(context, word, word.length), 7);
+  }
+
+  @Test
+  public void testMaxTransitions() {
+    TurkishStemmer.Context context = new TurkishStemmer.Context();
+    char[] word = repeat("ev", "lerimizdeki", 100).toCharArray();
+    int unlimited = limited(0, 0).stem(context, word.clone(), word.length);
+
+    Assert.assertFalse(context.truncated());
+
+    int truncated = limited(0, 10).stem(context, word.clone(), word.length);
+
+    Assert.assertTrue(context.truncated());
+    Assert.assertTrue(truncated > unlimited && truncated <= word.length);
+    Assert.assertTrue(limited(0, 10).explain(new String(word)).truncated());
+
+    // The budget is the one of each word, not of the context
+    word = "telefonları".toCharArray();
+    Assert.assertEquals(limited(0, 10).stem(context, word, word.length), 7);
+    Assert.assertFalse(context.truncated());
+  }
+
+  @Test
+  public void testDefaultLimits() {
+    TurkishStemmer.Context context = new TurkishStemmer.Context();
+    char[] word = repeat("ev", "ler", 90).toCharArray();
+
+    Assert.assertEquals(stemmer.stem(context, word, word.length), word.length);
+    Assert.assertEquals(context.skipReason(), SkipReason.TOO_LONG);
+
+    word = repeat("ev", "lerimizdeki", 20).toCharArray();
+    stemmer.stem(context, word, word.length);
+
+    Assert.assertNull(context.skipReason());
+    Assert.assertFalse(context.truncated());
+  }
+
+  @Test
+  public void testMistypeCorrection() {
+    TurkishStemmer.Context context = new TurkishStemmer.Context();
+    char[] word = "çantasi".toCharArray();
+
+    Assert.assertEquals(stemmer.stem(context, word, word.length), 5);
+    Assert.assertEquals(new String(word), "çantasi");
+
+    // A corrected word that remains unstemmed is the stem
+    word = "armoni".toCharArray();
+
+    Assert.assertEquals(stemmer.stem(context, word, word.length), word.length);
+    Assert.assertEquals(new String(word), "armonı");
+
+    TurkishStemmer uncorrected = TurkishStemmer.builder()
+        .correctMistypes(false)
+        .build();
+    word = "çantasi".toCharArray();
+
+    Assert.assertEquals(uncorrected.stem(context, word, word.length), word.length);
+    Assert.assertFalse(uncorrected.explain("çantasi").mistypeRetried());
+  }
+
+  @Test
+  public void testDeasciification() {
+    TurkishStemmer.Context context = new TurkishStemmer.Context();
+    TurkishStemmer deasciifying = TurkishStemmer.builder()
+        .deasciifier(new Deasciifier(new CharArraySet(
+            Arrays.asList("gözlük", "göz", "çanta", "çocuk", "ağaç"), false), 4))
+        .build();
+    String[][] samples = {
+      { "gozluklerinde", "gözlük" },
+      { "gozlerimiz", "göz" },
+      { "cantalarimizdan", "çanta" },
+      { "cocugu", "çocuk" },
+      { "agaclari", "ağaç" },
+      { "gozluk", "gözlük" },
+      { "gözlüklerinde", "gözlük" },
+      // Stems without Turkish letters need no variants
+      { "telefonlari", "telefon" },
+      { "kitaplari", "kitap" },
+    };
+
+    for(String[] sample : samples) {
+      char[] word = sample[0].toCharArray();
+      int stemLength = deasciifying.stem(context, word, word.length);
+
+      Assert.assertEquals(new String(word, 0, stemLength), sample[1], sample[0]);
+      Assert.assertNull(context.skipReason());
+    }
+  }
+
+  @Test
+  public void testMaxDeasciificationVariants() {
+    TurkishStemmer.Context context = new TurkishStemmer.Context();
+    CharArraySet stems = new CharArraySet(Arrays.asList("çi", "çiz", "çizgi"), false);
+    int[] variants = new int[1];
+    StemTraceListener listener = new StemTraceListener() {
+      @Override
+      public void deasciified(char[] word, int len) {
+        variants[0]++;
+      }
+    };
+
+    for(int maxVariants = 1; maxVariants <= 4; maxVariants++) {
+      TurkishStemmer deasciifying = TurkishStemmer.builder()
+          .listener(listener)
+          .deasciifier(new Deasciifier(stems, maxVariants))
+          .build();
+      char[] word = "cizgiler".toCharArray();
+
+      variants[0] = 0;
+
+      // No variant stems to a known stem, so the word stems as it is
+      Assert.assertEquals(new String(word, 0,
+          deasciifying.stem(context, word, word.length)), "cizg");
+      Assert.assertEquals(variants[0], Math.min(maxVariants, 3));
+    }
+  }
+
+  @Test
+  public void testCandidates() {
+    TurkishStemmer.Context context = new TurkishStemmer.Context();
+    char[] word = "evlerimizdekiler".toCharArray();
+    int[] candidates = new int[3];
+
+    Assert.assertEquals(stemmer.stem(context, word, word.length), 2);
+    Assert.assertEquals(stemmer.candidates(context, candidates, 0), 3);
+    // The exceptions to the average stem size come first
+    Assert.assertEquals(candidates, new int[] { 2, 5, 9 });
+    Assert.assertEquals(stemmer.candidates(context, candidates, 0.2f), 2);
+    Assert.assertEquals(stemmer.candidates(context, new int[1], 0), 1);
+
+    word = "ev".toCharArray();
+    stemmer.stem(context, word, word.length);
+
+    Assert.assertEquals(stemmer.candidates(context, candidates, 0), 0);
+    Assert.assertEquals(TurkishStemmer.candidateScore(4, false), 1f);
+    Assert.assertEquals(TurkishStemmer.candidateScore(6, false), 1f / 3);
+    Assert.assertEquals(TurkishStemmer.candidateScore(6, true), 1f);
+  }
 }
@@ -0,0 +1,318 @@
+package org.elasticsearch.index.analysis;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.miscellaneous.SetKeywordMarkerFilter;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.KeywordAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.lucene.analysis.tr.ApostropheFilter;
+import org.apache.lucene.analysis.tr.TurkishLowerCaseFilter;
+import org.elasticsearch.index.analysis.stemmer.turkish.cache.NodeStemCache;
+import org.elasticsearch.index.analysis.stemmer.turkish.lexicon.StemLexicon;
+import org.elasticsearch.index.analysis.stemmer.turkish.stats.StemmerStats;
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.SkipReason;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TurkishStemmerTokenFilterTest {
+
+  private static TurkishStemmerTokenFilter filter(Tokenizer tokenizer,
+                                                  int cacheSize) {
+    return new TurkishStemmerTokenFilter(tokenizer,
+        TurkishStemmer.getDefaultProtectedWordSet(),
+        TurkishStemmer.getDefaultVowelHarmonySet(),
+        TurkishStemmer.getDefaultLastConsonantSet(),
+        TurkishStemmer.getDefaultAverageStemSizeSet(),
+        cacheSize);
+  }
+
+  private static List<String> terms(Tokenizer tokenizer,
+                                    TurkishStemmerTokenFilter filter,
+                                    String text) throws IOException {
+    List<String> terms = new ArrayList<String>();
+    CharTermAttribute termAtt = filter.getAttribute(CharTermAttribute.class);
+
+    tokenizer.setReader(new StringReader(text));
+    filter.reset();
+    while(filter.incrementToken()) {
+      terms.add(termAtt.toString());
+    }
+    filter.end();
+    filter.close();
+
+    return terms;
+  }
+
+  @Test
+  public void testCacheKeepsStems() throws IOException {
+    String text = "telefonu kılıfı uyumlu telefonları kitabımızdı telefonu kılıfı";
+    Tokenizer tokenizer = new WhitespaceTokenizer();
+    TurkishStemmerTokenFilter uncached = filter(tokenizer, 0);
+    List<String> expected = terms(tokenizer, uncached, text);
+
+    tokenizer = new WhitespaceTokenizer();
+    TurkishStemmerTokenFilter cached = filter(tokenizer, 4);
+
+    Assert.assertEquals(terms(tokenizer, cached, text), expected);
+    Assert.assertEquals(cached.getCacheHits() + cached.getCacheMisses(), 7);
+    Assert.assertEquals(uncached.getCacheHits(), 0);
+  }
+
+  @Test
+  public void testCacheSurvivesReset() throws IOException {
+    Tokenizer tokenizer = new WhitespaceTokenizer();
+    TurkishStemmerTokenFilter filter = filter(tokenizer, 64);
+
+    Assert.assertEquals(terms(tokenizer, filter, "telefonları"),
+        Collections.singletonList("telefon"));
+    Assert.assertEquals(filter.getCacheMisses(), 1);
+
+    Assert.assertEquals(terms(tokenizer, filter, "telefonları"),
+        Collections.singletonList("telefon"));
+    Assert.assertEquals(filter.getCacheHits(), 1);
+  }
+
+  @Test
+  public void testNodeCache() throws IOException {
+    NodeStemCache cache = new NodeStemCache(1024, 1 << 20);
+    Tokenizer tokenizer = new WhitespaceTokenizer();
+    TurkishStemmerTokenFilter filter = new TurkishStemmerTokenFilter(tokenizer,
+        new TurkishStemmer(), 0, cache.view(1), null);
+
+    Assert.assertEquals(terms(tokenizer, filter, "telefonları telefonları"),
+        Arrays.asList("telefon", "telefon"));
+    Assert.assertEquals(cache.hits(), 1);
+
+    // A filter that protects the word must not get the cached stem
+    tokenizer = new WhitespaceTokenizer();
+    CharArraySet protectedWords = new CharArraySet(
+        Arrays.asList("telefonları"), false);
+    filter = new TurkishStemmerTokenFilter(tokenizer,
+        new TurkishStemmer(protectedWords,
+                           TurkishStemmer.getDefaultVowelHarmonySet(),
+                           TurkishStemmer.getDefaultLastConsonantSet(),
+                           TurkishStemmer.getDefaultAverageStemSizeSet()),
+        0, cache.view(TurkishStemmer.fingerprint(protectedWords)),
+        null);
+
+    Assert.assertEquals(terms(tokenizer, filter, "telefonları"),
+        Collections.singletonList("telefonları"));
+  }
+
+  @Test
+  public void testGenerationSwitch() throws IOException {
+    NodeStemCache cache = new NodeStemCache(1024, 1 << 20);
+    AtomicReference<TurkishStemmerTokenFilter.Generation> generation =
+        new AtomicReference<>(new TurkishStemmerTokenFilter.Generation(
+            new TurkishStemmer(), 1, null));
+    Tokenizer tokenizer = new WhitespaceTokenizer();
+    TurkishStemmerTokenFilter filter = new TurkishStemmerTokenFilter(tokenizer,
+        generation::get, 64, cache);
+
+    Assert.assertEquals(terms(tokenizer, filter, "telefonları"),
+        Collections.singletonList("telefon"));
+
+    CharArraySet protectedWords = new CharArraySet(
+        Arrays.asList("telefonları"), false);
+    generation.set(new TurkishStemmerTokenFilter.Generation(
+        new TurkishStemmer(protectedWords,
+                           TurkishStemmer.getDefaultVowelHarmonySet(),
+                           TurkishStemmer.getDefaultLastConsonantSet(),
+                           TurkishStemmer.getDefaultAverageStemSizeSet()),
+        2, null));
+
+    // Neither the stream nor the node cache may return the previous stem
+    Assert.assertEquals(terms(tokenizer, filter, "telefonları"),
+        Collections.singletonList("telefonları"));
+    Assert.assertEquals(filter.getCacheHits(), 0);
+    Assert.assertEquals(cache.hits(), 0);
+  }
+
+  @Test
+  public void testStats() throws IOException {
+    StemmerStats stats = new StemmerStats();
+    Tokenizer tokenizer = new WhitespaceTokenizer();
+    TurkishStemmerTokenFilter filter = new TurkishStemmerTokenFilter(
+        new SetKeywordMarkerFilter(tokenizer,
+            new CharArraySet(Arrays.asList("kitapları"), false)),
+        () -> new TurkishStemmerTokenFilter.Generation(new TurkishStemmer(), 1, null),
+        64, null, stats);
+    CharTermAttribute termAtt = filter.getAttribute(CharTermAttribute.class);
+
+    tokenizer.setReader(new StringReader(
+        "telefonları telefonları kitapları su windows"));
+    filter.reset();
+    while(filter.incrementToken()) {
+      termAtt.toString();
+    }
+
+    // The counts of the stream are only added once it ends
+    Assert.assertEquals(stats.tokens(), 0);
+
+    filter.end();
+    filter.close();
+
+    Assert.assertEquals(stats.tokens(), 5);
+    Assert.assertEquals(stats.keywords(), 1);
+    Assert.assertEquals(stats.stemmed(), 1);
+    Assert.assertEquals(stats.skipped(SkipReason.SMALL), 1);
+    Assert.assertEquals(stats.skipped(SkipReason.NON_TURKISH), 1);
+    Assert.assertEquals(stats.cacheHits(), 1);
+    Assert.assertEquals(stats.cacheMisses(), 3);
+    Assert.assertEquals(stats.truncated(), 0);
+  }
+
+  @Test
+  public void testLexiconStats() throws IOException {
+    Path directory = Files.createTempDirectory("lexicon");
+    Path file = directory.resolve("lexicon.fst");
+    StemLexicon.Writer writer = StemLexicon.writer(new TurkishStemmer().fingerprint());
+
+    writer.add("telefonları", "telefon");
+    writer.write(file);
+
+    try {
+      StemLexicon lexicon = StemLexicon.open(file);
+      StemmerStats stats = new StemmerStats();
+      Tokenizer tokenizer = new WhitespaceTokenizer();
+      TurkishStemmerTokenFilter filter = new TurkishStemmerTokenFilter(tokenizer,
+          () -> new TurkishStemmerTokenFilter.Generation(new TurkishStemmer(), 1, lexicon),
+          64, null, stats);
+
+      Assert.assertEquals(terms(tokenizer, filter, "telefonları telefonları kitapları"),
+          Arrays.asList("telefon", "telefon", "kitap"));
+
+      // Only the second telefonları comes from a cache
+      Assert.assertEquals(stats.cacheHits(), 1);
+      Assert.assertEquals(stats.cacheMisses(), 2);
+      Assert.assertEquals(stats.lexiconHits(), 1);
+      Assert.assertEquals(stats.lexiconMisses(), 1);
+    } finally {
+      Files.deleteIfExists(file);
+      Files.deleteIfExists(directory);
+    }
+  }
+
+  @Test
+  public void testFingerprint() {
+    CharArraySet words = new CharArraySet(Arrays.asList("bir", "iki"), false);
+    CharArraySet reversed = new CharArraySet(Arrays.asList("iki", "bir"), false);
+    CharArraySet other = new CharArraySet(Arrays.asList("bir", "üç"), false);
+
+    Assert.assertEquals(TurkishStemmer.fingerprint(words),
+        TurkishStemmer.fingerprint(reversed));
+    Assert.assertNotEquals(TurkishStemmer.fingerprint(words),
+        TurkishStemmer.fingerprint(other));
+  }
+
+  @Test
+  public void testCandidates() throws IOException {
+    String text = "telefonları kalemler kitaplarımızdan";
+    Tokenizer tokenizer = new WhitespaceTokenizer();
+    TurkishStemmerTokenFilter filter = new TurkishStemmerTokenFilter(tokenizer,
+        () -> new TurkishStemmerTokenFilter.Generation(new TurkishStemmer(), 1, null),
+        64, null, new StemmerStats(), 3, 0, false, false);
+    CharTermAttribute termAtt = filter.getAttribute(CharTermAttribute.class);
+    PositionIncrementAttribute posIncAtt =
+        filter.getAttribute(PositionIncrementAttribute.class);
+    OffsetAttribute offsetAtt = filter.getAttribute(OffsetAttribute.class);
+    List<String> tokens = new ArrayList<String>();
+
+    tokenizer.setReader(new StringReader(text));
+    filter.reset();
+    while(filter.incrementToken()) {
+      tokens.add(termAtt + "/" + posIncAtt.getPositionIncrement() + "/" +
+          offsetAtt.startOffset());
+    }
+    filter.end();
+    filter.close();
+
+    Assert.assertEquals(tokens, Arrays.asList("telefon/1/0", "telefonlar/0/0",
+        "kalem/1/12", "kitap/1/21", "kitaplar/0/21", "kitaplarımız/0/21"));
+
+    // The score cutoff drops the candidates far from the average stem size
+    tokenizer = new WhitespaceTokenizer();
+    filter = new TurkishStemmerTokenFilter(tokenizer,
+        () -> new TurkishStemmerTokenFilter.Generation(new TurkishStemmer(), 1, null),
+        0, null, new StemmerStats(), 3, 0.15f, false, false);
+
+    Assert.assertEquals(terms(tokenizer, filter, text),
+        Arrays.asList("telefon", "kalem", "kitap", "kitaplar"));
+  }
+
+  @Test
+  public void testPreserveOriginal() throws IOException {
+    String text = "telefonları kalem kitaplarımızdan";
+    Tokenizer tokenizer = new WhitespaceTokenizer();
+    TurkishStemmerTokenFilter filter = new TurkishStemmerTokenFilter(tokenizer,
+        () -> new TurkishStemmerTokenFilter.Generation(new TurkishStemmer(), 1, null),
+        64, null, new StemmerStats(), 1, 0, true, false);
+    CharTermAttribute termAtt = filter.getAttribute(CharTermAttribute.class);
+    PositionIncrementAttribute posIncAtt =
+        filter.getAttribute(PositionIncrementAttribute.class);
+    KeywordAttribute keywordAtt = filter.getAttribute(KeywordAttribute.class);
+    TypeAttribute typeAtt = filter.getAttribute(TypeAttribute.class);
+    List<String> tokens = new ArrayList<String>();
+
+    tokenizer.setReader(new StringReader(text));
+    filter.reset();
+    while(filter.incrementToken()) {
+      tokens.add(termAtt + "/" + posIncAtt.getPositionIncrement() + "/" +
+          keywordAtt.isKeyword() + "/" + typeAtt.type());
+    }
+    filter.end();
+    filter.close();
+
+    // A word that is its own stem is not repeated
+    Assert.assertEquals(tokens, Arrays.asList(
+        "telefon/1/false/word",
+        "telefonları/0/true/" + TurkishStemmerTokenFilter.ORIGINAL_TYPE,
+        "kalem/1/false/word",
+        "kitap/1/false/word",
+        "kitaplarımızdan/0/true/" + TurkishStemmerTokenFilter.ORIGINAL_TYPE));
+
+    // The original comes after the other candidates
+    tokenizer = new WhitespaceTokenizer();
+    filter = new TurkishStemmerTokenFilter(tokenizer,
+        () -> new TurkishStemmerTokenFilter.Generation(new TurkishStemmer(), 1, null),
+        0, null, new StemmerStats(), 3, 0, true, false);
+
+    Assert.assertEquals(terms(tokenizer, filter, "telefonları"),
+        Arrays.asList("telefon", "telefonlar", "telefonları"));
+  }
+
+  @Test
+  public void testNormalize() throws IOException {
+    String text = "Türkiye'nin İSTANBUL’DAKİ IŞIKLARI I\u0307stanbul'u " +
+        "KİTAPLARIMIZDAN Ankara";
+    Tokenizer tokenizer = new WhitespaceTokenizer();
+    TokenStream chain = new ApostropheFilter(new TurkishLowerCaseFilter(tokenizer));
+    TurkishStemmerTokenFilter chained = new TurkishStemmerTokenFilter(chain,
+        () -> new TurkishStemmerTokenFilter.Generation(new TurkishStemmer(), 1, null),
+        0, null, new StemmerStats(), 1, 0, true, false);
+    List<String> expected = terms(tokenizer, chained, text);
+
+    tokenizer = new WhitespaceTokenizer();
+    TurkishStemmerTokenFilter fused = new TurkishStemmerTokenFilter(tokenizer,
+        () -> new TurkishStemmerTokenFilter.Generation(new TurkishStemmer(), 1, null),
+        0, null, new StemmerStats(), 1, 0, true, true);
+
+    Assert.assertEquals(terms(tokenizer, fused, text), expected);
+    Assert.assertEquals(expected.subList(0, 2), Arrays.asList("türki", "türkiye"));
+  }
+}
@@ -1,15 +1,20 @@
 package org.elasticsearch.index.analysis;
 
 import java.io.BufferedWriter;
-import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
 
 import org.apache.lucene.analysis.util.WordlistLoader;
 
+/**
+ * Rewrites the golden stems of the stemming samples with the current stemmer.
+ * Run it through {@code mvn test -Pupdate-samples} once a change of the stems
+ * is intended, and review the diff of the samples.
+ */
 public class UpdateStemmingSamples {
   private final static TurkishStemmer stemmer = new TurkishStemmer();
 
@@ -23,9 +28,8 @@ public class UpdateStemmingSamples {
     char[] token;
     int tokenLength;
     String stem;
-    File file = new File("src/test/resources/stemming_samples.txt");
-    FileWriter fileWriter = new FileWriter(file.getAbsoluteFile());
-    BufferedWriter writer = new BufferedWriter(fileWriter);
+    BufferedWriter writer = Files.newBufferedWriter(
+        Paths.get("src/test/resources/stemming_samples.txt"), StandardCharsets.UTF_8);
 
     try {
       for(String line : lines) {
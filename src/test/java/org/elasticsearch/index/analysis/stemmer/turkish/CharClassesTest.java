@@ -0,0 +1,51 @@
+package org.elasticsearch.index.analysis.stemmer.turkish;
+
+import org.elasticsearch.index.analysis.TurkishStemmer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CharClassesTest {
+
+  private static void assertClass(String chars, int flag) {
+    for(char c = 0; c < 0x400; c++) {
+      Assert.assertEquals(CharClasses.is(c, flag), chars.indexOf(c) >= 0,
+          "Character " + c);
+    }
+  }
+
+  @Test
+  public void testClasses() {
+    assertClass(TurkishStemmer.ALPHABET, CharClasses.ALPHABET);
+    assertClass(TurkishStemmer.VOWELS, CharClasses.VOWEL);
+    assertClass(TurkishStemmer.CONSONANTS, CharClasses.CONSONANT);
+    assertClass(TurkishStemmer.FRONT_VOWELS, CharClasses.FRONT);
+    assertClass(TurkishStemmer.BACK_VOWELS, CharClasses.BACK);
+    assertClass(TurkishStemmer.ROUNDED_VOWELS, CharClasses.ROUNDED);
+    assertClass(TurkishStemmer.UNROUNDED_VOWELS, CharClasses.UNROUNDED);
+    assertClass(TurkishStemmer.FOLLOWING_ROUNDED_VOWELS,
+        CharClasses.FOLLOWING_ROUNDED);
+  }
+
+  @Test
+  public void testHarmony() {
+    String chars = TurkishStemmer.ALPHABET + "xA1";
+
+    for(char vowel : chars.toCharArray()) {
+      for(char candidate : chars.toCharArray()) {
+        boolean frontness =
+            (TurkishStemmer.FRONT_VOWELS.indexOf(vowel) >= 0 &&
+             TurkishStemmer.FRONT_VOWELS.indexOf(candidate) >= 0) ||
+            (TurkishStemmer.BACK_VOWELS.indexOf(vowel) >= 0 &&
+             TurkishStemmer.BACK_VOWELS.indexOf(candidate) >= 0);
+        boolean roundness =
+            (TurkishStemmer.UNROUNDED_VOWELS.indexOf(vowel) >= 0 &&
+             TurkishStemmer.UNROUNDED_VOWELS.indexOf(candidate) >= 0) ||
+            (TurkishStemmer.ROUNDED_VOWELS.indexOf(vowel) >= 0 &&
+             TurkishStemmer.FOLLOWING_ROUNDED_VOWELS.indexOf(candidate) >= 0);
+
+        Assert.assertEquals(CharClasses.harmony(vowel, candidate),
+            frontness && roundness, vowel + " " + candidate);
+      }
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package org.elasticsearch.index.analysis.stemmer.turkish;
+
+import java.util.Arrays;
+
+import org.elasticsearch.index.analysis.TurkishStemmer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class WordProfileTest {
+  private final TurkishStemmer stemmer = new TurkishStemmer();
+
+  @Test
+  public void testPrefixes() {
+    String[] words = { "kalelerimizdekilerden", "çocuğuymuşumcasına",
+                       "kitabımızdı", "lityum", "strç", "telefon1", "" };
+    WordProfile profile = new WordProfile();
+
+    for(String word : words) {
+      char[] buffer = word.toCharArray();
+
+      profile.reset(buffer, buffer.length);
+
+      Assert.assertEquals(profile.length(), word.length());
+
+      for(int len = 0; len <= word.length(); len++) {
+        String prefix = word.substring(0, len);
+
+        Assert.assertEquals(profile.syllables(len),
+            stemmer.countSyllables(prefix), prefix);
+        Assert.assertEquals(profile.vowelHarmony(len),
+            stemmer.hasVowelHarmony(prefix), prefix);
+      }
+    }
+  }
+
+  @Test
+  public void testLastVowel() {
+    WordProfile profile = new WordProfile();
+    char[] word = "kitap".toCharArray();
+
+    profile.reset(word, word.length);
+
+    Assert.assertEquals(profile.lastVowel(0), -1);
+    Assert.assertEquals(profile.lastVowel(1), -1);
+    Assert.assertEquals(profile.lastVowel(2), 1);
+    Assert.assertEquals(profile.lastVowel(5), 3);
+  }
+
+  @Test
+  public void testGrowth() {
+    WordProfile profile = new WordProfile();
+    char[] word = new char[100];
+
+    Arrays.fill(word, 'a');
+    profile.reset(word, word.length);
+
+    Assert.assertEquals(profile.syllables(100), 100);
+  }
+}
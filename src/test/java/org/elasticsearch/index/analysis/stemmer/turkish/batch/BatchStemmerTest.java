@@ -0,0 +1,131 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.batch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.elasticsearch.index.analysis.TurkishStemmer;
+import org.elasticsearch.index.analysis.TurkishStemmerTokenFilter;
+import org.elasticsearch.index.analysis.TurkishStemmerTokenFilterFactory;
+import org.elasticsearch.index.analysis.stemmer.turkish.cache.NodeStemCache;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class BatchStemmerTest {
+  private static final String[] WORDS = {
+    "telefonları", "kitabımızdı", "kılıfı", "uyumlu", "su", "windows", ""
+  };
+
+  private ExecutorService executor;
+
+  @BeforeClass
+  public void startExecutor() {
+    executor = Executors.newFixedThreadPool(3);
+  }
+
+  @AfterClass
+  public void stopExecutor() {
+    executor.shutdown();
+  }
+
+  private static String[] words(int count) {
+    String[] words = new String[count];
+
+    for(int i = 0; i < count; i++) {
+      words[i] = WORDS[i % WORDS.length];
+    }
+
+    return words;
+  }
+
+  private static String[] expected(String[] words) {
+    TurkishStemmer stemmer = new TurkishStemmer();
+    String[] stems = new String[words.length];
+
+    for(int i = 0; i < words.length; i++) {
+      char[] buffer = words[i].toCharArray();
+      stems[i] = new String(buffer, 0, stemmer.stem(buffer, buffer.length));
+    }
+
+    return stems;
+  }
+
+  @Test
+  public void testWordsInOrder() throws IOException {
+    BatchStemmer batch = new BatchStemmer(executor, 4, null);
+    String[] words = words(10 * BatchStemmer.WORDS_PER_CHUNK + 3);
+
+    Assert.assertEquals(batch.stemWords(batch.defaultFilter(), words), expected(words));
+  }
+
+  @Test
+  public void testRejectedHelpers() throws IOException {
+    BatchStemmer batch = new BatchStemmer(command -> {
+      throw new RejectedExecutionException();
+    }, 4, null);
+    String[] words = words(3 * BatchStemmer.WORDS_PER_CHUNK);
+
+    Assert.assertEquals(batch.stemWords(batch.defaultFilter(), words), expected(words));
+  }
+
+  @Test
+  public void testTexts() throws IOException {
+    BatchStemmer batch = new BatchStemmer(executor, 4, null);
+    String[] texts = new String[2 * BatchStemmer.TEXTS_PER_CHUNK + 1];
+
+    for(int i = 0; i < texts.length; i++) {
+      texts[i] = i % 2 == 0 ? "TELEFONLARI, kitabımızdı." : "";
+    }
+
+    String[][] stems = batch.stemTexts(batch.defaultFilter(), texts);
+
+    for(int i = 0; i < texts.length; i++) {
+      Assert.assertEquals(stems[i], i % 2 == 0 ?
+          new String[] { "telefon", "kitap" } : new String[0]);
+    }
+  }
+
+  @Test
+  public void testSharesNodeCache() throws IOException {
+    NodeStemCache cache = new NodeStemCache(1024, 1 << 20);
+    BatchStemmer batch = new BatchStemmer(executor, 4, cache);
+
+    batch.stemWords(batch.defaultFilter(), new String[] { "telefonları" });
+
+    // A filter with the default settings finds the stem of the batch
+    Function<TokenStream, TokenStream> filter = stream ->
+        new TurkishStemmerTokenFilter(stream,
+            TurkishStemmerTokenFilterFactory::defaultGeneration, 0, cache);
+
+    Assert.assertEquals(batch.stemWords(filter, new String[] { "telefonları" }),
+                        new String[] { "telefon" });
+    Assert.assertEquals(cache.hits(), 1);
+  }
+
+  @Test
+  public void testFailure() {
+    BatchStemmer batch = new BatchStemmer(executor, 4, null);
+    Function<TokenStream, TokenStream> filter = stream -> new TokenFilter(stream) {
+      @Override
+      public boolean incrementToken() throws IOException {
+        throw new IOException("broken");
+      }
+    };
+
+    try {
+      batch.stemWords(filter, words(4 * BatchStemmer.WORDS_PER_CHUNK));
+      Assert.fail("the failure of the filter was not reported");
+    } catch(IOException e) {
+      Assert.assertEquals(e.getMessage(), "broken");
+    } catch(UncheckedIOException e) {
+      Assert.fail("the failure was wrapped", e);
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class AccessBufferTest {
+
+  @Test
+  public void testDrain() {
+    AccessBuffer buffer = new AccessBuffer();
+    FrequencySketch sketch = new FrequencySketch(64);
+
+    for(int i = 0; i < 5; i++) {
+      Assert.assertTrue(buffer.offer(42));
+    }
+    Assert.assertTrue(buffer.offer(0));
+
+    Assert.assertEquals(sketch.frequency(42), 0);
+
+    buffer.drain(sketch);
+
+    Assert.assertEquals(sketch.frequency(42), 5);
+    Assert.assertEquals(sketch.frequency(0), 1);
+
+    // Drained accesses are not counted twice
+    buffer.drain(sketch);
+    Assert.assertEquals(sketch.frequency(42), 5);
+  }
+
+  @Test
+  public void testFull() {
+    AccessBuffer buffer = new AccessBuffer();
+    FrequencySketch sketch = new FrequencySketch(64);
+
+    for(int i = 0; i < AccessBuffer.SIZE; i++) {
+      Assert.assertTrue(buffer.offer(i));
+    }
+    Assert.assertFalse(buffer.offer(7));
+
+    // Draining makes room again, all around the buffer
+    buffer.drain(sketch);
+
+    for(int i = 0; i < AccessBuffer.SIZE; i++) {
+      Assert.assertTrue(buffer.offer(7));
+    }
+    buffer.drain(sketch);
+
+    Assert.assertEquals(sketch.frequency(7), 15);
+  }
+}
@@ -0,0 +1,47 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class FrequencySketchTest {
+
+  @Test
+  public void testFrequency() {
+    FrequencySketch sketch = new FrequencySketch(64);
+
+    Assert.assertEquals(sketch.frequency(42), 0);
+
+    for(int i = 0; i < 5; i++) {
+      sketch.increment(42);
+    }
+
+    Assert.assertEquals(sketch.frequency(42), 5);
+  }
+
+  @Test
+  public void testSaturation() {
+    FrequencySketch sketch = new FrequencySketch(64);
+
+    for(int i = 0; i < 100; i++) {
+      sketch.increment(7);
+    }
+
+    Assert.assertEquals(sketch.frequency(7), 15);
+  }
+
+  @Test
+  public void testAging() {
+    FrequencySketch sketch = new FrequencySketch(16);
+
+    for(int i = 0; i < 8; i++) {
+      sketch.increment(1);
+    }
+
+    // Enough increments of other keys to halve the counters
+    for(int i = 0; i < 10 * 16; i++) {
+      sketch.increment(1000 + i);
+    }
+
+    Assert.assertTrue(sketch.frequency(1) <= 4);
+  }
+}
@@ -0,0 +1,201 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class NodeStemCacheTest {
+
+  private static void put(NodeStemCache.View view, String word, String stem) {
+    view.put(word.toCharArray(), word.length(), stem.toCharArray(), stem.length());
+  }
+
+  private static String get(NodeStemCache.View view, String word) {
+    char[] buffer = word.toCharArray();
+    int length = view.get(buffer, buffer.length);
+
+    return length < 0 ? null : new String(buffer, 0, length);
+  }
+
+  @Test
+  public void testGetAndPut() {
+    NodeStemCache cache = new NodeStemCache(1000, 1 << 20);
+    NodeStemCache.View view = cache.view(1);
+
+    Assert.assertNull(get(view, "telefonu"));
+
+    put(view, "telefonu", "telefon");
+
+    Assert.assertEquals(get(view, "telefonu"), "telefon");
+    Assert.assertEquals(cache.view(1).get("telefonu".toCharArray(), 8), 7);
+    Assert.assertEquals(cache.hits(), 2);
+    Assert.assertEquals(cache.misses(), 1);
+    Assert.assertEquals(cache.size(), 1);
+  }
+
+  @Test
+  public void testFingerprints() {
+    NodeStemCache cache = new NodeStemCache(1000, 1 << 20);
+
+    put(cache.view(1), "kılıfı", "kılıf");
+
+    Assert.assertNull(get(cache.view(2), "kılıfı"));
+    Assert.assertEquals(get(cache.view(1), "kılıfı"), "kılıf");
+  }
+
+  @Test
+  public void testFrequentWordsStay() {
+    // A single segment of a single entry
+    NodeStemCache cache = new NodeStemCache(16, 1 << 20);
+    NodeStemCache.View view = cache.view(1);
+    List<String> words = new ArrayList<String>();
+
+    for(int i = 0; i < 5; i++) {
+      Assert.assertNull(get(view, "uyumlu"));
+    }
+    put(view, "uyumlu", "uyum");
+
+    // Words that were seen once each do not replace it
+    for(int i = 0; i < 1000; i++) {
+      String word = "yazım" + i;
+      words.add(word);
+      get(view, word);
+      put(view, word, word);
+    }
+
+    Assert.assertEquals(get(view, "uyumlu"), "uyum");
+    Assert.assertTrue(cache.size() <= 16);
+    Assert.assertTrue(cache.rejections() > 0);
+  }
+
+  @Test
+  public void testMaxBytes() {
+    NodeStemCache cache = new NodeStemCache(1000, 16 * (NodeStemCache.ENTRY_OVERHEAD + 40));
+    NodeStemCache.View view = cache.view(1);
+
+    for(int i = 0; i < 1000; i++) {
+      String word = "telefon" + i;
+      for(int j = 0; j < 3; j++) {
+        get(view, word);
+      }
+      put(view, word, word);
+    }
+
+    Assert.assertTrue(cache.bytes() <= 16 * (NodeStemCache.ENTRY_OVERHEAD + 40));
+    Assert.assertTrue(cache.size() > 0);
+  }
+
+  @Test
+  public void testConcurrentAccess() throws InterruptedException {
+    final NodeStemCache cache = new NodeStemCache(256, 1 << 20);
+    final AtomicInteger wrong = new AtomicInteger();
+    Thread[] threads = new Thread[4];
+
+    for(int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          NodeStemCache.View view = cache.view(1);
+
+          for(int i = 0; i < 20000; i++) {
+            String word = "kelime" + (i % 500);
+            String stem = get(view, word);
+
+            if(stem == null) {
+              put(view, word, word.substring(0, 6));
+            } else if(!stem.equals("kelime")) {
+              wrong.incrementAndGet();
+            }
+          }
+        }
+      };
+      threads[t].start();
+    }
+
+    for(Thread thread : threads) {
+      thread.join();
+    }
+
+    Assert.assertEquals(wrong.get(), 0);
+    Assert.assertTrue(cache.size() <= 256);
+  }
+
+  @Test
+  public void testStripes() {
+    Assert.assertEquals(NodeStemCache.stripes(1), 1);
+    Assert.assertEquals(NodeStemCache.stripes(6), 8);
+    Assert.assertEquals(NodeStemCache.stripes(64), 16);
+  }
+
+  @Test
+  public void testFrequentWordsStayUnderContention() throws InterruptedException {
+    // A single segment of a single entry
+    final NodeStemCache cache = new NodeStemCache(16, 1 << 20);
+    final AtomicBoolean done = new AtomicBoolean();
+    Thread[] writers = new Thread[2];
+    Thread[] readers = new Thread[4];
+
+    for(int t = 0; t < writers.length; t++) {
+      final int writer = t;
+
+      // Words seen once each, which keep the segments locked
+      writers[t] = new Thread() {
+        @Override
+        public void run() {
+          NodeStemCache.View view = cache.view(1);
+
+          for(int i = 0; i < 5000; i++) {
+            String word = "yazım" + writer + "_" + i;
+            get(view, word);
+            put(view, word, word);
+          }
+        }
+      };
+    }
+
+    for(int t = 0; t < readers.length; t++) {
+      readers[t] = new Thread() {
+        @Override
+        public void run() {
+          NodeStemCache.View view = cache.view(1);
+
+          while(!done.get()) {
+            get(view, "uyumlu");
+          }
+        }
+      };
+      readers[t].start();
+    }
+
+    for(Thread writer : writers) {
+      writer.start();
+    }
+    for(Thread writer : writers) {
+      writer.join();
+    }
+
+    done.set(true);
+
+    for(Thread reader : readers) {
+      reader.join();
+    }
+
+    // The accesses that came while the segment was held still count
+    NodeStemCache.View view = cache.view(1);
+
+    put(view, "uyumlu", "uyum");
+    Assert.assertEquals(get(view, "uyumlu"), "uyum");
+
+    for(int i = 0; i < 1000; i++) {
+      String word = "kalem" + i;
+      get(view, word);
+      put(view, word, word);
+    }
+
+    Assert.assertEquals(get(view, "uyumlu"), "uyum");
+  }
+}
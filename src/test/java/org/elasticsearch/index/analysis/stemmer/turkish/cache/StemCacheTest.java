@@ -0,0 +1,65 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class StemCacheTest {
+
+  @Test
+  public void testSize() {
+    Assert.assertEquals(new StemCache(1).size(), 1);
+    Assert.assertEquals(new StemCache(100).size(), 128);
+    Assert.assertEquals(new StemCache(128).size(), 128);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidSize() {
+    new StemCache(0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testTooLarge() {
+    new StemCache(StemCache.MAX_SIZE + 1);
+  }
+
+  @Test
+  public void testGetAndPut() {
+    StemCache cache = new StemCache(16);
+    char[] word = "telefonları".toCharArray();
+    char[] stem = "telefon".toCharArray();
+    char[] buffer = word.clone();
+
+    Assert.assertEquals(cache.get(buffer, buffer.length), -1);
+    Assert.assertEquals(new String(buffer), "telefonları");
+
+    cache.put(word, word.length, stem, stem.length);
+
+    Assert.assertEquals(cache.get(buffer, buffer.length), stem.length);
+    Assert.assertEquals(new String(buffer, 0, stem.length), "telefon");
+    // Prefixes of a cached word are different words
+    Assert.assertEquals(cache.get(word, word.length - 1), -1);
+    Assert.assertEquals(cache.hits(), 1);
+    Assert.assertEquals(cache.misses(), 2);
+  }
+
+  @Test
+  public void testLongWordsAreNotCached() {
+    StemCache cache = new StemCache(16);
+    char[] word = new char[StemCache.MAX_TERM_LENGTH + 1];
+
+    cache.put(word, word.length, word, 1);
+
+    Assert.assertEquals(cache.get(word, word.length), -1);
+  }
+
+  @Test
+  public void testClear() {
+    StemCache cache = new StemCache(16);
+    char[] word = "kılıfı".toCharArray();
+
+    cache.put(word, word.length, word, 4);
+    cache.clear();
+
+    Assert.assertEquals(cache.get(word, word.length), -1);
+  }
+}
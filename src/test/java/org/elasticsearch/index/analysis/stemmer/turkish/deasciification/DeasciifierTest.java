@@ -0,0 +1,71 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.deasciification;
+
+import java.util.Arrays;
+
+import org.apache.lucene.analysis.CharArraySet;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DeasciifierTest {
+
+  private final Deasciifier deasciifier = new Deasciifier(new CharArraySet(
+      Arrays.asList("göz", "gözlük", "çocuk", "kitap"), false), 2);
+
+  private int[] prefixes(String word) {
+    int[] lengths = new int[word.length()];
+    int count = deasciifier.prefixes(word.toCharArray(), word.length(), lengths);
+
+    return Arrays.copyOf(lengths, count);
+  }
+
+  private static String variant(String word, String spelling) {
+    char[] variant = new char[word.length()];
+
+    Deasciifier.variant(word.toCharArray(), word.length(),
+        spelling.toCharArray(), variant);
+
+    return new String(variant);
+  }
+
+  @Test
+  public void testPrefixes() {
+    Assert.assertEquals(prefixes("gozluklerinde"), new int[] { 3, 6 });
+    Assert.assertEquals(prefixes("cocugu"), new int[] { 5 });
+    Assert.assertEquals(prefixes("cocuklar"), new int[] { 5 });
+    // Stems without Turkish letters need no deasciification
+    Assert.assertEquals(prefixes("kitaplar"), new int[0]);
+    // Words with Turkish letters were not typed in ASCII
+    Assert.assertEquals(prefixes("gozlüklerinde"), new int[0]);
+    Assert.assertEquals(prefixes("go"), new int[0]);
+  }
+
+  @Test
+  public void testSpellings() {
+    char[] word = "cocugu".toCharArray();
+
+    Assert.assertEquals(new String(deasciifier.spellings(word, 5)[0]), "çocuğ");
+    Assert.assertNull(deasciifier.spellings(word, 4));
+  }
+
+  @Test
+  public void testVariant() {
+    Assert.assertEquals(variant("gozluklerinde", "gözlük"), "gözlüklerinde");
+    Assert.assertEquals(variant("cantasi", "çanta"), "çantası");
+    Assert.assertEquals(variant("gozunu", "göz"), "gözünü");
+    Assert.assertEquals(variant("cocugu", "çocuğ"), "çocuğu");
+    Assert.assertEquals(variant("kitapci", "kitap"), "kitapçı");
+    Assert.assertEquals(variant("gelecegim", "gel"), "geleceğim");
+  }
+
+  @Test
+  public void testKnown() {
+    Assert.assertTrue(deasciifier.known("gözlükler".toCharArray(), 6));
+    Assert.assertFalse(deasciifier.known("gozluk".toCharArray(), 6));
+    Assert.assertEquals(deasciifier.maxVariants(), 2);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidMaxVariants() {
+    new Deasciifier(new CharArraySet(Arrays.asList("göz"), false), 0);
+  }
+}
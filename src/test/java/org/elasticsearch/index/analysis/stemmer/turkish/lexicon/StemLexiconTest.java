@@ -0,0 +1,94 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.lexicon;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.elasticsearch.index.analysis.TurkishStemmer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class StemLexiconTest {
+  private final TurkishStemmer stemmer = new TurkishStemmer();
+  private Path directory;
+  private List<String> words;
+  private StemLexicon lexicon;
+
+  @BeforeClass
+  public void buildLexicon() throws IOException {
+    directory = Files.createTempDirectory("lexicon");
+    words = new ArrayList<String>();
+
+    for(String line : Files.readAllLines(
+        Paths.get("src/test/resources/stemming_samples.txt"), StandardCharsets.UTF_8)) {
+      int comma = line.lastIndexOf(',');
+      if(comma > 0)
+        words.add(line.substring(0, comma));
+    }
+
+    Path wordList = directory.resolve("words.txt");
+    Path file = directory.resolve("lexicon.fst");
+
+    Files.write(wordList, words, StandardCharsets.UTF_8);
+    LexiconBuilder.build(stemmer, wordList).write(file);
+    lexicon = StemLexicon.open(file);
+  }
+
+  @AfterClass
+  public void deleteLexicon() throws IOException {
+    for(String name : new String[] { "words.txt", "lexicon.fst" }) {
+      Files.deleteIfExists(directory.resolve(name));
+    }
+    Files.deleteIfExists(directory);
+  }
+
+  @Test
+  public void testLookup() throws IOException {
+    StemLexicon.Lookup lookup = lexicon.lookup();
+
+    for(String word : words) {
+      char[] buffer = word.toCharArray();
+      int length = lookup.stem(buffer, buffer.length);
+
+      Assert.assertEquals(new String(buffer, 0, length),
+          stemmer.stem(word.toCharArray(), word.length(), 0), word);
+    }
+  }
+
+  @Test
+  public void testFingerprint() {
+    TurkishStemmer uncorrected = TurkishStemmer.builder().correctMistypes(false).build();
+
+    Assert.assertEquals(lexicon.fingerprint(), stemmer.fingerprint());
+    Assert.assertNotEquals(lexicon.fingerprint(), uncorrected.fingerprint());
+  }
+
+  @Test
+  public void testUnknownWord() throws IOException {
+    char[] buffer = "bilinmeyenkelime".toCharArray();
+
+    Assert.assertEquals(lexicon.lookup().stem(buffer, buffer.length), -1);
+    Assert.assertEquals(new String(buffer), "bilinmeyenkelime");
+  }
+
+  @Test
+  public void testEncode() {
+    Assert.assertEquals(StemLexicon.encode("telefonları", "telefon"), 7L << 16);
+    Assert.assertEquals(StemLexicon.encode("kitabımız", "kitap"), (4L << 16) | 'p');
+    Assert.assertEquals(StemLexicon.encode("kitabımız", "katap"), -1L);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testUnsortedWords() throws IOException {
+    StemLexicon.Writer writer = StemLexicon.writer(stemmer.fingerprint());
+
+    writer.add("telefonu", "telefon");
+    writer.add("kılıfı", "kılıf");
+  }
+}
@@ -0,0 +1,38 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.normalization;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TurkishNormalizerTest {
+
+  private static String normalize(String term) {
+    char[] buffer = term.toCharArray();
+
+    return new String(buffer, 0, TurkishNormalizer.normalize(buffer, buffer.length));
+  }
+
+  @Test
+  public void testLowercase() {
+    Assert.assertEquals(normalize("IŞIK"), "ışık");
+    Assert.assertEquals(normalize("İSTANBUL"), "istanbul");
+    Assert.assertEquals(normalize("ÇÖĞÜ"), "çöğü");
+    Assert.assertEquals(normalize("kitap"), "kitap");
+  }
+
+  @Test
+  public void testCombiningDotAbove() {
+    Assert.assertEquals(normalize("İstanbul"), "istanbul");
+    // The dot may follow other marks of the I
+    Assert.assertEquals(normalize("İ̖s"), "i̖s");
+    // A dot that does not follow an I is kept
+    Assert.assertEquals(normalize("ȧ"), "ȧ");
+  }
+
+  @Test
+  public void testApostrophe() {
+    Assert.assertEquals(normalize("Türkiye'nin"), "türkiye");
+    Assert.assertEquals(normalize("İSTANBUL’DA"), "istanbul");
+    Assert.assertEquals(normalize("Ali'nin'ki"), "ali");
+    Assert.assertEquals(normalize("'nin"), "");
+  }
+}
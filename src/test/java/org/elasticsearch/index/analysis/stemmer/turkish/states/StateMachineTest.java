@@ -0,0 +1,79 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.states;
+
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.NounSuffix;
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.Suffix;
+import org.elasticsearch.index.analysis.stemmer.turkish.transitions.TransitionQueue;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class StateMachineTest {
+
+  private static State initialState(final State[] states) {
+    for(State state : states) {
+      if(state.initialState())
+        return state;
+    }
+
+    return null;
+  }
+
+  private static void assertStates(final StateMachine machine,
+                                   final State[] states) {
+    Assert.assertEquals(machine.state(machine.initialState()),
+        initialState(states));
+
+    for(byte state = 0; state < states.length; state++) {
+      Assert.assertEquals(machine.state(state), states[state]);
+      Assert.assertEquals(machine.finalState(state), states[state].finalState());
+    }
+  }
+
+  @Test
+  public void testStates() {
+    assertStates(StateMachine.NOMINAL_VERB, NominalVerbState.values());
+    assertStates(StateMachine.NOUN, NounState.values());
+    assertStates(StateMachine.DERIVATIONAL, DerivationalState.values());
+  }
+
+  @Test
+  public void testEdges() {
+    StateMachine[] machines = { StateMachine.NOMINAL_VERB, StateMachine.NOUN,
+                                StateMachine.DERIVATIONAL };
+
+    for(StateMachine machine : machines) {
+      for(byte edge = 0; edge < machine.edgeCount(); edge++) {
+        State startState = machine.state(machine.startState(edge));
+        State nextState = machine.state(machine.nextState(edge));
+        boolean found = false;
+
+        for(Suffix suffix : startState.suffixes()) {
+          found |= startState.nextState(suffix) == nextState;
+        }
+
+        Assert.assertTrue(found, machine + " edge " + edge);
+      }
+    }
+  }
+
+  @Test
+  public void testAddTransitions() {
+    TransitionQueue transitions = new TransitionQueue();
+    char[] word = "bebekler".toCharArray();
+    StateMachine machine = StateMachine.NOUN;
+
+    transitions.clear(machine.edgeCount());
+    machine.addTransitions(machine.initialState(), word, word.length, transitions);
+
+    Assert.assertFalse(transitions.isEmpty());
+
+    int transition = transitions.poll();
+    byte edge = transitions.edge(transition);
+
+    Assert.assertEquals(machine.state(machine.startState(edge)), NounState.A);
+    Assert.assertEquals(machine.state(machine.nextState(edge)), NounState.L);
+    Assert.assertEquals(machine.suffix(transitions.suffix(transition)),
+        NounSuffix.S1);
+    Assert.assertEquals(transitions.length(transition), word.length);
+    Assert.assertTrue(transitions.isEmpty());
+  }
+}
@@ -0,0 +1,118 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.stats;
+
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.SkipReason;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class StemmerStatsTest {
+
+  @Test
+  public void testFlush() {
+    StemmerStats stats = new StemmerStats();
+    StemmerStats.Recorder recorder = stats.recorder();
+
+    recorder.token();
+    recorder.token();
+    recorder.keyword();
+    recorder.stemmed();
+    recorder.skipped(SkipReason.SMALL);
+    recorder.cacheHit();
+    recorder.cacheMiss();
+    recorder.lexiconHit();
+    recorder.lexiconMiss();
+    recorder.lexiconMiss();
+    recorder.latency(100);
+
+    Assert.assertEquals(stats.tokens(), 0);
+
+    recorder.flush();
+    recorder.flush();
+
+    Assert.assertEquals(stats.tokens(), 2);
+    Assert.assertEquals(stats.keywords(), 1);
+    Assert.assertEquals(stats.stemmed(), 1);
+    Assert.assertEquals(stats.skipped(SkipReason.SMALL), 1);
+    Assert.assertEquals(stats.skipped(SkipReason.PROTECTED), 0);
+    Assert.assertEquals(stats.cacheHits(), 1);
+    Assert.assertEquals(stats.cacheMisses(), 1);
+    Assert.assertEquals(stats.lexiconHits(), 1);
+    Assert.assertEquals(stats.lexiconMisses(), 2);
+    Assert.assertEquals(stats.latency(0), 1);
+  }
+
+  @Test
+  public void testSharedByRecorders() {
+    StemmerStats stats = new StemmerStats();
+    StemmerStats.Recorder first = stats.recorder();
+    StemmerStats.Recorder second = stats.recorder();
+
+    first.token();
+    second.token();
+    first.flush();
+    second.flush();
+
+    Assert.assertEquals(stats.tokens(), 2);
+  }
+
+  @Test
+  public void testSampling() {
+    StemmerStats.Recorder recorder = new StemmerStats().recorder();
+    int sampled = 0;
+
+    for(int i = 0; i < 10 * StemmerStats.LATENCY_SAMPLING; i++) {
+      if(recorder.sampleLatency())
+        sampled++;
+    }
+
+    Assert.assertEquals(sampled, 10);
+  }
+
+  @Test
+  public void testLatencyBuckets() {
+    Assert.assertEquals(StemmerStats.latencyBucket(0), 0);
+    Assert.assertEquals(StemmerStats.latencyBucket(255), 0);
+    Assert.assertEquals(StemmerStats.latencyBucket(256), 1);
+    Assert.assertEquals(StemmerStats.latencyBucket(511), 1);
+    Assert.assertEquals(StemmerStats.latencyBucket(Long.MAX_VALUE),
+                        StemmerStats.LATENCY_BUCKETS - 1);
+
+    for(int bucket = 0; bucket < StemmerStats.LATENCY_BUCKETS - 1; bucket++) {
+      long bound = StemmerStats.latencyBound(bucket);
+
+      Assert.assertEquals(StemmerStats.latencyBucket(bound - 1), bucket);
+      Assert.assertEquals(StemmerStats.latencyBucket(bound), bucket + 1);
+    }
+  }
+
+  @Test
+  public void testRegistry() {
+    StemmerStatsRegistry registry = new StemmerStatsRegistry();
+    StemmerStats stats = registry.stats("index-1", "stemmer");
+
+    Assert.assertSame(registry.stats("index-1", "stemmer"), stats);
+    registry.stats("index-2", "stemmer");
+    Assert.assertEquals(registry.indices().keySet().toString(), "[index-1, index-2]");
+
+    registry.remove("index-1");
+
+    Assert.assertEquals(registry.indices().keySet().toString(), "[index-2]");
+    Assert.assertNotSame(registry.stats("index-1", "stemmer"), stats);
+  }
+
+  @Test
+  public void testRegistryKeepsBatchesApart() {
+    StemmerStatsRegistry registry = new StemmerStatsRegistry();
+    StemmerStats stats = registry.stats("index", "stemmer");
+    StemmerStats batchStats = registry.batchStats("index", "stemmer");
+
+    Assert.assertNotSame(batchStats, stats);
+    Assert.assertSame(registry.batchStats("index", "stemmer"), batchStats);
+    Assert.assertSame(registry.batches().get("index").get("stemmer"), batchStats);
+    Assert.assertSame(registry.indices().get("index").get("stemmer"), stats);
+
+    registry.remove("index");
+
+    Assert.assertTrue(registry.indices().isEmpty());
+    Assert.assertTrue(registry.batches().isEmpty());
+  }
+}
@@ -0,0 +1,58 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.suffixes;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class SuffixMatcherTest {
+
+  private static long bits(Enum<?>... suffixes) {
+    long bits = 0;
+
+    for(Enum<?> suffix : suffixes) {
+      bits |= 1L << suffix.ordinal();
+    }
+
+    return bits;
+  }
+
+  @Test
+  public void testMatchAllSuffixes() {
+    // "-lArI" and "-(s)U", "-(y)U" all match the end of "telefonları"
+    Assert.assertEquals(NounSuffix.matcher().match("telefonları"),
+        bits(NounSuffix.S7, NounSuffix.S6, NounSuffix.S8));
+    Assert.assertEquals(NounSuffix.matcher().match("telefonlar"),
+        bits(NounSuffix.S1));
+    Assert.assertEquals(NominalVerbSuffix.matcher().match("satıyorsunuz"),
+        bits(NominalVerbSuffix.S4, NominalVerbSuffix.S9, NominalVerbSuffix.S3));
+  }
+
+  @Test
+  public void testMatchBuffer() {
+    char[] word = "bebeklerin".toCharArray();
+
+    Assert.assertEquals(NounSuffix.matcher().match(word, word.length),
+        bits(NounSuffix.S10, NounSuffix.S4));
+    Assert.assertEquals(NounSuffix.matcher().match(word, word.length - 2),
+        bits(NounSuffix.S1));
+    Assert.assertEquals(NounSuffix.matcher().match(word, 0), 0L);
+  }
+
+  @Test
+  public void testNoMatch() {
+    Assert.assertEquals(NounSuffix.matcher().match("τεστ"), 0L);
+    Assert.assertEquals(DerivationalSuffix.matcher().match("telefon"), 0L);
+    Assert.assertEquals(DerivationalSuffix.matcher().match(""), 0L);
+  }
+
+  @Test
+  public void testSuffix() {
+    Assert.assertEquals(NounSuffix.matcher().suffix(NounSuffix.S1.ordinal()),
+        NounSuffix.S1);
+  }
+
+  @Test
+  public void testRemoveUnmatchedSuffix() {
+    // The known length of a suffix is only cut when the suffix matches
+    Assert.assertEquals(NounSuffix.S1.removeSuffix("bulurum"), "bulurum");
+  }
+}
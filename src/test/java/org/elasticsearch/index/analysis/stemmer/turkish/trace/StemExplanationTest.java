@@ -0,0 +1,96 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.trace;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.analysis.TurkishStemmer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class StemExplanationTest {
+  private final TurkishStemmer stemmer = new TurkishStemmer();
+
+  private StemExplanation.Machine machine(StemExplanation explanation, String name) {
+    for(StemExplanation.Machine machine : explanation.machines()) {
+      if(machine.name().equals(name))
+        return machine;
+    }
+
+    throw new AssertionError("The " + name + " machine did not run");
+  }
+
+  @Test
+  public void testExplain() {
+    StemExplanation explanation = stemmer.explain("telefonları");
+    StemExplanation.Machine noun = machine(explanation, "Noun");
+
+    Assert.assertEquals(explanation.word(), "telefonları");
+    Assert.assertEquals(explanation.stem(), "telefon");
+    Assert.assertNull(explanation.skipReason());
+    Assert.assertFalse(explanation.mistypeRetried());
+    Assert.assertTrue(explanation.nanos() > 0);
+    Assert.assertEquals(noun.candidates(), Arrays.asList("telefon", "telefonlar"));
+    Assert.assertEquals(noun.applied(), 5);
+    Assert.assertEquals(machine(explanation, "NominalVerb").runs(), 1);
+  }
+
+  @Test
+  public void testPruned() {
+    StemExplanation.Machine noun = machine(stemmer.explain("altında"), "Noun");
+
+    Assert.assertEquals(noun.tried(), 4);
+    Assert.assertEquals(noun.pruned(), 1);
+    Assert.assertEquals(noun.candidates(), Arrays.asList("altın"));
+  }
+
+  @Test
+  public void testMistypeRetry() {
+    StemExplanation explanation = stemmer.explain("adlari");
+
+    Assert.assertTrue(explanation.mistypeRetried());
+    Assert.assertEquals(explanation.correctedWord(), "adları");
+    Assert.assertEquals(explanation.stem(), "adlar");
+    // The nominal verb machine ran on the word and on its correction
+    Assert.assertEquals(machine(explanation, "NominalVerb").runs(), 2);
+  }
+
+  @Test
+  public void testSkipped() {
+    StemExplanation explanation = stemmer.explain("su");
+
+    Assert.assertEquals(explanation.skipReason(), SkipReason.SMALL);
+    Assert.assertEquals(explanation.stem(), "su");
+    Assert.assertTrue(explanation.machines().isEmpty());
+  }
+
+  @Test
+  public void testSerialization() throws IOException {
+    StemExplanation written = stemmer.explain("adlari");
+    BytesStreamOutput out = new BytesStreamOutput();
+
+    written.writeTo(out);
+
+    StemExplanation read = new StemExplanation(out.bytes().streamInput());
+
+    Assert.assertEquals(toJson(read), toJson(written));
+  }
+
+  @Test
+  public void testToXContent() throws IOException {
+    String json = toJson(stemmer.explain("altında"));
+
+    Assert.assertTrue(json.startsWith("{\"word\":\"altında\",\"stem\":\"altın\",\"took_nanos\":"), json);
+    Assert.assertTrue(json.contains("\"mistype_retry\":false"), json);
+    Assert.assertTrue(json.contains("{\"machine\":\"Noun\",\"runs\":1,\"tried\":4,\"pruned\":1,"), json);
+  }
+
+  private static String toJson(StemExplanation explanation) throws IOException {
+    XContentBuilder builder = XContentFactory.jsonBuilder();
+    explanation.toXContent(builder, ToXContent.EMPTY_PARAMS);
+    return builder.string();
+  }
+}
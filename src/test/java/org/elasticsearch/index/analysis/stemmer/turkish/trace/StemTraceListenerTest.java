@@ -0,0 +1,104 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.index.analysis.TurkishStemmer;
+import org.elasticsearch.index.analysis.stemmer.turkish.states.State;
+import org.elasticsearch.index.analysis.stemmer.turkish.states.StateMachine;
+import org.elasticsearch.index.analysis.stemmer.turkish.suffixes.Suffix;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class StemTraceListenerTest {
+
+  private static class RecordingListener implements StemTraceListener {
+    private final List<String> events = new ArrayList<String>();
+
+    @Override
+    public void started(char[] word, int len) {
+      events.add("started " + new String(word, 0, len));
+    }
+
+    @Override
+    public void skipped(char[] word, int len, SkipReason reason) {
+      events.add("skipped " + reason);
+    }
+
+    @Override
+    public void transition(StateMachine machine, char[] word, int wordLength,
+                           int stemLength, State startState, Suffix suffix,
+                           State nextState) {
+      events.add(machine + " " + new String(word, 0, stemLength));
+    }
+
+    @Override
+    public void candidate(StateMachine machine, char[] word, int stemLength) {
+      events.add("candidate " + new String(word, 0, stemLength));
+    }
+
+    @Override
+    public void mistypeCorrected(char[] word, int len) {
+      events.add("corrected " + new String(word, 0, len));
+    }
+
+    @Override
+    public void stemmed(char[] stem, int len) {
+      events.add("stemmed " + new String(stem, 0, len));
+    }
+  }
+
+  private static TurkishStemmer stemmer(StemTraceListener listener) {
+    return TurkishStemmer.builder().listener(listener).build();
+  }
+
+  @Test
+  public void testPath() {
+    RecordingListener listener = new RecordingListener();
+    char[] word = "telefonları".toCharArray();
+
+    stemmer(listener).stem(word, word.length);
+
+    Assert.assertEquals(listener.events.get(0), "started telefonları");
+    Assert.assertTrue(listener.events.contains("Noun telefon"));
+    Assert.assertTrue(listener.events.contains("candidate telefon"));
+    Assert.assertEquals(listener.events.get(listener.events.size() - 1),
+        "stemmed telefon");
+  }
+
+  @Test
+  public void testSkipped() {
+    RecordingListener listener = new RecordingListener();
+    char[] word = "ev".toCharArray();
+
+    stemmer(listener).stem(word, word.length);
+
+    Assert.assertEquals(listener.events.get(1), "skipped small");
+  }
+
+  @Test
+  public void testMistypeCorrected() {
+    RecordingListener listener = new RecordingListener();
+    char[] word = "çantasi".toCharArray();
+
+    stemmer(listener).stem(word, word.length);
+
+    Assert.assertTrue(listener.events.contains("corrected çantası"));
+    // The corrected word is not started over
+    Assert.assertEquals(listener.events.stream()
+        .filter(event -> event.startsWith("started")).count(), 1);
+    Assert.assertEquals(listener.events.get(listener.events.size() - 1),
+        "stemmed çanta");
+  }
+
+  @Test
+  public void testLoggingListener() {
+    char[] word = "kitabımızdı".toCharArray();
+    TurkishStemmer stemmer = stemmer(new LoggingStemTraceListener(
+        Loggers.getLogger(LoggingStemTraceListener.class)));
+
+    Assert.assertEquals(new String(word, 0, stemmer.stem(word, word.length)),
+        "kitap");
+  }
+}
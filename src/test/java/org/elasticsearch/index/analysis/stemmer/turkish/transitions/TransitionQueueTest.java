@@ -0,0 +1,123 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.transitions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TransitionQueueTest {
+
+  @Test
+  public void testPollInOrder() {
+    TransitionQueue transitions = new TransitionQueue();
+
+    transitions.clear(2);
+    transitions.add(0, 3, 10);
+    transitions.add(1, 4, 8);
+
+    int first = transitions.poll();
+    int second = transitions.poll();
+
+    Assert.assertEquals(transitions.edge(first), 0);
+    Assert.assertEquals(transitions.suffix(first), 3);
+    Assert.assertEquals(transitions.length(first), 10);
+    Assert.assertEquals(transitions.edge(second), 1);
+    Assert.assertTrue(transitions.isEmpty());
+  }
+
+  @Test
+  public void testRemoveSimilar() {
+    TransitionQueue transitions = new TransitionQueue();
+
+    transitions.clear(2);
+    transitions.add(0, 0, 5);
+    transitions.add(0, 1, 5);
+    transitions.add(1, 0, 5);
+
+    transitions.removeSimilarOrMarked(transitions.poll());
+    transitions.add(0, 2, 4);
+
+    Assert.assertEquals(transitions.edge(transitions.poll()), 1);
+    Assert.assertEquals(transitions.suffix(transitions.poll()), 2);
+    Assert.assertTrue(transitions.isEmpty());
+  }
+
+  @Test
+  public void testRemoveMarked() {
+    TransitionQueue transitions = new TransitionQueue();
+
+    transitions.clear(2);
+    transitions.add(0, 0, 5);
+    transitions.add(1, 0, 5);
+    transitions.add(0, 1, 5);
+    transitions.add(1, 1, 5);
+
+    // Marks the third transition, then removes it along with the fourth one
+    transitions.markSimilar(transitions.poll());
+    transitions.removeSimilarOrMarked(transitions.poll());
+
+    Assert.assertTrue(transitions.isEmpty());
+  }
+
+  /**
+   * Compares the queue with a plain list that flags its transitions.
+   */
+  @Test
+  public void testAgainstList() {
+    Random random = new Random(42);
+    TransitionQueue transitions = new TransitionQueue();
+
+    for(int run = 0; run < 1000; run++) {
+      int edgeCount = 1 + random.nextInt(TransitionQueue.MAX_EDGES);
+      List<int[]> expected = new ArrayList<int[]>();
+      int head = 0;
+
+      transitions.clear(edgeCount);
+
+      for(int step = 0; step < 100; step++) {
+        int operation = random.nextInt(4);
+
+        if(operation < 2) {
+          int edge = random.nextInt(edgeCount);
+          transitions.add(edge, 0, step);
+          // edge, length, marked, removed
+          expected.add(new int[] { edge, step, 0, 0 });
+          continue;
+        }
+
+        while(head < expected.size() && expected.get(head)[3] != 0) {
+          head++;
+        }
+
+        Assert.assertEquals(transitions.isEmpty(), head == expected.size());
+
+        if(head == expected.size())
+          continue;
+
+        int transition = transitions.poll();
+        int[] current = expected.get(head++);
+
+        Assert.assertEquals(transitions.edge(transition), current[0]);
+        Assert.assertEquals(transitions.length(transition), current[1]);
+
+        for(int i = head; i < expected.size(); i++) {
+          int[] queued = expected.get(i);
+
+          if(operation == 2 && queued[0] == current[0]) {
+            queued[2] = 1;
+          } else if(operation == 3 && (queued[0] == current[0] || queued[2] != 0)) {
+            queued[3] = 1;
+          }
+        }
+
+        if(operation == 2) {
+          transitions.markSimilar(transition);
+        } else {
+          transitions.removeSimilarOrMarked(transition);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package org.elasticsearch.index.analysis.stemmer.turkish.wordlist;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.CharArraySet;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class WordListRegistryTest {
+  private Path directory;
+  private WordListRegistry registry;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("word_lists");
+    registry = new WordListRegistry();
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    for(Path file : Files.newDirectoryStream(directory)) {
+      Files.delete(file);
+    }
+    Files.delete(directory);
+  }
+
+  private Path write(String name, String content, long modified) throws IOException {
+    Path file = directory.resolve(name);
+
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(modified));
+
+    return file;
+  }
+
+  @Test
+  public void testParse() throws IOException {
+    Path file = write("words.txt", "# comment\nsu\n\nağaç\n", 1000);
+    CharArraySet words = registry.acquire("index", file);
+
+    Assert.assertEquals(words.size(), 2);
+    Assert.assertTrue(words.contains("su"));
+    Assert.assertTrue(words.contains("ağaç"));
+  }
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void testImmutable() throws IOException {
+    Path file = write("words.txt", "su\n", 1000);
+
+    registry.acquire("index", file).add("ağaç");
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    Path file = write("words.txt", "# nothing\n", 1000);
+
+    Assert.assertSame(registry.acquire("index", file), CharArraySet.EMPTY_SET);
+  }
+
+  @Test
+  public void testShared() throws IOException {
+    Path file = write("words.txt", "su\n", 1000);
+    CharArraySet first = registry.acquire("index-1", file);
+    CharArraySet second = registry.acquire("index-2",
+        directory.resolve("../" + directory.getFileName() + "/words.txt"));
+
+    Assert.assertSame(second, first);
+    Assert.assertEquals(registry.loads(), 1);
+    Assert.assertEquals(registry.size(), 1);
+  }
+
+  @Test
+  public void testSameContent() throws IOException {
+    Path file = write("words.txt", "su\n", 1000);
+    CharArraySet first = registry.acquire("index-1", file);
+
+    write("words.txt", "su\n", 2000);
+
+    Assert.assertSame(registry.acquire("index-2", file), first);
+    Assert.assertEquals(registry.loads(), 1);
+  }
+
+  @Test
+  public void testChanged() throws IOException {
+    Path file = write("words.txt", "su\n", 1000);
+    CharArraySet first = registry.acquire("index-1", file);
+
+    write("words.txt", "ağaç\n", 2000);
+    CharArraySet second = registry.acquire("index-2", file);
+
+    Assert.assertNotSame(second, first);
+    Assert.assertTrue(first.contains("su"));
+    Assert.assertTrue(second.contains("ağaç"));
+    Assert.assertEquals(registry.size(), 2);
+
+    registry.release("index-1");
+
+    Assert.assertEquals(registry.size(), 1);
+    Assert.assertSame(registry.acquire("index-3", file), second);
+  }
+
+  @Test
+  public void testRelease() throws IOException {
+    Path file = write("words.txt", "su\n", 1000);
+
+    registry.acquire("index-1", file);
+    registry.acquire("index-1", file);
+    registry.acquire("index-2", file);
+    registry.release("index-1");
+
+    Assert.assertEquals(registry.size(), 1);
+
+    registry.release("index-2");
+    registry.release("index-2");
+
+    Assert.assertEquals(registry.size(), 0);
+
+    registry.acquire("index-3", file);
+
+    Assert.assertEquals(registry.loads(), 2);
+  }
+
+  @Test
+  public void testReload() throws IOException {
+    Path file = write("words.txt", "su\n", 1000);
+    List<CharArraySet> changes = new ArrayList<>();
+    CharArraySet first = registry.acquire("index-1", file, changes::add);
+    CharArraySet kept = registry.acquire("index-2", file);
+
+    registry.checkAndNotify();
+    write("words.txt", "su\n", 2000);
+    registry.checkAndNotify();
+
+    Assert.assertTrue(changes.isEmpty());
+
+    write("words.txt", "ağaç\n", 3000);
+    registry.checkAndNotify();
+
+    Assert.assertEquals(changes.size(), 1);
+    Assert.assertTrue(changes.get(0).contains("ağaç"));
+    Assert.assertSame(kept, first);
+    Assert.assertTrue(kept.contains("su"));
+    Assert.assertEquals(registry.reloads(), 1);
+    Assert.assertEquals(registry.size(), 2);
+
+    registry.release("index-2");
+
+    Assert.assertEquals(registry.size(), 1);
+    Assert.assertSame(registry.acquire("index-3", file), changes.get(0));
+
+    registry.release("index-1");
+    write("words.txt", "kedi\n", 4000);
+    registry.checkAndNotify();
+
+    Assert.assertEquals(changes.size(), 1);
+  }
+
+  @Test
+  public void testReloadFailure() throws IOException {
+    Path file = write("words.txt", "su\n", 1000);
+    List<CharArraySet> changes = new ArrayList<>();
+
+    registry.acquire("index", file, changes::add);
+    Files.delete(file);
+
+    try {
+      registry.checkAndNotify();
+      Assert.fail("the missing file was not reported");
+    } catch(IOException e) {
+      Assert.assertTrue(changes.isEmpty());
+    }
+
+    write("words.txt", "ağaç\n", 2000);
+    registry.checkAndNotify();
+
+    Assert.assertEquals(changes.size(), 1);
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testMissing() throws IOException {
+    registry.acquire("index", directory.resolve("missing.txt"));
+  }
+}
@@ -0,0 +1,218 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.analysis.TokenFilterFactory;
+import org.elasticsearch.index.analysis.TurkishStemmer;
+import org.elasticsearch.index.analysis.TurkishStemmerTokenFilterFactory;
+import org.elasticsearch.index.analysis.stemmer.turkish.lexicon.StemLexicon;
+import org.elasticsearch.index.analysis.stemmer.turkish.stats.StemmerStats;
+import org.elasticsearch.indices.analysis.AnalysisModule.AnalysisProvider;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TurkishStemmerPluginTest {
+  private Path home;
+  private Environment env;
+  private TurkishStemmerPlugin plugin;
+  private AnalysisProvider<TokenFilterFactory> provider;
+  private Settings filterSettings;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    home = Files.createTempDirectory("turkish_stemmer_home");
+    Files.createDirectories(home.resolve("config"));
+    Files.write(home.resolve("config").resolve("protected_words.txt"),
+        "ankara\nistanbul\n".getBytes(StandardCharsets.UTF_8));
+
+    env = new Environment(Settings.builder()
+        .put(Environment.PATH_HOME_SETTING.getKey(), home.toString())
+        .build());
+    plugin = new TurkishStemmerPlugin(Settings.EMPTY);
+    provider = plugin.getTokenFilters().get("turkish_stemmer");
+    filterSettings = Settings.builder()
+        .put("type", "turkish_stemmer")
+        .put("protected_words_path", "protected_words.txt")
+        .put("reload_word_lists", true)
+        .build();
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    Files.delete(home.resolve("config").resolve("protected_words.txt"));
+    Files.delete(home.resolve("config"));
+    Files.delete(home);
+  }
+
+  private static IndexSettings indexSettings(String name, String uuid) {
+    Settings settings = Settings.builder()
+        .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+        .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+        .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+        .put(IndexMetaData.SETTING_INDEX_UUID, uuid)
+        .build();
+
+    return new IndexSettings(IndexMetaData.builder(name).settings(settings).build(),
+        Settings.EMPTY);
+  }
+
+  @Test
+  public void testInlineFiltersLeaveNoReferences() throws IOException {
+    // The way _analyze builds a filter that is defined in the request
+    IndexSettings na = indexSettings(IndexMetaData.INDEX_UUID_NA_VALUE,
+        IndexMetaData.INDEX_UUID_NA_VALUE);
+
+    for (int i = 0; i < 100; i++) {
+      provider.get(na, env, "_anonymous_tokenfilter_[0]", filterSettings);
+    }
+
+    Assert.assertEquals(plugin.getWordLists().owners(), 0);
+    Assert.assertEquals(plugin.getWordLists().size(), 0);
+    Assert.assertTrue(plugin.getStats().indices().isEmpty());
+    Assert.assertNull(plugin.getFilters().get(IndexMetaData.INDEX_UUID_NA_VALUE,
+        "_anonymous_tokenfilter_[0]"));
+  }
+
+  @Test
+  public void testIndexFiltersShareTheRegistries() throws IOException {
+    IndexSettings index = indexSettings("index", "uuid");
+
+    provider.get(index, env, "stem", filterSettings);
+
+    Assert.assertEquals(plugin.getWordLists().owners(), 1);
+    Assert.assertEquals(plugin.getWordLists().size(), 1);
+    Assert.assertTrue(plugin.getStats().indices().containsKey("index"));
+    Assert.assertNotNull(plugin.getFilters().get("index", "stem"));
+
+    plugin.getWordLists().release(index.getIndex());
+
+    Assert.assertEquals(plugin.getWordLists().owners(), 0);
+  }
+
+  @Test
+  public void testBatchesAreCountedApart() throws IOException {
+    TurkishStemmerTokenFilterFactory factory = (TurkishStemmerTokenFilterFactory)
+        provider.get(indexSettings("index", "uuid"), env, "stem", filterSettings);
+    StemmerStats batchStats = plugin.getStats().batchStats("index", "stem");
+
+    Assert.assertEquals(stem(stream -> factory.create(stream, batchStats), "kitapları"), "kitap");
+
+    Assert.assertEquals(plugin.getStats().indices().get("index").get("stem").tokens(), 0);
+    Assert.assertEquals(batchStats.tokens(), 1);
+
+    Assert.assertEquals(stem(factory, "kitapları"), "kitap");
+
+    Assert.assertEquals(plugin.getStats().indices().get("index").get("stem").tokens(), 1);
+    Assert.assertEquals(batchStats.tokens(), 1);
+  }
+
+  @Test
+  public void testReloadReopensTheRebuiltLexicon() throws IOException {
+    Path protectedWords = home.resolve("config").resolve("protected_words.txt");
+    Path lexicon = home.resolve("config").resolve("lexicon.fst");
+    Settings settings = Settings.builder()
+        .put(filterSettings)
+        .put("lexicon_path", "lexicon.fst")
+        .build();
+
+    try {
+      writeLexicon(lexicon, "kita", "ankara", "istanbul");
+
+      TokenFilterFactory factory = provider.get(indexSettings("index", "uuid"),
+          env, "stem", settings);
+
+      Assert.assertEquals(stem(factory, "kitapları"), "kita");
+
+      // The lexicon was built with other protected words
+      Files.write(protectedWords, "ankara\nistanbul\nizmir\n".getBytes(StandardCharsets.UTF_8));
+      plugin.getWordLists().checkAndNotify();
+
+      Assert.assertEquals(stem(factory, "kitapları"), "kitap");
+
+      writeLexicon(lexicon, "kit", "ankara", "istanbul", "izmir", "bursa");
+      Files.write(protectedWords, "ankara\nistanbul\nizmir\nbursa\n".getBytes(StandardCharsets.UTF_8));
+      plugin.getWordLists().checkAndNotify();
+
+      Assert.assertEquals(stem(factory, "kitapları"), "kit");
+    } finally {
+      Files.deleteIfExists(lexicon);
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testCacheSizeAboveTheCap() throws IOException {
+    provider.get(indexSettings("index", "uuid"), env, "stem", Settings.builder()
+        .put("type", "turkish_stemmer")
+        .put("cache_size", 1 << 24)
+        .build());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testLexiconOfOtherSettings() throws IOException {
+    Path lexicon = home.resolve("config").resolve("lexicon.fst");
+    Settings settings = Settings.builder()
+        .put(filterSettings)
+        .put("lexicon_path", "lexicon.fst")
+        .put("correct_mistypes", false)
+        .build();
+
+    try {
+      writeLexicon(lexicon, "kita", "ankara", "istanbul");
+      provider.get(indexSettings("index", "uuid"), env, "stem", settings);
+    } finally {
+      Files.deleteIfExists(lexicon);
+    }
+  }
+
+  /**
+   * Writes a lexicon with a word, built by a stemmer with the given
+   * protected words and the default settings.
+   */
+  private static void writeLexicon(Path path, String stem, String... protectedWords)
+      throws IOException {
+    StemLexicon.Writer writer = StemLexicon.writer(TurkishStemmer.builder()
+        .protectedWords(new CharArraySet(Arrays.asList(protectedWords), false))
+        .build()
+        .fingerprint());
+
+    writer.add("kitapları", stem);
+    writer.write(path);
+  }
+
+  private static String stem(TokenFilterFactory factory, String word) throws IOException {
+    return stem(factory::create, word);
+  }
+
+  private static String stem(Function<TokenStream, TokenStream> filter, String word)
+      throws IOException {
+    Tokenizer tokenizer = new WhitespaceTokenizer();
+    tokenizer.setReader(new StringReader(word));
+
+    try (TokenStream stream = filter.apply(tokenizer)) {
+      CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+      stream.reset();
+      Assert.assertTrue(stream.incrementToken());
+      String stem = term.toString();
+      stream.end();
+      return stem;
+    }
+  }
+}
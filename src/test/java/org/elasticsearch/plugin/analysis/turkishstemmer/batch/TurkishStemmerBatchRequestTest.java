@@ -0,0 +1,124 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.batch;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.index.analysis.TurkishStemmer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TurkishStemmerBatchRequestTest {
+
+  private static TurkishStemmerBatchRequest parse(String index, String json) throws IOException {
+    TurkishStemmerBatchRequest request = new TurkishStemmerBatchRequest(index);
+
+    try (XContentParser parser = JsonXContent.jsonXContent.createParser(
+        NamedXContentRegistry.EMPTY, json)) {
+      TurkishStemmerBatchRequest.parse(parser, request);
+    }
+
+    return request;
+  }
+
+  @Test
+  public void testParse() throws IOException {
+    TurkishStemmerBatchRequest request = parse("index",
+        "{\"filter\": \"stemmer\", \"words\": [\"telefonları\", \"su\"], \"texts\": [\"kitabımızdı\"]}");
+
+    Assert.assertEquals(request.filter(), "stemmer");
+    Assert.assertEquals(request.words(), new String[] { "telefonları", "su" });
+    Assert.assertEquals(request.texts(), new String[] { "kitabımızdı" });
+    Assert.assertNull(request.validate());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testParseNotStrings() throws IOException {
+    parse(null, "{\"words\": [\"su\", 1]}");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testParseUnknown() throws IOException {
+    parse(null, "{\"analyzer\": \"standard\"}");
+  }
+
+  @Test
+  public void testValidate() throws IOException {
+    Assert.assertNotNull(parse(null, "{}").validate());
+    Assert.assertNotNull(parse(null, "{\"filter\": \"stemmer\", \"words\": []}").validate());
+    Assert.assertNull(parse(null, "{\"words\": []}").validate());
+    Assert.assertNotNull(parse(null, "{\"texts\": [], \"explain\": true}").validate());
+    Assert.assertTrue(parse(null, "{\"words\": [], \"explain\": true}").explain());
+  }
+
+  @Test
+  public void testValidateMaxSize() throws IOException {
+    TurkishStemmerBatchRequest request = parse(null,
+        "{\"words\": [\"telefonları\", \"su\"], \"texts\": [\"kitabımızdı\"]}");
+
+    Assert.assertNull(request.validate());
+    Assert.assertNull(request.maxSize(3, 24).validate());
+    Assert.assertNotNull(request.maxSize(2, 24).validate());
+    Assert.assertNotNull(request.maxSize(3, 23).validate());
+  }
+
+  @Test
+  public void testSerialization() throws IOException {
+    TurkishStemmerBatchRequest request = parse("index",
+        "{\"filter\": \"stemmer\", \"words\": [\"telefonları\"]}");
+    BytesStreamOutput out = new BytesStreamOutput();
+
+    request.writeTo(out);
+
+    TurkishStemmerBatchRequest read = new TurkishStemmerBatchRequest();
+    StreamInput in = out.bytes().streamInput();
+    read.readFrom(in);
+
+    Assert.assertEquals(read.index(), "index");
+    Assert.assertEquals(read.filter(), "stemmer");
+    Assert.assertEquals(read.words(), new String[] { "telefonları" });
+    Assert.assertNull(read.texts());
+  }
+
+  @Test
+  public void testExplanations() throws IOException {
+    TurkishStemmerBatchResponse response = new TurkishStemmerBatchResponse(
+        new String[] { "telefon" }, null,
+        Collections.singletonList(new TurkishStemmer().explain("telefonları")));
+    BytesStreamOutput out = new BytesStreamOutput();
+
+    response.writeTo(out);
+
+    TurkishStemmerBatchResponse read = new TurkishStemmerBatchResponse();
+    read.readFrom(out.bytes().streamInput());
+
+    Assert.assertNull(read.getTokens());
+    Assert.assertEquals(read.getExplanations().size(), 1);
+    Assert.assertEquals(read.getExplanations().get(0).stem(), "telefon");
+  }
+
+  @Test
+  public void testResponse() throws IOException {
+    TurkishStemmerBatchResponse response = new TurkishStemmerBatchResponse(
+        new String[] { "telefon" }, new String[][] { { "kitap", "su" }, {} }, null);
+    BytesStreamOutput out = new BytesStreamOutput();
+
+    response.writeTo(out);
+
+    TurkishStemmerBatchResponse read = new TurkishStemmerBatchResponse();
+    read.readFrom(out.bytes().streamInput());
+
+    XContentBuilder builder = XContentFactory.jsonBuilder();
+    read.toXContent(builder, ToXContent.EMPTY_PARAMS);
+
+    Assert.assertEquals(builder.string(),
+        "{\"stems\":[\"telefon\"],\"tokens\":[[\"kitap\",\"su\"],[]]}");
+  }
+}
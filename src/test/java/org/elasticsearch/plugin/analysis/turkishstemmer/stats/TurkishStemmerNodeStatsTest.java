@@ -0,0 +1,87 @@
+package org.elasticsearch.plugin.analysis.turkishstemmer.stats;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.transport.LocalTransportAddress;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.analysis.stemmer.turkish.stats.StemmerStats;
+import org.elasticsearch.index.analysis.stemmer.turkish.trace.SkipReason;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TurkishStemmerNodeStatsTest {
+
+  private static TurkishStemmerNodeStats nodeStats() {
+    StemmerStats stats = new StemmerStats();
+    StemmerStats.Recorder recorder = stats.recorder();
+
+    recorder.token();
+    recorder.token();
+    recorder.token();
+    recorder.stemmed();
+    recorder.skipped(SkipReason.NON_TURKISH);
+    recorder.keyword();
+    recorder.cacheHit();
+    recorder.cacheMiss();
+    recorder.lexiconHit();
+    recorder.latency(300);
+    recorder.flush();
+
+    DiscoveryNode node = new DiscoveryNode("node", "node-id",
+        LocalTransportAddress.buildUnique(), Collections.emptyMap(),
+        Collections.emptySet(), Version.CURRENT);
+
+    return new TurkishStemmerNodeStats(node, Collections.singletonMap("index",
+        Collections.singletonMap("stemmer", new TurkishStemmerFilterStats(stats))),
+        Collections.singletonMap("index",
+            Collections.singletonMap("stemmer", new TurkishStemmerFilterStats(new StemmerStats()))));
+  }
+
+  @Test
+  public void testSerialization() throws IOException {
+    TurkishStemmerNodeStats written = nodeStats();
+    BytesStreamOutput out = new BytesStreamOutput();
+
+    written.writeTo(out);
+
+    TurkishStemmerNodeStats read =
+        TurkishStemmerNodeStats.readNodeStats(out.bytes().streamInput());
+    Map<String, TurkishStemmerFilterStats> filters = read.getIndices().get("index");
+    TurkishStemmerFilterStats stats = filters.get("stemmer");
+
+    Assert.assertEquals(read.getNode().getId(), "node-id");
+    Assert.assertEquals(stats.getTokens(), 3);
+    Assert.assertEquals(stats.getStemmed(), 1);
+    Assert.assertEquals(stats.getKeywords(), 1);
+    Assert.assertEquals(stats.getSkipped(SkipReason.NON_TURKISH), 1);
+    Assert.assertEquals(stats.getCacheHitRatio(), 0.5);
+    Assert.assertEquals(stats.getLexiconHits(), 1);
+    Assert.assertEquals(stats.getLexiconMisses(), 0);
+    Assert.assertEquals(read.getBatches().get("index").get("stemmer").getTokens(), 0);
+  }
+
+  @Test
+  public void testToXContent() throws IOException {
+    XContentBuilder builder = XContentFactory.jsonBuilder();
+
+    builder.startObject();
+    nodeStats().toXContent(builder, ToXContent.EMPTY_PARAMS);
+    builder.endObject();
+
+    String json = builder.string();
+
+    Assert.assertTrue(json.contains("\"indices\":{\"index\":{\"stemmer\":{\"tokens\":3,\"stemmed\":1,"), json);
+    Assert.assertTrue(json.contains("\"batch\":{\"index\":{\"stemmer\":{\"tokens\":0,"), json);
+    Assert.assertTrue(json.contains("\"non-turkish\":1"), json);
+    Assert.assertTrue(json.contains("\"hit_ratio\":0.5"), json);
+    Assert.assertTrue(json.contains("\"lexicon\":{\"hits\":1,\"misses\":0}"), json);
+    Assert.assertTrue(json.contains("\"histogram\":[{\"lt_nanos\":512,\"count\":1}]"), json);
+  }
+}